@@ -0,0 +1,45 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The interpreter and the generated backend on the sample event, with the input already parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BackendBenchmark {
+    private CompiledTransformer interpreter;
+    private CompiledTransformer generated;
+    private JsonNode event;
+
+    @Setup
+    public void setup() {
+        interpreter = JsonTransformer.compile(BenchmarkEvents.config());
+        generated = interpreter.withBackend(CompiledTransformer.Backend.GENERATED);
+        if (generated.backend() != CompiledTransformer.Backend.GENERATED) {
+            throw new IllegalStateException("Code generation is unavailable in this JVM");
+        }
+        event = BenchmarkEvents.event();
+    }
+
+    @Benchmark
+    public JsonNode interpreter() {
+        return interpreter.transform(event);
+    }
+
+    @Benchmark
+    public JsonNode generated() {
+        return generated.transform(event);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.transformer.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file against a baseline and exits with status 1 if any benchmark got
+ * slower, or allocates more per operation, by more than the threshold. Benchmarks are matched on name,
+ * thread count and parameters; entries present in only one file are listed but not treated as regressions.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar com.example.transformer.benchmarks.BaselineComparator
+ * <baseline.json> <results.json> [threshold percent, default 10]}.
+ */
+public final class BaselineComparator {
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    private BaselineComparator() {
+    }
+
+    /**
+     * @param args Baseline file, results file and optional threshold in percent.
+     * @throws Exception if either file cannot be read.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <results.json> [threshold %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, JsonNode> baseline = index(BenchmarkEvents.MAPPER.readTree(new File(args[0])));
+        Map<String, JsonNode> current = index(BenchmarkEvents.MAPPER.readTree(new File(args[1])));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %8s %10s%n", "benchmark", "baseline", "current", "change", "alloc");
+        for (Map.Entry<String, JsonNode> e : current.entrySet()) {
+            JsonNode base = baseline.get(e.getKey());
+            if (base == null) {
+                System.out.printf("%-90s %14s%n", e.getKey(), "(new)");
+                continue;
+            }
+            JsonNode now = e.getValue();
+            double before = base.at("/primaryMetric/score").asDouble();
+            double after = now.at("/primaryMetric/score").asDouble();
+            // Throughput modes report ops per time unit: higher is better. All others report time per op.
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            double change = before == 0 ? 0 : (after - before) / before;
+            boolean slower = higherIsBetter ? change < -threshold : change > threshold;
+            double allocChange = change(base, now);
+            boolean allocates = allocChange > threshold;
+            if (slower || allocates) regressions++;
+            System.out.printf("%-90s %14.3f %14.3f %+7.1f%% %+9.1f%%%s%n", e.getKey(), before, after,
+                    change * 100, allocChange * 100, slower || allocates ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) System.out.printf("%-90s %14s%n", key, "(missing)");
+        }
+        System.out.println(regressions == 0 ? "No regressions." : regressions + " regression(s) above "
+                + Math.round(threshold * 100) + "%.");
+        if (regressions > 0) System.exit(1);
+    }
+
+    /** Relative change in bytes allocated per operation, or 0 if either run lacks the GC profiler. */
+    private static double change(JsonNode base, JsonNode now) {
+        JsonNode before = base.at("/secondaryMetrics/" + ALLOC + "/score");
+        JsonNode after = now.at("/secondaryMetrics/" + ALLOC + "/score");
+        if (before.isMissingNode() || after.isMissingNode()) return 0;
+        // Allocations below a few bytes per op are noise from the profiler, not the code under test.
+        if (before.asDouble() < 16 && after.asDouble() < 16) return 0;
+        return (after.asDouble() - before.asDouble()) / Math.max(before.asDouble(), 1);
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> index = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace(BaselineComparator.class.getPackage().getName() + ".", ""));
+            key.append(" t=").append(result.path("threads").asInt());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            index.put(key.toString(), result);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.transformer.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared inputs for the benchmarks: the sample event and config packaged with the benchmark jar,
+ * and synthetic copies of the event scaled to a target size.
+ */
+final class BenchmarkEvents {
+    static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String ATTRIBUTES = "/message/clientResponsePayload/decisionElements/0/fraudAttributes/0/attributes";
+
+    private BenchmarkEvents() {
+    }
+
+    /**
+     * @return A fresh copy of {@code input_event.json}.
+     */
+    static JsonNode event() {
+        return read("/input_event.json");
+    }
+
+    /**
+     * @return A fresh copy of {@code sample_config.json}, which rejects the sample event.
+     */
+    static JsonNode sampleConfig() {
+        return read("/config/sample_config.json");
+    }
+
+    /**
+     * Returns the sample config without {@code concatenateExample}, whose required source is absent
+     * from the sample event, so every benchmarked transform succeeds.
+     * @return The benchmark config.
+     */
+    static JsonNode config() {
+        JsonNode config = sampleConfig();
+        ((ObjectNode) config.get("outputFields")).remove("concatenateExample");
+        return config;
+    }
+
+    /**
+     * Scales the sample event to roughly {@code targetBytes} of compact JSON. Fields the config reads are
+     * kept; the fraud attribute object, which no rule references, is emptied and then padded with
+     * numbered copies of its original entries, so lookups still have to skip a realistic unreferenced
+     * subtree. Below the size of the stripped event, the other unreferenced subtrees are dropped too,
+     * which brings the smallest event to about 1 KB.
+     * @param targetBytes Approximate serialized size.
+     * @return The scaled event.
+     */
+    static JsonNode scaled(int targetBytes) {
+        ObjectNode event = (ObjectNode) event();
+        ObjectNode attributes = (ObjectNode) event.at(ATTRIBUTES);
+        List<String> names = new ArrayList<>();
+        attributes.fieldNames().forEachRemaining(names::add);
+        ObjectNode template = attributes.deepCopy();
+        attributes.removeAll();
+        if (size(event) > targetBytes) {
+            ObjectNode message = (ObjectNode) event.get("message");
+            ((ObjectNode) message.get("clientResponsePayload")).remove("decisionElements");
+            ((ObjectNode) message.get("originalRequestData")).remove("application");
+            ((ObjectNode) message.get("originalRequestData")).remove("device");
+            ((ObjectNode) event.at("/message/originalRequestData/contacts/0"))
+                    .remove(List.of("person", "telephones", "emails", "salary"));
+            return event;
+        }
+        int remaining = targetBytes - size(event);
+        for (int i = 0; remaining > 0; i++) {
+            String name = names.get(i % names.size());
+            String key = name + "_" + i;
+            JsonNode value = template.get(name);
+            attributes.set(key, value);
+            remaining -= key.length() + bytes(value).length + 4;
+        }
+        return event;
+    }
+
+    static byte[] bytes(JsonNode node) {
+        try {
+            return MAPPER.writeValueAsBytes(node);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static int size(JsonNode node) {
+        return bytes(node).length;
+    }
+
+    private static JsonNode read(String resource) {
+        try (InputStream in = BenchmarkEvents.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing benchmark resource " + resource);
+            return MAPPER.readTree(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.transformer.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the benchmarks once single-threaded and once with one thread per core (at least two), with the
+ * GC profiler attached, and writes the combined results as JMH JSON.
+ * <p>
+ * Usage: {@code java -jar target/benchmarks.jar [--quick] [--output <file>] [--threads <n>] [<include regex>...]}.
+ * {@code --quick} runs a single short fork, enough for a smoke test or the checked-in baseline; the output
+ * defaults to {@code results/results.json}.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * @param args Command-line arguments.
+     * @throws Exception if a benchmark fails or the results cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        boolean quick = false;
+        String output = "results/results.json";
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        List<String> includes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--quick": quick = true; break;
+                case "--output": output = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                default: includes.add(args[i]);
+            }
+        }
+        if (includes.isEmpty()) includes.add(BenchmarkRunner.class.getPackage().getName() + ".*");
+
+        Collection<RunResult> results = new ArrayList<>();
+        for (int t : new int[]{1, threads}) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .threads(t)
+                    .addProfiler(GCProfiler.class)
+                    .shouldFailOnError(true);
+            for (String include : includes) {
+                options.include(include);
+            }
+            if (quick) {
+                options.forks(1)
+                        .warmupIterations(2).warmupTime(TimeValue.seconds(1))
+                        .measurementIterations(3).measurementTime(TimeValue.seconds(1));
+            } else {
+                options.forks(2)
+                        .warmupIterations(5).warmupTime(TimeValue.seconds(1))
+                        .measurementIterations(5).measurementTime(TimeValue.seconds(2));
+            }
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        File file = new File(output);
+        if (file.getAbsoluteFile().getParentFile() != null) file.getAbsoluteFile().getParentFile().mkdirs();
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, file.getPath()).writeOut(results);
+        System.out.println("Results written to " + file.getPath());
+    }
+}
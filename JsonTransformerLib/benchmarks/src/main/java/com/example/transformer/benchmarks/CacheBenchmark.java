@@ -0,0 +1,44 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import com.example.transformer.TransformCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A repeated sample event transformed without a cache and answered from a {@link TransformCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheBenchmark {
+    private CompiledTransformer uncached;
+    private CompiledTransformer cached;
+    private JsonNode event;
+
+    @Setup
+    public void setup() {
+        uncached = JsonTransformer.compile(BenchmarkEvents.config());
+        cached = uncached.withCache(new TransformCache(10_000, Duration.ofMinutes(10), 64L << 20));
+        event = BenchmarkEvents.event();
+    }
+
+    @Benchmark
+    public JsonNode uncached() {
+        return uncached.transform(event);
+    }
+
+    @Benchmark
+    public JsonNode cachedHit() {
+        return cached.transform(event);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.transformer.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates events shaped like {@code input_event.json} from a seed, so a run can be repeated exactly.
+ * The number of contacts, addresses per contact and orchestration decisions (with one decision element each),
+ * the size of each {@code fraudAttributes} map, the share of missing or empty fields and the skew of
+ * tenants can all be varied. Every event gets its own {@code expRequestId}; tenants follow a Zipf distribution,
+ * so a few tenants send most events when the skew is high. Not thread-safe: use one generator per thread.
+ */
+final class EventGenerator {
+    private static final String[] DECISIONS = {"ACCEPT01", "ACCEPT02", "REFER01", "REFER02", "DECLINE01"};
+    private static final String[] SOURCES = {"IDX", "RUL", "ML"};
+    private static final String[] REASONS = {"No Fraud Detected", "Fraud Dection Missing", "Velocity", "Device Mismatch", "Address Mismatch"};
+    private static final String[] TOWNS = {"Poway", "San Diego", "Austin", "Leeds", "Dublin", "Lyon"};
+    private static final String[] COUNTRIES = {"USA", "GBR", "IRL", "FRA"};
+
+    private final SplittableRandom random;
+    private final ObjectNode template;
+    private final ObjectNode contactTemplate;
+    private final List<Map.Entry<String, JsonNode>> attributeTemplate = new ArrayList<>();
+    private int contacts = 1;
+    private int addresses = 1;
+    private int decisions = 1;
+    private int attributes;
+    private double missingRate;
+    private double[] tenantWeights = {1.0};
+    private long sequence;
+
+    /**
+     * Creates a generator producing events like the sample event: one contact with one address, one decision,
+     * the sample's fraud attributes, nothing missing and a single tenant.
+     * @param seed The random seed; the same seed and settings give the same events.
+     */
+    EventGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.template = (ObjectNode) BenchmarkEvents.event();
+        this.contactTemplate = (ObjectNode) template.at("/message/originalRequestData/contacts/0");
+        Iterator<Map.Entry<String, JsonNode>> sample = template
+                .at("/message/clientResponsePayload/decisionElements/0/fraudAttributes/0/attributes").fields();
+        sample.forEachRemaining(attributeTemplate::add);
+        this.attributes = attributeTemplate.size();
+    }
+
+    /**
+     * @param count Contacts per event, at least 1.
+     * @return This generator.
+     */
+    EventGenerator contacts(int count) {
+        this.contacts = Math.max(1, count);
+        return this;
+    }
+
+    /**
+     * @param count Addresses per contact, at least 1.
+     * @return This generator.
+     */
+    EventGenerator addresses(int count) {
+        this.addresses = Math.max(1, count);
+        return this;
+    }
+
+    /**
+     * @param count Orchestration decisions and decision elements per event, at least 1.
+     * @return This generator.
+     */
+    EventGenerator decisions(int count) {
+        this.decisions = Math.max(1, count);
+        return this;
+    }
+
+    /**
+     * @param count Entries in each {@code fraudAttributes} map; the sample's entries are repeated with numbered keys.
+     * @return This generator.
+     */
+    EventGenerator attributes(int count) {
+        this.attributes = Math.max(0, count);
+        return this;
+    }
+
+    /**
+     * @param rate Share, from 0 to 1, of header, decision and address fields that are left out (half of them)
+     *             or set to an empty string (the other half).
+     * @return This generator.
+     */
+    EventGenerator missingRate(double rate) {
+        this.missingRate = Math.min(1, Math.max(0, rate));
+        return this;
+    }
+
+    /**
+     * @param count Number of tenants.
+     * @param skew Zipf exponent: 0 spreads events evenly, 1 or more sends most events to the first few tenants.
+     * @return This generator.
+     */
+    EventGenerator tenants(int count, double skew) {
+        double[] weights = new double[Math.max(1, count)];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += 1 / Math.pow(i + 1, skew);
+            weights[i] = total;
+        }
+        for (int i = 0; i < weights.length; i++) weights[i] /= total;
+        this.tenantWeights = weights;
+        return this;
+    }
+
+    /**
+     * @return The next event.
+     */
+    JsonNode next() {
+        ObjectNode event = template.deepCopy();
+        long id = ++sequence;
+        ObjectNode header = (ObjectNode) event.at("/message/responseHeader");
+        header.put("expRequestId", String.format("RB%09d", id));
+        header.put("clientReferenceId", Long.toString(100000 + id));
+        header.put("tenantID", String.format("tenant-%04d", tenant()));
+        ObjectNode overall = (ObjectNode) header.get("overallResponse");
+        overall.put("decision", pick(DECISIONS));
+        overall.put("score", random.nextInt(101));
+        overall.set("decisionReasons", reasons());
+        blank(header, "responseCode", "responseType", "responseMessage", "tenantID");
+        blank(overall, "decision", "score");
+
+        ObjectNode payload = (ObjectNode) event.at("/message/clientResponsePayload");
+        ObjectNode decisionTemplate = (ObjectNode) payload.get("orchestrationDecisions").get(0);
+        ObjectNode elementTemplate = (ObjectNode) payload.get("decisionElements").get(0);
+        ArrayNode orchestration = payload.putArray("orchestrationDecisions");
+        ArrayNode elements = payload.putArray("decisionElements");
+        for (int i = 0; i < decisions; i++) {
+            ObjectNode decision = decisionTemplate.deepCopy();
+            String source = pick(SOURCES);
+            decision.put("sequenceId", Integer.toString(i + 1));
+            decision.put("decisionSource", source);
+            decision.put("decision", pick(DECISIONS));
+            decision.put("score", random.nextInt(101));
+            decision.set("decisionReasons", reasons());
+            blank(decision, "decision", "score", "decisionReasons");
+            orchestration.add(decision);
+
+            ObjectNode element = elementTemplate.deepCopy();
+            element.put("serviceName", source);
+            ObjectNode fraud = (ObjectNode) element.get("fraudAttributes").get(0);
+            fraud.set("attributes", attributeMap());
+            elements.add(element);
+        }
+
+        ArrayNode people = ((ObjectNode) event.at("/message/originalRequestData")).putArray("contacts");
+        for (int c = 0; c < contacts; c++) {
+            ObjectNode contact = contactTemplate.deepCopy();
+            contact.put("id", c == 0 ? "MAINCONTACT_1" : "CONTACT_" + (c + 1));
+            ObjectNode addressTemplate = (ObjectNode) contact.get("addresses").get(0);
+            ArrayNode list = contact.putArray("addresses");
+            for (int a = 0; a < addresses; a++) {
+                ObjectNode address = addressTemplate.deepCopy();
+                address.put("id", "ADDRESS_" + (a + 1));
+                address.put("street", (1 + random.nextInt(20000)) + " Scripps");
+                address.put("postTown", pick(TOWNS));
+                address.put("postal", String.format("%05d", random.nextInt(100000)));
+                address.put("countryCode", pick(COUNTRIES));
+                blank(address, "street", "street2", "postTown", "postal", "countryCode");
+                list.add(address);
+            }
+            people.add(contact);
+        }
+        return event;
+    }
+
+    /**
+     * @param count Number of events.
+     * @return The next {@code count} events as compact JSON bytes.
+     */
+    List<byte[]> nextBytes(int count) {
+        List<byte[]> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) events.add(BenchmarkEvents.bytes(next()));
+        return events;
+    }
+
+    private int tenant() {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = tenantWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tenantWeights[mid] < u) low = mid + 1; else high = mid;
+        }
+        return low + 1;
+    }
+
+    private ArrayNode reasons() {
+        ArrayNode reasons = BenchmarkEvents.MAPPER.createArrayNode();
+        for (int i = random.nextInt(3); i > 0; i--) reasons.add(pick(REASONS));
+        return reasons;
+    }
+
+    private ObjectNode attributeMap() {
+        ObjectNode map = BenchmarkEvents.MAPPER.createObjectNode();
+        int size = attributeTemplate.size();
+        for (int i = 0; i < attributes && size > 0; i++) {
+            Map.Entry<String, JsonNode> entry = attributeTemplate.get(i % size);
+            map.set(i < size ? entry.getKey() : entry.getKey() + "_" + i, entry.getValue());
+        }
+        return map;
+    }
+
+    /** Leaves out, or empties, each of the given fields with the configured probability. */
+    private void blank(ObjectNode node, String... fields) {
+        if (missingRate == 0) return;
+        for (String field : fields) {
+            if (random.nextDouble() >= missingRate) continue;
+            if (random.nextBoolean()) {
+                node.remove(field);
+            } else {
+                node.put(field, "");
+            }
+        }
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
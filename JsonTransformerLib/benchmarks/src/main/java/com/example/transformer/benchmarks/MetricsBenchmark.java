@@ -0,0 +1,43 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import com.example.transformer.TransformMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of {@link TransformMetrics}: the same compiled plan on the sample event with and without metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+    private CompiledTransformer plain;
+    private CompiledTransformer instrumented;
+    private JsonNode event;
+
+    @Setup
+    public void setup() {
+        plain = JsonTransformer.compile(BenchmarkEvents.config());
+        instrumented = plain.withMetrics(new TransformMetrics());
+        event = BenchmarkEvents.event();
+    }
+
+    @Benchmark
+    public JsonNode metricsDisabled() {
+        return plain.transform(event);
+    }
+
+    @Benchmark
+    public JsonNode metricsEnabled() {
+        return instrumented.transform(event);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.JsonPath;
+import com.example.transformer.OperationsUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Each {@link OperationsUtils} operation with the sources and scores of the sample config, in both
+ * the path-based form and the slot-based form used by compiled plans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OperationsBenchmark {
+    private static final List<String> ADDRESS = Arrays.asList(
+            "message.originalRequestData.contacts[0].addresses[0].street",
+            "message.originalRequestData.contacts[0].addresses[0].street2",
+            "message.originalRequestData.contacts[0].addresses[0].postTown",
+            "message.originalRequestData.contacts[0].addresses[0].postal",
+            "message.originalRequestData.contacts[0].addresses[0].countryCode");
+    private static final List<String> DECISIONS = Arrays.asList(
+            "message.responseHeader.overallResponse.decision",
+            "message.clientResponsePayload.orchestrationDecisions[0].decision");
+    private static final List<String> SCORES = Arrays.asList(
+            "message.responseHeader.overallResponse.score",
+            "message.clientResponsePayload.orchestrationDecisions[0].score");
+    private static final List<String> REASONS = Arrays.asList(
+            "message.responseHeader.overallResponse.decisionReasons",
+            "message.clientResponsePayload.orchestrationDecisions[0].decisionReasons");
+
+    private JsonNode event;
+    private JsonNode[] addressSlots;
+    private JsonNode[] decisionSlots;
+    private JsonNode[] reasonSlots;
+    private int[] addressIndexes;
+    private int[] decisionIndexes;
+    private int[] scoreIndexes;
+    private int[] reasonIndexes;
+
+    @Setup
+    public void setup() {
+        event = BenchmarkEvents.event();
+        addressSlots = slots(List.of(ADDRESS));
+        addressIndexes = new int[]{0, 1, 2, 3, 4};
+        decisionSlots = slots(List.of(DECISIONS, SCORES));
+        decisionIndexes = new int[]{0, 1};
+        scoreIndexes = new int[]{2, 3};
+        reasonSlots = slots(List.of(REASONS));
+        reasonIndexes = new int[]{0, 1};
+    }
+
+    @Benchmark
+    public String concatenate() {
+        return OperationsUtils.concatenate(event, ADDRESS, ", ");
+    }
+
+    @Benchmark
+    public String conditionalDecision() {
+        return OperationsUtils.conditionalDecision(event, DECISIONS, SCORES);
+    }
+
+    @Benchmark
+    public JsonNode fallback() {
+        return OperationsUtils.fallback(event, REASONS);
+    }
+
+    @Benchmark
+    public String concatenateSlots() {
+        return OperationsUtils.concatenate(addressSlots, addressIndexes, ", ");
+    }
+
+    @Benchmark
+    public String conditionalDecisionSlots() {
+        return OperationsUtils.conditionalDecision(decisionSlots, decisionIndexes, scoreIndexes);
+    }
+
+    @Benchmark
+    public JsonNode fallbackSlots() {
+        return OperationsUtils.fallback(reasonSlots, reasonIndexes);
+    }
+
+    private JsonNode[] slots(List<List<String>> groups) {
+        return groups.stream()
+                .flatMap(List::stream)
+                .map(path -> JsonPath.of(path).evaluate(event))
+                .toArray(JsonNode[]::new);
+    }
+}
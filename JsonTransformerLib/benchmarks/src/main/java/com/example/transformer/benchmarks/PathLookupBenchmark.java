@@ -0,0 +1,56 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.JsonPath;
+import com.example.transformer.TransformerUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Path lookup on the sample event: {@link TransformerUtils#getValueByPath} as the operations call it,
+ * and a precompiled {@link JsonPath} as compiled plans use it, including wildcard and filter paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathLookupBenchmark {
+    @Param({
+            "message.responseHeader",
+            "message.responseHeader.overallResponse.decision",
+            "message.clientResponsePayload.orchestrationDecisions[0].decision",
+            "message.originalRequestData.contacts[0].addresses[0].postal",
+            "message.clientResponsePayload.decisionElements[0].fraudAttributes[0].attributes.cluster_score",
+            "message.clientResponsePayload.orchestrationDecisions[*].decision",
+            "message.clientResponsePayload.orchestrationDecisions[?decisionSource=='IDX'].decision"
+    })
+    public String path;
+
+    private JsonNode event;
+    private JsonPath compiled;
+
+    @Setup
+    public void setup() {
+        event = BenchmarkEvents.event();
+        compiled = JsonPath.compile(path);
+        if (compiled.evaluate(event) == null) {
+            throw new IllegalStateException("Path not found in the sample event: " + path);
+        }
+    }
+
+    @Benchmark
+    public JsonNode getValueByPath() {
+        return TransformerUtils.getValueByPath(event, path);
+    }
+
+    @Benchmark
+    public JsonNode compiledPath() {
+        return compiled.evaluate(event);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import com.example.transformer.TransformedView;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A consumer needing only {@code newDecision} and {@code responseCode}: the full plan, a projected plan
+ * (tree and streaming input), and a lazy view reading the two fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+    private CompiledTransformer full;
+    private CompiledTransformer projected;
+    private JsonNode event;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        full = JsonTransformer.compile(BenchmarkEvents.config());
+        projected = full.project(Arrays.asList("newDecision", "responseCode"));
+        event = BenchmarkEvents.event();
+        bytes = BenchmarkEvents.bytes(event);
+    }
+
+    @Benchmark
+    public JsonNode full() {
+        return full.transform(event);
+    }
+
+    @Benchmark
+    public JsonNode projected() {
+        return projected.transform(event);
+    }
+
+    @Benchmark
+    public JsonNode projectedStreaming() throws IOException {
+        return projected.transform(bytes);
+    }
+
+    @Benchmark
+    public void view(Blackhole bh) {
+        TransformedView view = full.view(event);
+        bh.consume(view.get("newDecision"));
+        bh.consume(view.get("responseCode"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import com.example.transformer.TransformResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Fail-fast validation of the sample event: accepted by the benchmark config, and rejected by the full sample
+ * config, whose last rule ({@code concatenateExample}) has a required source the event lacks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RejectionBenchmark {
+    private CompiledTransformer accepting;
+    private CompiledTransformer rejecting;
+    private JsonNode event;
+
+    @Setup
+    public void setup() {
+        accepting = JsonTransformer.compile(BenchmarkEvents.config());
+        rejecting = JsonTransformer.compile(BenchmarkEvents.sampleConfig());
+        event = BenchmarkEvents.event();
+    }
+
+    @Benchmark
+    public TransformResult accepted() {
+        return accepting.tryTransform(event);
+    }
+
+    @Benchmark
+    public TransformResult rejected() {
+        return rejecting.tryTransform(event);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonPatch;
+import com.example.transformer.JsonTransformer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * An update of the sample event changing only the overall decision and score: a full transform of the
+ * updated event, a re-transform diffing the two versions, and a re-transform from a JSON Patch. The
+ * {@code wide} config adds 40 address concatenations that the update does not touch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RetransformBenchmark {
+    @Param({"sample", "wide"})
+    public String config;
+
+    private CompiledTransformer plan;
+    private JsonNode previous;
+    private JsonNode previousOutput;
+    private JsonNode updated;
+    private JsonPatch patch;
+
+    @Setup
+    public void setup() {
+        JsonNode rules = BenchmarkEvents.config();
+        if (config.equals("wide")) {
+            ObjectNode fields = (ObjectNode) rules.get("outputFields");
+            for (int i = 0; i < 40; i++) fields.set("address" + i, fields.get("address"));
+        }
+        plan = JsonTransformer.compile(rules);
+        previous = BenchmarkEvents.event();
+        previousOutput = plan.transform(previous);
+        patch = JsonPatch.parse(BenchmarkEvents.MAPPER.createArrayNode()
+                .add(BenchmarkEvents.MAPPER.createObjectNode().put("op", "replace")
+                        .put("path", "/message/responseHeader/overallResponse/decision").put("value", "REFER01"))
+                .add(BenchmarkEvents.MAPPER.createObjectNode().put("op", "replace")
+                        .put("path", "/message/responseHeader/overallResponse/score").put("value", 10)));
+        updated = patch.apply(previous);
+    }
+
+    @Benchmark
+    public JsonNode full() {
+        return plan.transform(updated);
+    }
+
+    @Benchmark
+    public JsonNode diff() {
+        return plan.retransform(previous, previousOutput, updated);
+    }
+
+    @Benchmark
+    public JsonNode patch() {
+        return plan.retransform(previous, previousOutput, patch);
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import com.example.transformer.LatencyHistogram;
+import com.example.transformer.TransformResult;
+import com.example.transformer.WarmUp;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Drives a compiled plan with generated events for a fixed duration, either as fast as possible or at a target
+ * rate, and reports per interval the throughput, latency percentiles, allocation rate and GC pauses. At a target
+ * rate, latency is measured from when each event was due rather than when it was sent, so a stall also counts
+ * against the events queued behind it. Events are generated up front by {@link EventGenerator}, so generation
+ * is not part of the measurement.
+ * <p>
+ * The run also reports startup: how long after JVM start the plan was ready (compiled from the config, or loaded
+ * from a {@code --snapshot}), the optional {@link WarmUp}, and when the p99 reached steady state, i.e. the
+ * first interval from which every interval's p99 stays within 25% of the median p99 of the second half of the run.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar com.example.transformer.benchmarks.SoakTest [--duration 60s]
+ * [--rate <events/s>|max] [--threads <n>] [--interval 1s] [--output results/soak.csv] [--config <file>]
+ * [--snapshot <plan.snapshot>] [--warmup <duration>] [--seed <n>] [--events <pool size>] [--contacts <n>] [--addresses <n>] [--decisions <n>] [--attributes <n>]
+ * [--missing <rate>] [--tenants <n>] [--skew <zipf exponent>] [--max-p99-us <n>] [--min-throughput <events/s>]}.
+ * Exits with status 1 if the p99 latency or the throughput over the whole run misses its threshold.
+ */
+public final class SoakTest {
+    private SoakTest() {
+    }
+
+    /**
+     * @param args Command-line arguments.
+     * @throws Exception if the config cannot be read, a transform fails or the results cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        long duration = TimeUnit.SECONDS.toNanos(60);
+        long interval = TimeUnit.SECONDS.toNanos(1);
+        double rate = 0;
+        int threads = 1;
+        String output = "results/soak.csv";
+        String config = null;
+        String snapshot = null;
+        long warmup = 0;
+        long seed = 42;
+        int pool = 10_000;
+        int tenants = 1;
+        double skew = 1;
+        double maxP99 = 0;
+        double minThroughput = 0;
+        List<String[]> knobs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--duration": duration = nanos(args[++i]); break;
+                case "--interval": interval = nanos(args[++i]); break;
+                case "--rate": rate = args[++i].equals("max") ? 0 : Double.parseDouble(args[i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--output": output = args[++i]; break;
+                case "--config": config = args[++i]; break;
+                case "--snapshot": snapshot = args[++i]; break;
+                case "--warmup": warmup = nanos(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--events": pool = Integer.parseInt(args[++i]); break;
+                case "--tenants": tenants = Integer.parseInt(args[++i]); break;
+                case "--skew": skew = Double.parseDouble(args[++i]); break;
+                case "--max-p99-us": maxP99 = Double.parseDouble(args[++i]); break;
+                case "--min-throughput": minThroughput = Double.parseDouble(args[++i]); break;
+                case "--contacts":
+                case "--addresses":
+                case "--decisions":
+                case "--attributes":
+                case "--missing":
+                    knobs.add(new String[]{args[i], args[++i]});
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        // Load the plan first, so its time includes the JVM's first use of the parser or snapshot reader.
+        long loading = System.nanoTime();
+        CompiledTransformer plan;
+        if (snapshot != null) {
+            try (InputStream in = new FileInputStream(snapshot)) {
+                plan = JsonTransformer.loadSnapshot(in);
+            }
+        } else {
+            plan = JsonTransformer.compile(config == null
+                    ? BenchmarkEvents.config() : BenchmarkEvents.MAPPER.readTree(new File(config)));
+        }
+        System.out.printf("Startup: plan %s in %.1f ms, ready %d ms after JVM start%n",
+                snapshot != null ? "loaded from snapshot" : "compiled from config", (System.nanoTime() - loading) / 1e6,
+                ManagementFactory.getRuntimeMXBean().getUptime());
+        EventGenerator generator = new EventGenerator(seed).tenants(tenants, skew);
+        for (String[] knob : knobs) {
+            switch (knob[0]) {
+                case "--contacts": generator.contacts(Integer.parseInt(knob[1])); break;
+                case "--addresses": generator.addresses(Integer.parseInt(knob[1])); break;
+                case "--decisions": generator.decisions(Integer.parseInt(knob[1])); break;
+                case "--attributes": generator.attributes(Integer.parseInt(knob[1])); break;
+                default: generator.missingRate(Double.parseDouble(knob[1]));
+            }
+        }
+        List<byte[]> events = generator.nextBytes(Math.max(pool, threads));
+        if (warmup > 0) {
+            WarmUp.Result result = WarmUp.run(plan, events.subList(0, Math.min(100, events.size())),
+                    Duration.ofNanos(warmup));
+            System.out.println("Startup: " + result);
+        }
+        long bytes = 0;
+        for (byte[] event : events) bytes += event.length;
+        System.out.printf("Soak: %d events of %d bytes on average, %d thread(s), %s for %ds%n", events.size(),
+                bytes / events.size(), threads, rate > 0 ? String.format("%.0f events/s", rate) : "maximum rate",
+                TimeUnit.NANOSECONDS.toSeconds(duration));
+
+        AtomicReference<Window> window = new AtomicReference<>(new Window());
+        Window total = new Window();
+        AtomicLong maxPause = new AtomicLong();
+        listenForPauses(maxPause);
+        List<double[]> p99s = new ArrayList<>();
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long start = System.nanoTime();
+        long end = start + duration;
+        Worker[] workers = new Worker[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Worker(plan, events, t, threads, rate / threads, start, end, window, total);
+            workers[t].start();
+        }
+
+        File file = new File(output);
+        if (file.getAbsoluteFile().getParentFile() != null) file.getAbsoluteFile().getParentFile().mkdirs();
+        String header = "seconds,events,throughput,rejected,p50_us,p99_us,p999_us,max_us,alloc_mb_s,alloc_b_op,"
+                + "gc_count,gc_pause_ms,gc_max_pause_ms";
+        long[] gc = gcTotals();
+        long[] seen = new long[threads];
+        long allocated = allocated(workers, seen);
+        try (PrintWriter csv = new PrintWriter(file, "UTF-8")) {
+            csv.println(header);
+            System.out.println(header);
+            long last = start;
+            while (last < end) {
+                long next = Math.min(end, last + interval);
+                LockSupport.parkNanos(next - System.nanoTime());
+                long now = System.nanoTime();
+                Window done = window.getAndSet(new Window());
+                long[] gcNow = gcTotals();
+                long allocatedNow = allocated(workers, seen);
+                double seconds = (now - last) / 1e9;
+                long count = done.latency.count();
+                double alloc = allocatedNow - allocated;
+                String line = String.format("%.1f,%d,%.0f,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.0f,%d,%d,%d",
+                        (now - start) / 1e9, count, count / seconds, done.rejected.sum(),
+                        done.latency.percentile(50) / 1e3, done.latency.percentile(99) / 1e3,
+                        done.latency.percentile(99.9) / 1e3, done.latency.percentile(100) / 1e3,
+                        alloc / seconds / (1 << 20), count == 0 ? 0 : alloc / count,
+                        gcNow[0] - gc[0], gcNow[1] - gc[1], maxPause.getAndSet(0));
+                csv.println(line);
+                System.out.println(line);
+                if (count > 0) p99s.add(new double[]{(now - start) / 1e9, done.latency.percentile(99) / 1e3});
+                gc = gcNow;
+                allocated = allocatedNow;
+                last = now;
+            }
+        }
+        for (Worker worker : workers) worker.join();
+        for (Worker worker : workers) {
+            if (worker.failure != null) throw worker.failure;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double throughput = total.latency.count() / seconds;
+        double p99 = total.latency.percentile(99) / 1e3;
+        System.out.printf("Total: %d events, %.0f events/s, %d rejected, p50 %.1fus, p99 %.1fus, p99.9 %.1fus, "
+                        + "max %.1fus%n", total.latency.count(), throughput, total.rejected.sum(),
+                total.latency.percentile(50) / 1e3, p99, total.latency.percentile(99.9) / 1e3,
+                total.latency.percentile(100) / 1e3);
+        double[] steady = steadyState(p99s);
+        if (steady != null) {
+            System.out.printf("Steady state: p99 %.1fus reached after %.1fs of load, %.1fs after JVM start%n",
+                    steady[1], steady[0], steady[0] + uptime / 1e3);
+        }
+        System.out.println("Results written to " + file.getPath());
+        boolean failed = false;
+        if (maxP99 > 0 && p99 > maxP99) {
+            System.out.printf("FAILED: p99 %.1fus above %.1fus%n", p99, maxP99);
+            failed = true;
+        }
+        if (minThroughput > 0 && throughput < minThroughput) {
+            System.out.printf("FAILED: throughput %.0f events/s below %.0f%n", throughput, minThroughput);
+            failed = true;
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * @param p99s Per interval: seconds since the load started, at the end of the interval, and its p99.
+     * @return The end time of the interval before the first one from which every p99 stays within 25% of the
+     *         median p99 of the second half of the run, and that median; null if there are too few intervals.
+     */
+    private static double[] steadyState(List<double[]> p99s) {
+        if (p99s.size() < 4) return null;
+        List<Double> tail = new ArrayList<>();
+        for (double[] interval : p99s.subList(p99s.size() / 2, p99s.size())) tail.add(interval[1]);
+        Collections.sort(tail);
+        double median = tail.get(tail.size() / 2);
+        int first = p99s.size();
+        while (first > 0 && p99s.get(first - 1)[1] <= median * 1.25) first--;
+        return new double[]{first == 0 ? 0 : p99s.get(first - 1)[0], median};
+    }
+
+    /** Parses a duration such as {@code 500ms}, {@code 30s} or {@code 10m}; a bare number is seconds. */
+    private static long nanos(String value) {
+        if (value.endsWith("ms")) return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 2)));
+        if (value.endsWith("m")) return TimeUnit.MINUTES.toNanos(Long.parseLong(value.substring(0, value.length() - 1)));
+        if (value.endsWith("s")) value = value.substring(0, value.length() - 1);
+        return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+    }
+
+    /** @return Collection count and accumulated collection time in milliseconds, over all collectors. */
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, gc.getCollectionCount());
+            totals[1] += Math.max(0, gc.getCollectionTime());
+        }
+        return totals;
+    }
+
+    /** Keeps the longest single GC pause since the counter was last reset. */
+    private static void listenForPauses(AtomicLong maxPause) {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter)) continue;
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                maxPause.accumulateAndGet(info.getGcInfo().getDuration(), Math::max);
+            }, null, null);
+        }
+    }
+
+    /**
+     * @param workers The worker threads.
+     * @param seen Each worker's last count.
+     * @return Bytes allocated so far by the worker threads, or 0 if the JVM does not report it.
+     */
+    private static long allocated(Worker[] workers, long[] seen) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return 0;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (int i = 0; i < workers.length; i++) {
+            long bytes = workers[i].isAlive() ? threads.getThreadAllocatedBytes(workers[i].getId()) : workers[i].allocated;
+            if (bytes >= 0) seen[i] = bytes;
+            total += seen[i];
+        }
+        return total;
+    }
+
+    /** Latencies and rejections recorded during one reporting interval, or the whole run. */
+    private static final class Window {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rejected = new LongAdder();
+    }
+
+    private static final class Worker extends Thread {
+        private final CompiledTransformer plan;
+        private final List<byte[]> events;
+        private final int offset;
+        private final int stride;
+        private final long period;
+        private final long start;
+        private final long end;
+        private final AtomicReference<Window> window;
+        private final Window total;
+        private volatile Exception failure;
+        /** Bytes this thread allocated in total, set when it finishes; -1 until then or if not reported. */
+        private volatile long allocated = -1;
+
+        Worker(CompiledTransformer plan, List<byte[]> events, int offset, int stride, double rate, long start,
+               long end, AtomicReference<Window> window, Window total) {
+            super("soak-" + offset);
+            setDaemon(true);
+            this.plan = plan;
+            this.events = events;
+            this.offset = offset;
+            this.stride = stride;
+            this.period = rate > 0 ? (long) (1e9 / rate) : 0;
+            this.start = start;
+            this.end = end;
+            this.window = window;
+            this.total = total;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int index = offset;
+                for (long n = 0; ; n++) {
+                    long due = period > 0 ? start + n * period : System.nanoTime();
+                    if (due >= end) return;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                    TransformResult result = plan.tryTransform(events.get(index), TransformResult.Mode.FAIL_FAST);
+                    long latency = System.nanoTime() - due;
+                    Window current = window.get();
+                    current.latency.record(latency);
+                    total.latency.record(latency);
+                    if (!result.isSuccess()) {
+                        current.rejected.increment();
+                        total.rejected.increment();
+                    }
+                    index += stride;
+                    if (index >= events.size()) index = offset;
+                }
+            } catch (Exception ex) {
+                failure = ex;
+            } finally {
+                if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+                    allocated = ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                            .getCurrentThreadAllocatedBytes();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Getting a ready plan for the benchmark config: parsing the JSON config and compiling it, or loading a plan
+ * snapshot, which skips the JSON parser. Both bind operations and build the path trie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StartupBenchmark {
+    private byte[] config;
+    private byte[] snapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        config = BenchmarkEvents.bytes(BenchmarkEvents.config());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonTransformer.compile(BenchmarkEvents.config()).writeSnapshot(out);
+        snapshot = out.toByteArray();
+    }
+
+    @Benchmark
+    public CompiledTransformer compileConfig() throws IOException {
+        return JsonTransformer.compile(BenchmarkEvents.MAPPER.readTree(config));
+    }
+
+    @Benchmark
+    public CompiledTransformer loadSnapshot() throws IOException {
+        return JsonTransformer.loadSnapshot(new ByteArrayInputStream(snapshot));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.transformer.benchmarks;
+
+import com.example.transformer.CompiledTransformer;
+import com.example.transformer.JsonTransformer;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * End-to-end transform of the sample event scaled from 1 KB to 1 MB: parsing alone, the original
+ * {@link JsonTransformer#transform(JsonNode, JsonNode)} entry point, a compiled plan on a parsed tree,
+ * and a compiled plan streaming straight from bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransformBenchmark {
+    @Param({"1024", "16384", "131072", "1048576"})
+    public int eventBytes;
+
+    private JsonTransformer transformer;
+    private JsonNode config;
+    private CompiledTransformer plan;
+    private JsonNode event;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        transformer = new JsonTransformer();
+        config = BenchmarkEvents.config();
+        plan = JsonTransformer.compile(config);
+        event = BenchmarkEvents.scaled(eventBytes);
+        bytes = BenchmarkEvents.bytes(event);
+        plan.transform(event);
+    }
+
+    @Benchmark
+    public JsonNode parse() throws IOException {
+        return BenchmarkEvents.MAPPER.readTree(bytes);
+    }
+
+    @Benchmark
+    public JsonNode transform() {
+        return transformer.transform(event, config);
+    }
+
+    @Benchmark
+    public JsonNode compiledTree() {
+        return plan.transform(event);
+    }
+
+    @Benchmark
+    public JsonNode parseAndTransform() throws IOException {
+        return plan.transform(BenchmarkEvents.MAPPER.readTree(bytes));
+    }
+
+    @Benchmark
+    public JsonNode streamingTransform() throws IOException {
+        return plan.transform(bytes);
+    }
+}
@@ -1,7 +1,15 @@
 package com.example.transformer;
 
+import java.util.Arrays;
+
 public class App {
     public static void main(String[] args) throws Exception {
-        JsonTransformer.main(args);
+        if (args.length > 0 && "batch".equals(args[0])) {
+            BatchTransformer.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && "snapshot".equals(args[0])) {
+            PlanSnapshot.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            JsonTransformer.main(args);
+        }
     }
 }
@@ -0,0 +1,240 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Batch transformation of newline-delimited JSON (NDJSON) for backfills and replays.
+ * Events are fanned out to a fixed worker pool sharing one {@link CompiledTransformer}; results are
+ * written in input order, and failed records go to a separate error stream with their line numbers.
+ * At most {@code threads * IN_FLIGHT_PER_THREAD} events are held in memory at once.
+ */
+public final class BatchTransformer {
+    static final int IN_FLIGHT_PER_THREAD = 256;
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final CompiledTransformer plan;
+    private final int threads;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param plan The compiled plan shared by all workers.
+     * @param threads Number of worker threads.
+     */
+    public BatchTransformer(CompiledTransformer plan, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+        this.plan = plan;
+        this.threads = threads;
+    }
+
+    /**
+     * Transforms every record of an NDJSON stream.
+     * @param input The NDJSON input; not closed.
+     * @param output Receives one output object per successful record, in input order; not closed.
+     * @param errors Receives one {@code {"line":..,"error":..,"input":..}} object per failed record; not closed.
+     * @return Throughput and latency figures for the run.
+     * @throws IOException if reading or writing fails.
+     */
+    public Summary run(InputStream input, OutputStream output, OutputStream errors) throws IOException {
+        return run(new NdjsonReader(input), output, errors);
+    }
+
+    /**
+     * Transforms every record of a record source, such as a {@link MappedNdjsonReader}.
+     * @param input The records to transform; not closed.
+     * @param output Receives one output object per successful record, in input order; not closed.
+     * @param errors Receives one {@code {"line":..,"error":..,"input":..}} object per failed record; not closed.
+     * @return Throughput and latency figures for the run.
+     * @throws IOException if reading or writing fails.
+     */
+    public Summary run(RecordSource input, OutputStream output, OutputStream errors) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-transformer");
+            t.setDaemon(true);
+            return t;
+        });
+        LatencyHistogram latency = new LatencyHistogram();
+        ArrayDeque<Future<Outcome>> pending = new ArrayDeque<>();
+        int window = threads * IN_FLIGHT_PER_THREAD;
+        long succeeded = 0;
+        long failed = 0;
+        long started = System.nanoTime();
+        try {
+            ByteBuffer record;
+            while ((record = input.nextRecord()) != null) {
+                long line = input.lineNumber();
+                ByteBuffer event = record;
+                pending.add(pool.submit(() -> process(line, event, latency)));
+                while (pending.size() >= window || (!pending.isEmpty() && pending.peek().isDone())) {
+                    if (write(await(pending.poll()), output, errors)) succeeded++; else failed++;
+                }
+            }
+            while (!pending.isEmpty()) {
+                if (write(await(pending.poll()), output, errors)) succeeded++; else failed++;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        output.flush();
+        errors.flush();
+        return new Summary(succeeded, failed, System.nanoTime() - started, latency);
+    }
+
+    private Outcome process(long line, ByteBuffer event, LatencyHistogram latency) {
+        long t0 = System.nanoTime();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            plan.transformTo(event, out);
+            return new Outcome(line, event, out.toByteArray(), null);
+        } catch (IOException | RuntimeException ex) {
+            return new Outcome(line, event, null, ex.getMessage() == null ? ex.toString() : ex.getMessage());
+        } finally {
+            latency.record(System.nanoTime() - t0);
+        }
+    }
+
+    private boolean write(Outcome outcome, OutputStream output, OutputStream errors) throws IOException {
+        if (outcome.output != null) {
+            output.write(outcome.output);
+            output.write(NEWLINE);
+            return true;
+        }
+        ObjectNode error = mapper.createObjectNode();
+        error.put("line", outcome.line);
+        error.put("error", outcome.error);
+        error.put("input", StandardCharsets.UTF_8.decode(outcome.input.duplicate()).toString());
+        errors.write(mapper.writeValueAsBytes(error));
+        errors.write(NEWLINE);
+        return false;
+    }
+
+    private static Outcome await(Future<Outcome> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a transform", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Transform worker failed", ex.getCause());
+        }
+    }
+
+    private static final class Outcome {
+        final long line;
+        final ByteBuffer input;
+        final byte[] output;
+        final String error;
+
+        Outcome(long line, ByteBuffer input, byte[] output, String error) {
+            this.line = line;
+            this.input = input;
+            this.output = output;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Counts, throughput and per-event transform latency for one batch run.
+     */
+    public static final class Summary {
+        private final long succeeded;
+        private final long failed;
+        private final long elapsedNanos;
+        private final LatencyHistogram latency;
+
+        Summary(long succeeded, long failed, long elapsedNanos, LatencyHistogram latency) {
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+        }
+
+        /** @return Number of records written to the output. */
+        public long succeeded() {
+            return succeeded;
+        }
+
+        /** @return Number of records written to the error stream. */
+        public long failed() {
+            return failed;
+        }
+
+        /** @return Wall-clock time of the run in nanoseconds. */
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** @return Events processed per second, successful or not. */
+        public double eventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (succeeded + failed) * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        /** @return The per-event transform latency histogram, in nanoseconds. */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("events=%d ok=%d failed=%d elapsed=%.3fs rate=%.0f events/s p50=%.1fus p99=%.1fus",
+                    succeeded + failed, succeeded, failed, elapsedNanos / 1e9, eventsPerSecond(),
+                    latency.percentile(50) / 1e3, latency.percentile(99) / 1e3);
+        }
+    }
+
+    /**
+     * Command-line entry point.
+     * Usage: {@code --config <file> [--input <file|->] [--output <file|->] [--errors <file>] [--threads <n>]}.
+     * Input and output default to stdin and stdout; errors default to {@code errors.ndjson}.
+     * An input file is read through a {@link MappedNdjsonReader}.
+     * The summary is printed to stderr.
+     * @param args Command-line arguments.
+     * @throws Exception if reading, writing or compiling the config fails.
+     */
+    public static void main(String[] args) throws Exception {
+        String config = null;
+        String input = "-";
+        String output = "-";
+        String errors = "errors.ndjson";
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--config": config = value; i++; break;
+                case "--input": input = value; i++; break;
+                case "--output": output = value; i++; break;
+                case "--errors": errors = value; i++; break;
+                case "--threads": threads = Integer.parseInt(value); i++; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (config == null) {
+            System.err.println("Usage: batch --config <file> [--input <file|->] [--output <file|->] [--errors <file>] [--threads <n>]");
+            System.exit(2);
+        }
+        CompiledTransformer plan = JsonTransformer.compile(new ObjectMapper().readTree(new File(config)));
+        PrintStream stdout = System.out;
+        try (RecordSource in = "-".equals(input) ? new NdjsonReader(System.in) : new MappedNdjsonReader(Paths.get(input));
+             OutputStream out = new BufferedOutputStream("-".equals(output) ? stdout : new FileOutputStream(output), 1 << 16);
+             OutputStream err = new BufferedOutputStream(new FileOutputStream(errors), 1 << 16)) {
+            Summary summary = new BatchTransformer(plan, threads).run(in, out, err);
+            System.err.println(summary);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The operations shipped with the library: {@code concatenate}, {@code conditional_decision} and
+ * {@code fallback}, each over any number of sources, wildcard and filter paths included. Their evaluators
+ * delegate to the slot-based methods of {@link OperationsUtils}; {@link CodeGenerator} recognizes them and
+ * writes them out inline.
+ */
+final class BuiltinOperations {
+    private BuiltinOperations() {
+    }
+
+    /**
+     * @return A new instance of every built-in operation.
+     */
+    static List<Operation> all() {
+        return Arrays.asList(new Concatenate(), new ConditionalDecision(), new Fallback());
+    }
+
+    /**
+     * Wraps a string result, treating blank strings as empty.
+     * @param value The result.
+     * @return A TextNode, or null if the value is null or blank.
+     */
+    static JsonNode text(String value) {
+        return value != null && !TransformerUtils.isBlank(value) ? TextNode.valueOf(value) : null;
+    }
+
+    /**
+     * Concatenates the non-empty sources, like {@link OperationsUtils#concatenate(JsonNode[], int[], String)}.
+     * A single non-empty text value is returned as is, and several are joined in this thread's reusable
+     * builder, so the only allocations are the result string and its node.
+     * @param slots The per-event slot array.
+     * @param sources Slot index of each source.
+     * @param separator Separator string.
+     * @return The concatenated text, or null if it is blank.
+     */
+    static JsonNode concatenate(JsonNode[] slots, int[] sources, String separator) {
+        JsonNode single = null;
+        int parts = 0;
+        for (int source : sources) {
+            JsonNode val = slots[source];
+            if (val instanceof FanOutNode) {
+                for (int i = 0, n = val.size(); i < n && parts < 2; i++) {
+                    if (!TransformerUtils.isEmpty(val.get(i)) && parts++ == 0) single = val.get(i);
+                }
+            } else if (val != null && !TransformerUtils.isEmpty(val) && parts++ == 0) {
+                single = val;
+            }
+            if (parts > 1) {
+                StringBuilder sb = TransformerUtils.builder();
+                for (int s : sources) OperationsUtils.append(sb, slots[s], separator);
+                return TransformerUtils.isBlank(sb) ? null : TextNode.valueOf(sb.toString());
+            }
+        }
+        if (single == null) return null;
+        return single.isTextual() ? single : text(single.asText());
+    }
+
+    /**
+     * Picks the decision with the lowest score, like {@link OperationsUtils#conditionalDecision(JsonNode[], int[], int[])},
+     * returning the input's own node for the winning decision instead of a copy.
+     * @param slots The per-event slot array.
+     * @param sources Slot index of each decision.
+     * @param scores Slot index of each score.
+     * @return The selected decision, or null if it is blank.
+     */
+    static JsonNode decision(JsonNode[] slots, int[] sources, int[] scores) {
+        JsonNode decision = OperationsUtils.lowestScore(slots, sources, scores);
+        if (decision == null) return null;
+        if (decision.isTextual()) return TransformerUtils.isBlank(decision.textValue()) ? null : decision;
+        return text(decision.asText(""));
+    }
+
+    /**
+     * @param value A fallback source.
+     * @return The first non-empty value, expanding a fan-out, or null.
+     */
+    static JsonNode first(JsonNode value) {
+        return OperationsUtils.firstNonEmpty(value);
+    }
+
+    static final class Concatenate implements Operation {
+        @Override
+        public String name() {
+            return "concatenate";
+        }
+
+        @Override
+        public Operation.Evaluator bind(OperationBinding binding) {
+            JsonNode separator = binding.rule().get("separator");
+            return new ConcatenateEvaluator(binding.sources(), separator != null ? separator.asText() : ", ");
+        }
+    }
+
+    static final class ConcatenateEvaluator implements Operation.Evaluator {
+        final int[] sources;
+        final String separator;
+
+        ConcatenateEvaluator(int[] sources, String separator) {
+            this.sources = sources;
+            this.separator = separator;
+        }
+
+        @Override
+        public JsonNode apply(JsonNode[] slots) {
+            return concatenate(slots, sources, separator);
+        }
+    }
+
+    static final class ConditionalDecision implements Operation {
+        @Override
+        public String name() {
+            return "conditional_decision";
+        }
+
+        @Override
+        public Operation.Evaluator bind(OperationBinding binding) {
+            if (binding.sourcePaths().isEmpty() || binding.scorePaths().isEmpty()) {
+                throw binding.invalid("conditional_decision needs at least one source and one score");
+            }
+            return new ConditionalDecisionEvaluator(binding.sources(), binding.scores());
+        }
+    }
+
+    static final class ConditionalDecisionEvaluator implements Operation.Evaluator {
+        final int[] sources;
+        final int[] scores;
+
+        ConditionalDecisionEvaluator(int[] sources, int[] scores) {
+            this.sources = sources;
+            this.scores = scores;
+        }
+
+        @Override
+        public JsonNode apply(JsonNode[] slots) {
+            return decision(slots, sources, scores);
+        }
+    }
+
+    static final class Fallback implements Operation {
+        @Override
+        public String name() {
+            return "fallback";
+        }
+
+        @Override
+        public Operation.Evaluator bind(OperationBinding binding) {
+            return new FallbackEvaluator(binding.sources());
+        }
+    }
+
+    static final class FallbackEvaluator implements Operation.Evaluator {
+        final int[] sources;
+
+        FallbackEvaluator(int[] sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public JsonNode apply(JsonNode[] slots) {
+            return OperationsUtils.fallback(slots, sources);
+        }
+    }
+}
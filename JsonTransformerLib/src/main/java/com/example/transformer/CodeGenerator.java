@@ -0,0 +1,321 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Turns a plan's rules into Java source for a single class, compiles it in process with {@code javax.tools}
+ * and defines it as a hidden class in this package.
+ * <p>
+ * Each rule becomes its own small method with slots, paths, separators and required flags written in as
+ * constants; {@code fallback} is unrolled, {@code concatenate} and {@code conditional_decision} call their
+ * static helpers in {@link BuiltinOperations} with constant slot arrays, and other operations call their bound {@link Operation.Evaluator}
+ * through a final field, which the JIT treats as a constant in hidden classes, so each call site is monomorphic. One method per rule keeps every method
+ * well under the JIT's inlining and huge-method limits, however large the config.
+ */
+final class CodeGenerator {
+    private static final String CLASS_NAME = "GeneratedPlan";
+
+    private CodeGenerator() {
+    }
+
+    /**
+     * Evaluates every rule of a plan; implemented by the generated class.
+     */
+    interface Evaluator {
+        /**
+         * Same contract as the interpreter loop in {@link CompiledTransformer}.
+         * @param slots The resolved input values.
+         * @param violations Receives required-field violations.
+         * @return The value of each rule in config order; null where a field is omitted.
+         */
+        JsonNode[] evaluate(JsonNode[] slots, ViolationCollector violations);
+
+        /**
+         * Evaluates one rule, for recomputing part of an output.
+         * @param rule The rule's index in config order.
+         * @param slots The resolved input values.
+         * @param violations Receives required-field violations.
+         * @param values Receives the rule's value at its index; left as it was where the field is omitted.
+         * @return True if a violation should stop a fail-fast evaluation.
+         */
+        boolean evaluate(int rule, JsonNode[] slots, ViolationCollector violations, JsonNode[] values);
+    }
+
+    /**
+     * Generates, compiles and instantiates an evaluator for the given rules.
+     * @param rules The plan's rules, in config order.
+     * @param order Rule indexes in the order they run for fail-fast validation.
+     * @return The evaluator.
+     * @throws IllegalStateException if no Java compiler is available or compilation fails.
+     * @throws ReflectiveOperationException if the hidden class cannot be defined or instantiated.
+     */
+    static Evaluator generate(CompiledRule[] rules, int[] order) throws ReflectiveOperationException {
+        byte[] bytecode = compile(source(rules, order));
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytecode, true);
+        try {
+            return (Evaluator) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, CompiledRule[].class))
+                    .invoke((Object) rules);
+        } catch (ReflectiveOperationException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * @param rules The plan's rules, in config order.
+     * @param order Rule indexes in the order they run for fail-fast validation.
+     * @return The Java source of the evaluator class.
+     */
+    static String source(CompiledRule[] rules, int[] order) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("package ").append(CodeGenerator.class.getPackage().getName()).append(";\n\n")
+                .append("import com.fasterxml.jackson.databind.JsonNode;\n\n")
+                .append("final class ").append(CLASS_NAME).append(" implements CodeGenerator.Evaluator {\n");
+        for (int i = 0; i < rules.length; i++) {
+            if (!inlined(rules[i])) out.append("    private final Operation.Evaluator e").append(i).append(";\n");
+            if (rules[i].interner != null) out.append("    private final ValueInterner n").append(i).append(";\n");
+            constants(out, i, rules[i]);
+        }
+        out.append("\n    ").append(CLASS_NAME).append("(CompiledRule[] rules) {\n");
+        for (int i = 0; i < rules.length; i++) {
+            if (!inlined(rules[i])) {
+                out.append("        e").append(i).append(" = ((CompiledRule.OperationRule) rules[").append(i).append("]).evaluator;\n");
+            }
+            if (rules[i].interner != null) {
+                out.append("        n").append(i).append(" = rules[").append(i).append("].interner;\n");
+            }
+        }
+        out.append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public JsonNode[] evaluate(JsonNode[] slots, ViolationCollector violations) {\n")
+                .append("        JsonNode[] values = new JsonNode[").append(rules.length).append("];\n")
+                .append("        if (violations.failFast) {\n");
+        for (int i : order) {
+            out.append("            if (f").append(i).append("(slots, violations, values) || violations.cancelled()) return values;\n");
+        }
+        out.append("            return values;\n        }\n");
+        for (int i = 0; i < rules.length; i++) {
+            out.append("        if (f").append(i).append("(slots, violations, values) || violations.cancelled()) return values;\n");
+        }
+        out.append("        return values;\n    }\n\n")
+                .append("    @Override\n")
+                .append("    public boolean evaluate(int rule, JsonNode[] slots, ViolationCollector violations, JsonNode[] values) {\n")
+                .append("        switch (rule) {\n");
+        for (int i = 0; i < rules.length; i++) {
+            out.append("            case ").append(i).append(": return f").append(i).append("(slots, violations, values);\n");
+        }
+        out.append("            default: throw new IndexOutOfBoundsException(rule);\n")
+                .append("        }\n    }\n");
+        for (int i = 0; i < rules.length; i++) {
+            out.append("\n    /** ").append(comment(rules[i].outputField)).append(" */\n")
+                    .append("    private boolean f").append(i)
+                    .append("(JsonNode[] slots, ViolationCollector violations, JsonNode[] values) {\n");
+            if (rules[i] instanceof CompiledRule.SourceRule) {
+                sourceRule(out, i, (CompiledRule.SourceRule) rules[i]);
+            } else {
+                operationRule(out, i, (CompiledRule.OperationRule) rules[i]);
+            }
+            out.append("    }\n");
+        }
+        return out.append("}\n").toString();
+    }
+
+    /** @return True if the rule is written out in full; other rules call their bound evaluator. */
+    private static boolean inlined(CompiledRule rule) {
+        if (rule instanceof CompiledRule.SourceRule) return true;
+        Operation.Evaluator evaluator = ((CompiledRule.OperationRule) rule).evaluator;
+        return evaluator instanceof BuiltinOperations.ConcatenateEvaluator
+                || evaluator instanceof BuiltinOperations.ConditionalDecisionEvaluator
+                || evaluator instanceof BuiltinOperations.FallbackEvaluator;
+    }
+
+    /** Writes the slot arrays of an unrolled concatenate or conditional_decision as static constants. */
+    private static void constants(StringBuilder out, int i, CompiledRule rule) {
+        if (!(rule instanceof CompiledRule.OperationRule)) return;
+        Operation.Evaluator evaluator = ((CompiledRule.OperationRule) rule).evaluator;
+        if (evaluator instanceof BuiltinOperations.ConcatenateEvaluator) {
+            intArray(out, "c" + i, ((BuiltinOperations.ConcatenateEvaluator) evaluator).sources);
+        } else if (evaluator instanceof BuiltinOperations.ConditionalDecisionEvaluator) {
+            intArray(out, "d" + i, ((BuiltinOperations.ConditionalDecisionEvaluator) evaluator).sources);
+            intArray(out, "s" + i, ((BuiltinOperations.ConditionalDecisionEvaluator) evaluator).scores);
+        }
+    }
+
+    private static void intArray(StringBuilder out, String name, int[] values) {
+        out.append("    private static final int[] ").append(name).append(" = {");
+        for (int k = 0; k < values.length; k++) {
+            if (k > 0) out.append(", ");
+            out.append(values[k]);
+        }
+        out.append("};\n");
+    }
+
+    private static void sourceRule(StringBuilder out, int i, CompiledRule.SourceRule rule) {
+        out.append("        JsonNode v = slots[").append(rule.source).append("];\n")
+                .append("        if (v == null || TransformerUtils.isEmpty(v)) {\n");
+        if (rule.required) {
+            violation(out, rule.outputField, rule.path, "FIELD_EMPTY");
+            out.append("            return violations.failFast;\n");
+        } else {
+            out.append("            return false;\n");
+        }
+        out.append("        }\n")
+                .append("        values[").append(i).append("] = ").append(rule.interner != null ? "n" + i + ".intern(v)" : "v").append(";\n")
+                .append("        return false;\n");
+    }
+
+    private static void operationRule(StringBuilder out, int i, CompiledRule.OperationRule rule) {
+        boolean checks = false;
+        for (int k = 0; k < rule.requiredSources.length; k++) {
+            checks |= requiredCheck(out, rule.requiredSources[k], rule.sources[k], rule.outputField, rule.sourcePaths.get(k), "SOURCE_EMPTY", checks);
+        }
+        for (int k = 0; k < rule.requiredScores.length; k++) {
+            checks |= requiredCheck(out, rule.requiredScores[k], rule.scores[k], rule.outputField, rule.scorePaths.get(k), "SCORE_EMPTY", checks);
+        }
+        if (checks) out.append("        if (rejected) return false;\n");
+        operation(out, i, rule);
+        if (rule.required) {
+            out.append("        if (v == null || (v.isArray() && TransformerUtils.isArrayAllEmpty(v))) {\n");
+            violation(out, rule.outputField, null, "FIELD_EMPTY");
+            out.append("            return violations.failFast;\n")
+                    .append("        }\n");
+        }
+        out.append("        values[").append(i).append("] = ").append(rule.interner != null ? "n" + i + ".intern(v)" : "v").append(";\n")
+                .append("        return false;\n");
+    }
+
+    private static boolean requiredCheck(StringBuilder out, boolean required, int slot, String field, String path,
+                                         String reason, boolean declared) {
+        if (!required) return false;
+        if (!declared) out.append("        boolean rejected = false;\n");
+        out.append("        if (CompiledRule.isEmptyAt(slots, ").append(slot).append(")) {\n");
+        violation(out, field, path, reason);
+        out.append("            if (violations.failFast) return true;\n")
+                .append("            rejected = true;\n")
+                .append("        }\n");
+        return true;
+    }
+
+    private static void violation(StringBuilder out, String field, String path, String reason) {
+        out.append("            violations.add(").append(literal(field)).append(", ").append(literal(path))
+                .append(", TransformResult.Reason.").append(reason).append(");\n");
+    }
+
+    private static void operation(StringBuilder out, int i, CompiledRule.OperationRule rule) {
+        if (rule.evaluator instanceof BuiltinOperations.ConcatenateEvaluator) {
+            String separator = literal(((BuiltinOperations.ConcatenateEvaluator) rule.evaluator).separator);
+            out.append("        JsonNode v = BuiltinOperations.concatenate(slots, c").append(i).append(", ")
+                    .append(separator).append(");\n");
+        } else if (rule.evaluator instanceof BuiltinOperations.ConditionalDecisionEvaluator) {
+            out.append("        JsonNode v = BuiltinOperations.decision(slots, d").append(i).append(", s").append(i).append(");\n");
+        } else if (rule.evaluator instanceof BuiltinOperations.FallbackEvaluator) {
+            out.append("        JsonNode v = null;\n")
+                    .append("        JsonNode s;\n");
+            for (int slot : ((BuiltinOperations.FallbackEvaluator) rule.evaluator).sources) {
+                out.append("        s = slots[").append(slot).append("];\n")
+                        .append("        if (v == null && s != null) v = BuiltinOperations.first(s);\n");
+            }
+        } else {
+            out.append("        JsonNode v = e").append(i).append(".apply(slots);\n");
+        }
+    }
+
+    static String literal(String value) {
+        if (value == null) return "null";
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /** Keeps a field name from closing the generated comment. */
+    private static String comment(String field) {
+        return literal(field).replace("*/", "*\\/");
+    }
+
+    private static byte[] compile(String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) throw new IllegalStateException("No Java compiler available (running on a JRE?)");
+        String name = CodeGenerator.class.getPackage().getName() + "." + CLASS_NAME;
+        ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+        StringWriter diagnostics = new StringWriter();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        JavaFileObject input = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        ForwardingJavaFileManager<StandardJavaFileManager> files = new ForwardingJavaFileManager<StandardJavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                       FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + ".class"), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytecode;
+                    }
+                };
+            }
+        };
+        boolean ok = compiler.getTask(diagnostics, files, null,
+                Arrays.asList("-classpath", classpath(), "-proc:none", "-g:none"), null,
+                Collections.singletonList(input)).call();
+        if (!ok) throw new IllegalStateException("Generated plan failed to compile:\n" + diagnostics);
+        return bytecode.toByteArray();
+    }
+
+    /**
+     * The compiler needs this library and Jackson on its class path; their code-source locations are used
+     * so that it also works when the application class path does not list them (shaded jars, test runners).
+     */
+    private static String classpath() {
+        Set<String> entries = new LinkedHashSet<>();
+        for (Class<?> type : new Class<?>[]{CodeGenerator.class, JsonNode.class, JsonParser.class}) {
+            CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source != null && source.getLocation() != null && "file".equals(source.getLocation().getProtocol())) {
+                entries.add(new File(URI.create(source.getLocation().toString())).getPath());
+            }
+        }
+        entries.addAll(Arrays.asList(System.getProperty("java.class.path", "").split(File.pathSeparator)));
+        entries.remove("");
+        return String.join(File.pathSeparator, entries);
+    }
+}
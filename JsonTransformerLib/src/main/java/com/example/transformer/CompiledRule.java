@@ -0,0 +1,205 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single output field rule, resolved from the config once by {@link CompiledTransformer}.
+ * Required flags and the bound {@link Operation} are resolved at compile time, and every input
+ * path is replaced by a slot in the plan's {@link PathTrie}, so evaluating a rule only reads
+ * the per-event slot array.
+ */
+abstract class CompiledRule {
+    final String outputField;
+    final boolean required;
+    /** Canonical text values for the field, or null unless the rule sets {@code "intern"}. */
+    final ValueInterner interner;
+    /** The rule's entry in the config, kept so the plan can be written as a {@link PlanSnapshot}. */
+    final JsonNode definition;
+
+    CompiledRule(String outputField, boolean required, ValueInterner interner, JsonNode definition) {
+        this.outputField = outputField;
+        this.required = required;
+        this.interner = interner;
+        this.definition = definition;
+    }
+
+    /**
+     * Evaluates the rule against the resolved input values, including the required-field check.
+     * @param slots The per-event slot array filled by {@link PathTrie#resolve(JsonNode, JsonNode[])}.
+     * @param violations Receives any required field, source or score that is missing or empty.
+     * @return The output value, or null if the result is missing, empty or rejected.
+     */
+    abstract JsonNode evaluate(JsonNode[] slots, ViolationCollector violations);
+
+    /**
+     * @return The operation name used for per-operation metrics; {@code source} for direct mappings.
+     */
+    abstract String operation();
+
+    /**
+     * @return Every input path the rule reads, in the same order as {@link #inputSlots()}.
+     */
+    abstract List<String> inputPaths();
+
+    /**
+     * @return The slot of each path in {@link #inputPaths()}.
+     */
+    abstract int[] inputSlots();
+
+    /**
+     * @return True if the rule has any required check, on the field itself or on a source or score.
+     */
+    boolean validates() {
+        return required;
+    }
+
+    /**
+     * Checks whether an evaluated value fails the required-field rule.
+     * @param value The evaluated value.
+     * @return True if the value counts as missing.
+     */
+    boolean isMissing(JsonNode value) {
+        return value == null;
+    }
+
+    /**
+     * @param value An evaluated output value.
+     * @return The interned value if the rule interns its output; otherwise the value itself.
+     */
+    JsonNode intern(JsonNode value) {
+        return interner == null ? value : interner.intern(value);
+    }
+
+    static boolean isEmptyAt(JsonNode[] slots, int slot) {
+        JsonNode value = slots[slot];
+        return value == null || TransformerUtils.isEmpty(value);
+    }
+
+    /**
+     * Direct mapping of a single source path.
+     */
+    static final class SourceRule extends CompiledRule {
+        final String path;
+        final int source;
+
+        SourceRule(String outputField, boolean required, ValueInterner interner, JsonNode definition, String path,
+                   int source) {
+            super(outputField, required, interner, definition);
+            this.path = path;
+            this.source = source;
+        }
+
+        @Override
+        JsonNode evaluate(JsonNode[] slots, ViolationCollector violations) {
+            if (isEmptyAt(slots, source)) {
+                if (required) violations.add(outputField, path, TransformResult.Reason.FIELD_EMPTY);
+                return null;
+            }
+            return intern(slots[source]);
+        }
+
+        @Override
+        String operation() {
+            return "source";
+        }
+
+        @Override
+        List<String> inputPaths() {
+            return Collections.singletonList(path);
+        }
+
+        @Override
+        int[] inputSlots() {
+            return new int[]{source};
+        }
+    }
+
+    /**
+     * A rule using an {@link Operation}, bound at compile time. Handles the per-source and per-score
+     * required checks, then applies the bound evaluator.
+     */
+    static final class OperationRule extends CompiledRule {
+        final String operation;
+        final Operation.Evaluator evaluator;
+        final List<String> sourcePaths;
+        final List<String> scorePaths;
+        final int[] sources;
+        final int[] scores;
+        final boolean[] requiredSources;
+        final boolean[] requiredScores;
+        private final List<String> inputPaths;
+        private final int[] inputSlots;
+
+        OperationRule(String outputField, boolean required, ValueInterner interner, JsonNode definition,
+                      String operation, Operation.Evaluator evaluator, OperationBinding binding,
+                      boolean[] requiredSources, boolean[] requiredScores) {
+            super(outputField, required, interner, definition);
+            this.operation = operation;
+            this.evaluator = evaluator;
+            this.sourcePaths = binding.sourcePaths();
+            this.sources = binding.sourceSlots();
+            this.requiredSources = requiredSources;
+            this.scorePaths = binding.scorePaths();
+            this.scores = binding.scoreSlots();
+            this.requiredScores = requiredScores;
+            this.inputPaths = binding.inputPaths();
+            this.inputSlots = binding.inputSlots();
+        }
+
+        @Override
+        JsonNode evaluate(JsonNode[] slots, ViolationCollector violations) {
+            boolean rejected = false;
+            for (int i = 0; i < requiredSources.length; i++) {
+                if (requiredSources[i] && isEmptyAt(slots, sources[i])) {
+                    violations.add(outputField, sourcePaths.get(i), TransformResult.Reason.SOURCE_EMPTY);
+                    if (violations.failFast) return null;
+                    rejected = true;
+                }
+            }
+            for (int i = 0; i < requiredScores.length; i++) {
+                if (requiredScores[i] && isEmptyAt(slots, scores[i])) {
+                    violations.add(outputField, scorePaths.get(i), TransformResult.Reason.SCORE_EMPTY);
+                    if (violations.failFast) return null;
+                    rejected = true;
+                }
+            }
+            if (rejected) return null;
+            JsonNode value = evaluator.apply(slots);
+            if (required && isMissing(value)) {
+                violations.add(outputField, null, TransformResult.Reason.FIELD_EMPTY);
+                return null;
+            }
+            return intern(value);
+        }
+
+        @Override
+        String operation() {
+            return operation;
+        }
+
+        @Override
+        List<String> inputPaths() {
+            return inputPaths;
+        }
+
+        @Override
+        int[] inputSlots() {
+            return inputSlots.clone();
+        }
+
+        @Override
+        boolean validates() {
+            if (required) return true;
+            for (boolean flag : requiredSources) if (flag) return true;
+            for (boolean flag : requiredScores) if (flag) return true;
+            return false;
+        }
+
+        @Override
+        boolean isMissing(JsonNode value) {
+            return value == null || (value.isArray() && TransformerUtils.isArrayAllEmpty(value));
+        }
+    }
+}
@@ -0,0 +1,920 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An immutable, thread-safe transformation plan compiled from a config by {@link JsonTransformer#compile(JsonNode)}.
+ * All config lookups (rule types, bound {@link Operation}s, separators and required flags, including
+ * {@code strictSourcesRequired}) are resolved once, so {@link #transform(JsonNode)} only reads the input event.
+ * Every referenced input path is merged into a {@link PathTrie}, so each event is walked once and
+ * shared prefixes such as {@code message.responseHeader} are visited a single time.
+ * With fail-fast validation, rules with required checks run first, cheapest first (see {@link #explain()}),
+ * so rejected events stop early; the output keeps config order.
+ * A single instance can be shared by any number of threads.
+ */
+public final class CompiledTransformer {
+    private static final Logger LOG = Logger.getLogger(CompiledTransformer.class.getName());
+
+    private final CompiledRule[] rules;
+    private final PathTrie paths;
+    private final TransformMetrics metrics;
+    private final TransformMetrics.RuleMetrics[] ruleMetrics;
+    private final CodeGenerator.Evaluator generated;
+    private final TransformCache cache;
+    /** Rules evaluated only for their required checks, by a projection that validates every field; null if none. */
+    private final boolean[] hidden;
+    private final OutputTemplate output;
+    private final ExecutionOrder order;
+    private final DependencyGraph dependencies;
+
+    private CompiledTransformer(CompiledRule[] rules, PathTrie paths, TransformMetrics metrics,
+                                CodeGenerator.Evaluator generated, TransformCache cache, boolean[] hidden,
+                                OutputTemplate output, ExecutionOrder order) {
+        this.rules = rules;
+        this.paths = paths;
+        this.hidden = hidden;
+        this.output = output;
+        this.order = order;
+        this.dependencies = new DependencyGraph(rules, paths);
+        this.metrics = metrics;
+        this.generated = generated;
+        this.cache = cache;
+        if (metrics == null) {
+            this.ruleMetrics = null;
+        } else {
+            this.ruleMetrics = new TransformMetrics.RuleMetrics[rules.length];
+            for (int i = 0; i < rules.length; i++) ruleMetrics[i] = new TransformMetrics.RuleMetrics(metrics, rules[i]);
+        }
+    }
+
+    /**
+     * Compiles a transformation config into a reusable plan.
+     * @param config The transformation config as a JsonNode.
+     * @param operations The operations rules may use.
+     * @return The compiled plan.
+     * @throws IllegalArgumentException if the config is malformed or uses an unknown operation.
+     */
+    static CompiledTransformer compile(JsonNode config, OperationRegistry operations) {
+        JsonNode outputFields = config == null ? null : config.get("outputFields");
+        if (outputFields == null || !outputFields.isObject()) {
+            throw new IllegalArgumentException("config must contain an 'outputFields' object");
+        }
+        boolean strictSourcesRequired = config.has("strictSourcesRequired") && config.get("strictSourcesRequired").asBoolean(false);
+        boolean flatOutputKeys = config.has("flatOutputKeys") && config.get("flatOutputKeys").asBoolean(false);
+        List<CompiledRule> rules = new ArrayList<>();
+        PathTrie.Builder paths = new PathTrie.Builder();
+        Iterator<Map.Entry<String, JsonNode>> fields = outputFields.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            CompiledRule rule = compileRule(entry.getKey(), entry.getValue(), strictSourcesRequired, paths, operations);
+            if (rule != null) rules.add(rule);
+        }
+        CompiledRule[] compiled = rules.toArray(new CompiledRule[0]);
+        PathTrie trie = paths.build();
+        return new CompiledTransformer(compiled, trie, null, null, null, null,
+                OutputTemplate.of(compiled, null, flatOutputKeys), ExecutionOrder.estimate(compiled, trie));
+    }
+
+    /**
+     * Rebuilds a plan from a snapshot written by {@link #writeSnapshot(OutputStream)}.
+     * @param in The stream holding the snapshot; it is not closed.
+     * @param operations The operations rules may use; must include every operation the snapshot's rules use.
+     * @return The plan.
+     * @throws IOException if reading fails or the stream does not hold a plan snapshot.
+     * @throws IllegalArgumentException if a rule uses an operation missing from {@code operations}.
+     */
+    static CompiledTransformer fromSnapshot(InputStream in, OperationRegistry operations) throws IOException {
+        PlanSnapshot snapshot = PlanSnapshot.read(in);
+        PathTrie.Builder paths = new PathTrie.Builder();
+        CompiledRule[] compiled = new CompiledRule[snapshot.fields.length];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = compileRule(snapshot.fields[i], snapshot.definitions[i], false, paths, operations);
+            if (compiled[i] == null) throw new StreamCorruptedException("Corrupt plan snapshot");
+        }
+        PathTrie trie = paths.build();
+        CompiledTransformer plan = new CompiledTransformer(compiled, trie, null, null, null, snapshot.hidden,
+                OutputTemplate.of(compiled, snapshot.hidden, snapshot.flat),
+                ExecutionOrder.of(compiled, snapshot.costs, snapshot.measured));
+        return plan.withBackend(snapshot.backend);
+    }
+
+    /**
+     * How a plan evaluates its rules.
+     */
+    public enum Backend {
+        /** A loop over the compiled rule objects. Always available. */
+        INTERPRETER,
+        /**
+         * A class generated for this config, with paths, separators and required checks as constants,
+         * compiled in process and loaded as a hidden class. Needs a JDK ({@code javax.tools}).
+         */
+        GENERATED
+    }
+
+    /**
+     * Returns a plan sharing this plan's rules that evaluates them with the given backend.
+     * If code generation is unavailable or fails, the interpreter is kept and a warning is logged;
+     * check {@link #backend()} to see which backend is in use. Instrumented plans always interpret,
+     * so that metrics see every rule.
+     * @param backend The backend to use.
+     * @return The plan; this plan is unchanged.
+     */
+    public CompiledTransformer withBackend(Backend backend) {
+        if (backend == backend()) return this;
+        if (backend == Backend.INTERPRETER) return new CompiledTransformer(rules, paths, metrics, null, cache, hidden, output, order);
+        try {
+            return new CompiledTransformer(rules, paths, metrics, CodeGenerator.generate(rules, order.order()), cache,
+                    hidden, output, order);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+            LOG.log(Level.WARNING, "Code generation unavailable; using the interpreter", ex);
+            return this;
+        }
+    }
+
+    /**
+     * @return The backend this plan evaluates rules with.
+     */
+    public Backend backend() {
+        return generated == null ? Backend.INTERPRETER : Backend.GENERATED;
+    }
+
+    /**
+     * Returns a plan sharing this plan's rules that records per-field and per-operation metrics.
+     * @param metrics The metrics to record into, or null for an uninstrumented plan.
+     * @return The instrumented plan; this plan is unchanged.
+     */
+    public CompiledTransformer withMetrics(TransformMetrics metrics) {
+        return metrics == this.metrics ? this
+                : new CompiledTransformer(rules, paths, metrics, generated, cache, hidden, output, order);
+    }
+
+    /**
+     * @return The metrics this plan records into, or null if it is not instrumented.
+     */
+    public TransformMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns a plan sharing this plan's rules that memoizes outcomes by the values the config reads,
+     * so repeated events skip the operations. Metrics, if any, only see the events that miss the cache.
+     * @param cache The cache to use, or null for an uncached plan.
+     * @return The cached plan; this plan is unchanged.
+     * @throws IllegalStateException if the cache is already used by a plan compiled from another config.
+     */
+    public CompiledTransformer withCache(TransformCache cache) {
+        if (cache == this.cache) return this;
+        if (cache != null) cache.bind(rules);
+        return new CompiledTransformer(rules, paths, metrics, generated, cache, hidden, output, order);
+    }
+
+    /**
+     * @return The cache this plan uses, or null if it is not cached.
+     */
+    public TransformCache cache() {
+        return cache;
+    }
+
+    /**
+     * Returns a plan sharing this plan's rules whose fail-fast order uses the evaluation times recorded in its
+     * metrics instead of estimates, so rules with required checks run cheapest first as measured on real traffic.
+     * Rules without timings are placed by their estimate. Output order is unchanged.
+     * @return The reordered plan; this plan is unchanged.
+     * @throws IllegalStateException if the plan has no metrics.
+     */
+    public CompiledTransformer withMeasuredOrder() {
+        if (metrics == null) throw new IllegalStateException("withMeasuredOrder needs a plan with metrics");
+        ExecutionOrder measured = ExecutionOrder.measure(rules, paths, metrics);
+        CompiledTransformer plan = new CompiledTransformer(rules, paths, metrics, null, cache, hidden, output, measured);
+        return plan.withBackend(backend());
+    }
+
+    /**
+     * Describes how this plan runs: the fail-fast execution order with each rule's cost (and its current mean
+     * time if the plan has metrics), the input paths shared by several rules, and the output order.
+     * @return A human-readable description, one item per line.
+     */
+    public String explain() {
+        return order.explain(rules, paths, hidden, metrics, backend());
+    }
+
+    /**
+     * Writes this plan as a compact binary snapshot that {@link JsonTransformer#loadSnapshot(InputStream)} turns
+     * back into an equivalent plan without parsing the JSON config. The execution order (estimated or measured),
+     * projection and backend are kept; metrics and the cache are not.
+     * @param out The stream to write to; it is flushed but not closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeSnapshot(OutputStream out) throws IOException {
+        PlanSnapshot.write(rules, hidden, order, output.flat(), backend(), out);
+    }
+
+    /**
+     * @return The plan's rules, in config order; not to be modified.
+     */
+    CompiledRule[] rules() {
+        return rules;
+    }
+
+    /**
+     * @return The output fields this plan produces, in config order.
+     */
+    public List<String> outputFields() {
+        List<String> fields = new ArrayList<>(rules.length);
+        for (int i = 0; i < rules.length; i++) {
+            if (hidden == null || !hidden[i]) fields.add(rules[i].outputField);
+        }
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * Returns a plan that only evaluates the given output fields and only reads the input paths they use.
+     * Required checks are limited to those fields.
+     * @param fields The output fields to produce.
+     * @return The projected plan; this plan is unchanged.
+     * @throws IllegalArgumentException if a field is not produced by this plan.
+     */
+    public CompiledTransformer project(Collection<String> fields) {
+        return project(fields, false);
+    }
+
+    /**
+     * Returns a plan that only produces the given output fields.
+     * @param fields The output fields to produce.
+     * @param validateAll If true, rules with required checks are still evaluated so the event is validated
+     *                    exactly as by this plan; their values are dropped.
+     * @return The projected plan; this plan is unchanged. Metrics and the backend carry over; a cache does not,
+     *         since cached values are per rule set.
+     * @throws IllegalArgumentException if a field is not produced by this plan.
+     */
+    public CompiledTransformer project(Collection<String> fields, boolean validateAll) {
+        List<String> available = outputFields();
+        for (String field : fields) {
+            if (!available.contains(field)) {
+                throw new IllegalArgumentException("Unknown output field '" + field + "'; available: " + available);
+            }
+        }
+        List<CompiledRule> kept = new ArrayList<>();
+        List<Integer> keptIndexes = new ArrayList<>();
+        List<Boolean> validateOnly = new ArrayList<>();
+        boolean[] slots = new boolean[paths.slotCount()];
+        for (int i = 0; i < rules.length; i++) {
+            boolean wanted = fields.contains(rules[i].outputField) && (hidden == null || !hidden[i]);
+            boolean checked = validateAll && rules[i].validates();
+            if (!wanted && !checked) continue;
+            kept.add(rules[i]);
+            keptIndexes.add(i);
+            validateOnly.add(!wanted);
+            for (int slot : rules[i].inputSlots()) slots[slot] = true;
+        }
+        boolean[] mask = null;
+        if (validateOnly.contains(Boolean.TRUE)) {
+            mask = new boolean[kept.size()];
+            for (int i = 0; i < mask.length; i++) mask[i] = validateOnly.get(i);
+        }
+        CompiledRule[] projected = kept.toArray(new CompiledRule[0]);
+        int[] indexes = new int[projected.length];
+        for (int i = 0; i < indexes.length; i++) indexes[i] = keptIndexes.get(i);
+        CompiledTransformer plan = new CompiledTransformer(projected, paths.retain(slots), metrics, null, null, mask,
+                output.of(projected, mask), order.retain(projected, indexes));
+        return plan.withBackend(backend());
+    }
+
+    /**
+     * Returns a lazy view of an event's output that evaluates each field the first time it is read.
+     * @param input The input event.
+     * @return The view; not thread-safe.
+     */
+    public TransformedView view(JsonNode input) {
+        return new TransformedView(rules, paths, hidden, output, order.order(), input);
+    }
+
+    private static CompiledRule compileRule(String outField, JsonNode rule, boolean strictSourcesRequired,
+                                            PathTrie.Builder paths, OperationRegistry operations) {
+        boolean required = rule.has("required") && rule.get("required").asBoolean(false);
+        ValueInterner interner = ValueInterner.forOption(outField, rule.get("intern"));
+        if (rule.has("source")) {
+            return new CompiledRule.SourceRule(outField, required, interner, rule, rule.get("source").asText(),
+                    paths.add(rule.get("source").asText()));
+        }
+        if (!rule.has("operation")) {
+            return null;
+        }
+        String op = rule.get("operation").asText();
+        Operation operation = operations.get(op);
+        if (operation == null) {
+            throw new IllegalArgumentException(outField + ": unknown operation '" + op + "'; available: " + operations.names());
+        }
+        List<String> sources = textList(outField, rule, "sources");
+        boolean[] requiredSources = flags(rule.get("requiredSources"), sources.size());
+        // If strictSourcesRequired is true, treat all sources as required for required fields
+        if (strictSourcesRequired && required) {
+            Arrays.fill(requiredSources, true);
+        }
+        List<String> scores = rule.has("scores") ? textList(outField, rule, "scores") : Collections.emptyList();
+        boolean[] requiredScores = flags(rule.get("requiredScores"), scores.size());
+        OperationBinding binding = new OperationBinding(outField, rule, sources, slots(sources, paths),
+                scores, slots(scores, paths), paths);
+        Operation.Evaluator evaluator = operation.bind(binding);
+        binding.close();
+        if (evaluator == null) {
+            throw new IllegalStateException(operation.getClass().getName() + ".bind returned null for " + outField);
+        }
+        return new CompiledRule.OperationRule(outField, required, interner, rule, op, evaluator, binding,
+                requiredSources, requiredScores);
+    }
+
+    private static List<String> textList(String outField, JsonNode rule, String name) {
+        JsonNode array = rule.get(name);
+        if (array == null || !array.isArray()) {
+            throw new IllegalArgumentException(outField + ": '" + name + "' must be an array of paths");
+        }
+        List<String> values = new ArrayList<>(array.size());
+        for (JsonNode s : array) values.add(s.asText());
+        return Collections.unmodifiableList(values);
+    }
+
+    private static int[] slots(List<String> sourcePaths, PathTrie.Builder paths) {
+        int[] slots = new int[sourcePaths.size()];
+        for (int i = 0; i < slots.length; i++) slots[i] = paths.add(sourcePaths.get(i));
+        return slots;
+    }
+
+    private static boolean[] flags(JsonNode array, int size) {
+        boolean[] flags = new boolean[size];
+        if (array != null) {
+            for (int i = 0; i < size && i < array.size(); i++) flags[i] = array.get(i).asBoolean(false);
+        }
+        return flags;
+    }
+
+    /**
+     * Transforms the input event using this plan.
+     * @param input The input event as a JsonNode.
+     * @return The transformed output as a JsonNode.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(JsonNode input) {
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        paths.resolve(input, slots);
+        return apply(slots);
+    }
+
+    /**
+     * Transforms an updated version of an event, recomputing only the output fields whose input paths changed
+     * and reusing the other values from the previous output. Only the paths the config reads are compared.
+     * @param previousInput The previous version of the event.
+     * @param previousOutput This plan's output for {@code previousInput}.
+     * @param input The updated event.
+     * @return The output, equal to {@code transform(input)}.
+     * @throws IllegalArgumentException if {@code previousOutput} is not an object.
+     * @throws RuntimeException if a recomputed field, source, or score is missing or empty.
+     */
+    public JsonNode retransform(JsonNode previousInput, JsonNode previousOutput, JsonNode input) {
+        JsonNode[] before = new JsonNode[paths.slotCount()];
+        paths.resolve(previousInput, before);
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        paths.resolve(input, slots);
+        return retransform(slots, previousOutput, dependencies.affected(before, slots, rules.length));
+    }
+
+    /**
+     * Transforms a version of an event described as a JSON Patch against the previous version, recomputing only
+     * the output fields whose input paths the patch touches. Only the inputs of those fields are looked up in
+     * the patched event; {@code patch.apply(previousInput)} gives the same patched event to keep for the next update.
+     * @param previousInput The previous version of the event; not modified.
+     * @param previousOutput This plan's output for {@code previousInput}.
+     * @param patch The change from the previous version.
+     * @return The output, equal to {@code transform(patch.apply(previousInput))}.
+     * @throws IllegalArgumentException if {@code previousOutput} is not an object or the patch does not apply.
+     * @throws RuntimeException if a recomputed field, source, or score is missing or empty.
+     */
+    public JsonNode retransform(JsonNode previousInput, JsonNode previousOutput, JsonPatch patch) {
+        List<String[]> changed = new ArrayList<>();
+        JsonNode input = patch.apply(previousInput, changed);
+        boolean[] affected = dependencies.affected(changed, rules.length);
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        boolean[] resolved = new boolean[slots.length];
+        for (int i = 0; i < rules.length; i++) {
+            if (!affected[i]) continue;
+            for (int slot : rules[i].inputSlots()) {
+                if (resolved[slot]) continue;
+                slots[slot] = paths.pathAt(slot).evaluate(input);
+                resolved[slot] = true;
+            }
+        }
+        return retransform(slots, previousOutput, affected);
+    }
+
+    private JsonNode retransform(JsonNode[] slots, JsonNode previousOutput, boolean[] affected) {
+        if (previousOutput == null || !previousOutput.isObject()) {
+            throw new IllegalArgumentException("previousOutput must be an output object of this plan");
+        }
+        JsonNode[] values = output.values((ObjectNode) previousOutput, rules.length);
+        ViolationCollector violations = new ViolationCollector(TransformResult.Mode.FAIL_FAST);
+        reevaluate(slots, affected, values, violations);
+        if (!violations.isEmpty()) throw new RuntimeException(violations.first().message());
+        return toObject(values);
+    }
+
+    /**
+     * Evaluates the affected rules into {@code values} on the same path as {@link #evaluateRules}, fail-fast:
+     * recording metrics if the plan has them, and through the generated evaluator on that backend.
+     */
+    private void reevaluate(JsonNode[] slots, boolean[] affected, JsonNode[] values, ViolationCollector violations) {
+        if (ruleMetrics != null) {
+            evaluateInstrumented(slots, violations, affected, values);
+            return;
+        }
+        for (int i : order.order()) {
+            if (!affected[i]) continue;
+            if (generated != null) {
+                values[i] = null;
+                if (generated.evaluate(i, slots, violations, values)) return;
+            } else {
+                values[i] = rules[i].evaluate(slots, violations);
+                if (violations.stopped()) return;
+            }
+        }
+    }
+
+    /**
+     * Transforms the input event without throwing on rejected events, stopping at the first violation.
+     * @param input The input event as a JsonNode.
+     * @return The output, or the violation that rejected the event.
+     */
+    public TransformResult tryTransform(JsonNode input) {
+        return tryTransform(input, TransformResult.Mode.FAIL_FAST);
+    }
+
+    /**
+     * Transforms the input event without throwing on rejected events.
+     * @param input The input event as a JsonNode.
+     * @param mode Whether to stop at the first violation or collect all of them.
+     * @return The output, or the violations that rejected the event.
+     */
+    public TransformResult tryTransform(JsonNode input, TransformResult.Mode mode) {
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        paths.resolve(input, slots);
+        return result(slots, mode);
+    }
+
+    /**
+     * Transforms a raw JSON event in streaming mode without throwing on rejected events.
+     * @param input The input event as JSON bytes.
+     * @param mode Whether to stop at the first violation or collect all of them.
+     * @return The output, or the violations that rejected the event.
+     * @throws IOException if the input is not valid JSON.
+     */
+    public TransformResult tryTransform(byte[] input, TransformResult.Mode mode) throws IOException {
+        return tryTransformResolved(resolve(input), mode);
+    }
+
+    /**
+     * The first half of {@link #tryTransform(byte[], TransformResult.Mode)}, for callers that parse and evaluate
+     * on different threads: streams the event, keeping only the values the plan reads.
+     * @param input The input event as JSON bytes.
+     * @return The resolved values, for {@link #tryTransformResolved(JsonNode[], TransformResult.Mode)}.
+     * @throws IOException if the input is not valid JSON.
+     */
+    JsonNode[] resolve(byte[] input) throws IOException {
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        try (JsonParser parser = Json.FACTORY.createParser(input)) {
+            paths.resolve(parser, slots);
+        }
+        return slots;
+    }
+
+    /**
+     * The second half of {@link #tryTransform(byte[], TransformResult.Mode)}: evaluates and validates the rules.
+     * @param slots Values from {@link #resolve(byte[])} of this plan.
+     * @param mode Whether to stop at the first violation or collect all of them.
+     * @return The output, or the violations that rejected the event.
+     */
+    TransformResult tryTransformResolved(JsonNode[] slots, TransformResult.Mode mode) {
+        return result(slots, mode);
+    }
+
+    /**
+     * Transforms a raw JSON event without parsing it into a full tree.
+     * The parser skips every subtree the config does not reference and only materializes the values it reads.
+     * @param input The input event as UTF-8 (or auto-detected) JSON bytes.
+     * @return The transformed output as a JsonNode.
+     * @throws IOException if the input is not valid JSON.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(byte[] input) throws IOException {
+        return transform(input, 0, input.length);
+    }
+
+    /**
+     * Transforms a raw JSON event held in a slice of a byte array, without parsing it into a full tree.
+     * @param input The buffer holding the event.
+     * @param offset Offset of the event's first byte.
+     * @param length Length of the event in bytes.
+     * @return The transformed output as a JsonNode.
+     * @throws IOException if the input is not valid JSON.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(byte[] input, int offset, int length) throws IOException {
+        try (JsonParser parser = Json.FACTORY.createParser(input, offset, length)) {
+            return transform(parser);
+        }
+    }
+
+    /**
+     * Transforms a raw JSON event held in a buffer (for example a slice of a memory-mapped file),
+     * without decoding it to a String or parsing it into a full tree. The buffer's position is not changed.
+     * @param input The event's bytes between position and limit.
+     * @return The transformed output as a JsonNode.
+     * @throws IOException if the input is not valid JSON.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(ByteBuffer input) throws IOException {
+        try (JsonParser parser = createParser(input)) {
+            return transform(parser);
+        }
+    }
+
+    /**
+     * Transforms a raw JSON event read from a stream, without parsing it into a full tree.
+     * The stream is not closed.
+     * @param input The stream holding a single event.
+     * @return The transformed output as a JsonNode.
+     * @throws IOException if reading fails or the input is not valid JSON.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(InputStream input) throws IOException {
+        try (JsonParser parser = Json.FACTORY.createParser(input)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return transform(parser);
+        }
+    }
+
+    /**
+     * Transforms the next JSON value from a caller-supplied parser, skipping every subtree the config does not reference.
+     * @param parser A parser positioned before the event's first token.
+     * @return The transformed output as a JsonNode.
+     * @throws IOException if the input is not valid JSON.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(JsonParser parser) throws IOException {
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        paths.resolve(parser, slots);
+        return apply(slots);
+    }
+
+    /**
+     * Transforms a raw JSON event on a virtual thread (a bounded pool of daemon platform threads before JDK 21), so the caller
+     * does not block while a large event is parsed. Cancelling the future, or reaching the timeout, stops the
+     * work at the next output field.
+     * @param input The input event as JSON bytes.
+     * @param timeout How long the call may take, or null for no limit.
+     * @return The outcome as in {@link #tryTransform(byte[], TransformResult.Mode)} with fail-fast validation.
+     *         Completes exceptionally with an {@link IOException} for invalid JSON, or a
+     *         {@link java.util.concurrent.TimeoutException} when the timeout passes first.
+     */
+    public CompletableFuture<TransformResult> transformAsync(byte[] input, Duration timeout) {
+        return start(new CompletableFuture<>(), () -> Json.FACTORY.createParser(input), timeout);
+    }
+
+    /**
+     * Transforms a raw JSON event read from a stream on a virtual thread; see {@link #transformAsync(byte[], Duration)}.
+     * The stream is not closed, and is read on the virtual thread.
+     * @param input The stream holding a single event.
+     * @param timeout How long the call may take, or null for no limit.
+     * @return The outcome, completing exceptionally on invalid JSON, read failures or the timeout.
+     */
+    public CompletableFuture<TransformResult> transformAsync(InputStream input, Duration timeout) {
+        return start(new CompletableFuture<>(), () -> {
+            JsonParser parser = Json.FACTORY.createParser(input);
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return parser;
+        }, timeout);
+    }
+
+    /**
+     * Transforms many raw JSON events asynchronously with at most {@code maxConcurrency} in progress at once.
+     * Each event's timeout starts when it starts; an event that times out or is cancelled completes its future at
+     * once, but keeps its slot until its transform stops at the next output field, so no more than
+     * {@code maxConcurrency} transforms ever run at once.
+     * @param inputs The input events as JSON bytes.
+     * @param maxConcurrency Most events transformed at the same time.
+     * @param timeout How long each event may take, or null for no limit.
+     * @return One future per input, in input order.
+     */
+    public List<CompletableFuture<TransformResult>> transformAllAsync(List<byte[]> inputs, int maxConcurrency, Duration timeout) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        List<CompletableFuture<TransformResult>> calls = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) calls.add(new CompletableFuture<>());
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < maxConcurrency && i < inputs.size(); i++) startNext(inputs, calls, next, timeout);
+        return Collections.unmodifiableList(calls);
+    }
+
+    private void startNext(List<byte[]> inputs, List<CompletableFuture<TransformResult>> calls, AtomicInteger next, Duration timeout) {
+        int i;
+        while ((i = next.getAndIncrement()) < inputs.size()) {
+            CompletableFuture<TransformResult> call = calls.get(i);
+            if (call.isDone()) continue;
+            byte[] input = inputs.get(i);
+            start(call, () -> Json.FACTORY.createParser(input), timeout, () -> startNext(inputs, calls, next, timeout));
+            return;
+        }
+    }
+
+    private CompletableFuture<TransformResult> start(CompletableFuture<TransformResult> call, ParserFactory input, Duration timeout) {
+        return start(call, input, timeout, null);
+    }
+
+    /**
+     * @param finished Run once the task has stopped working on the event, or null.
+     */
+    private CompletableFuture<TransformResult> start(CompletableFuture<TransformResult> call, ParserFactory input,
+                                                     Duration timeout, Runnable finished) {
+        if (timeout != null) call.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            VirtualThreads.executor().execute(() -> {
+                try {
+                    run(call, input);
+                } finally {
+                    if (finished != null) finished.run();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            call.completeExceptionally(ex);
+            if (finished != null) finished.run();
+        }
+        return call;
+    }
+
+    private void run(CompletableFuture<TransformResult> call, ParserFactory input) {
+        if (call.isDone()) return;
+        try (JsonParser parser = input.create()) {
+            JsonNode[] slots = new JsonNode[paths.slotCount()];
+            paths.resolve(parser, slots);
+            if (call.isDone()) return;
+            ViolationCollector violations = new ViolationCollector(TransformResult.Mode.FAIL_FAST, call);
+            JsonNode[] values = evaluate(slots, violations);
+            if (violations.cancelled()) return;
+            call.complete(result(values, violations));
+        } catch (IOException | RuntimeException ex) {
+            call.completeExceptionally(ex);
+        }
+    }
+
+    private interface ParserFactory {
+        JsonParser create() throws IOException;
+    }
+
+    /**
+     * Transforms the input event and writes the result straight to a generator, in config order,
+     * without building an output tree. All rules are evaluated and validated before the first token
+     * is written, so a failing record leaves nothing behind in the generator.
+     * @param input The input event as a JsonNode.
+     * @param out The generator to write the output object to.
+     * @throws IOException if writing fails.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public void transformTo(JsonNode input, JsonGenerator out) throws IOException {
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        paths.resolve(input, slots);
+        write(evaluate(slots), out);
+    }
+
+    /**
+     * Streams the next JSON value from a parser and writes the result straight to a generator.
+     * Neither the input tree nor the output tree is built.
+     * @param input A parser positioned before the event's first token.
+     * @param out The generator to write the output object to.
+     * @throws IOException if the input is not valid JSON or writing fails.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public void transformTo(JsonParser input, JsonGenerator out) throws IOException {
+        JsonNode[] slots = new JsonNode[paths.slotCount()];
+        paths.resolve(input, slots);
+        write(evaluate(slots), out);
+    }
+
+    /**
+     * Transforms a raw JSON event and writes the output as UTF-8 JSON to a stream. The stream is not closed.
+     * @param input The input event as JSON bytes.
+     * @param out The stream to write to.
+     * @throws IOException if the input is not valid JSON or writing fails.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public void transformTo(byte[] input, OutputStream out) throws IOException {
+        try (JsonParser parser = Json.FACTORY.createParser(input);
+             JsonGenerator gen = Json.FACTORY.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            transformTo(parser, gen);
+        }
+    }
+
+    /**
+     * Transforms a raw JSON event held in a buffer and writes the output as UTF-8 JSON to a stream.
+     * The buffer's position is not changed and the stream is not closed.
+     * @param input The event's bytes between position and limit.
+     * @param out The stream to write to.
+     * @throws IOException if the input is not valid JSON or writing fails.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public void transformTo(ByteBuffer input, OutputStream out) throws IOException {
+        try (JsonParser parser = createParser(input);
+             JsonGenerator gen = Json.FACTORY.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            transformTo(parser, gen);
+        }
+    }
+
+    /**
+     * Transforms a raw JSON event and appends the output as UTF-8 JSON to a reusable buffer.
+     * If the record fails validation or does not fit, the buffer's position is restored,
+     * so no partial record is left in it.
+     * @param input The input event as JSON bytes.
+     * @param out The buffer to append to, starting at its current position.
+     * @return The number of bytes written.
+     * @throws IOException if the input is not valid JSON.
+     * @throws java.nio.BufferOverflowException if the output does not fit in the buffer's remaining space.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public int transformTo(byte[] input, ByteBuffer out) throws IOException {
+        int start = out.position();
+        try {
+            transformTo(input, new ByteBufferOutputStream(out));
+        } catch (IOException | RuntimeException ex) {
+            out.position(start);
+            throw ex;
+        }
+        return out.position() - start;
+    }
+
+    private static JsonParser createParser(ByteBuffer input) throws IOException {
+        if (input.hasArray()) {
+            return Json.FACTORY.createParser(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        }
+        // Direct and mapped buffers are streamed to the parser without an intermediate copy of the record.
+        return Json.FACTORY.createParser(new ByteBufferBackedInputStream(input.duplicate()));
+    }
+
+    private JsonNode apply(JsonNode[] slots) {
+        return toObject(evaluate(slots));
+    }
+
+    private TransformResult result(JsonNode[] slots, TransformResult.Mode mode) {
+        ViolationCollector violations = new ViolationCollector(mode);
+        return result(evaluate(slots, violations), violations);
+    }
+
+    private TransformResult result(JsonNode[] values, ViolationCollector violations) {
+        return violations.isEmpty() ? TransformResult.success(toObject(values)) : TransformResult.failure(violations.violations());
+    }
+
+    private ObjectNode toObject(JsonNode[] values) {
+        return output.toObject(values);
+    }
+
+    /**
+     * Evaluates and validates every rule, throwing on the first violation.
+     * @param slots The resolved input values.
+     * @return The value of each rule in config order; null where a field is omitted.
+     */
+    private JsonNode[] evaluate(JsonNode[] slots) {
+        ViolationCollector violations = new ViolationCollector(TransformResult.Mode.FAIL_FAST);
+        JsonNode[] values = evaluate(slots, violations);
+        if (!violations.isEmpty()) {
+            throw new RuntimeException(violations.first().message());
+        }
+        return values;
+    }
+
+    private JsonNode[] evaluate(JsonNode[] slots, ViolationCollector violations) {
+        if (cache != null) return cache.lookup(slots, violations, this::evaluateRules, this::failFast);
+        return evaluateRules(slots, violations);
+    }
+
+    /**
+     * @param violations Every violation of an event, in config order.
+     * @return The one fail-fast evaluation reports: the first of the earliest rule in execution order.
+     */
+    private TransformResult.Violation failFast(List<TransformResult.Violation> violations) {
+        for (int i : order.order()) {
+            for (TransformResult.Violation violation : violations) {
+                if (violation.field().equals(rules[i].outputField)) return violation;
+            }
+        }
+        return violations.get(0);
+    }
+
+    private JsonNode[] evaluateRules(JsonNode[] slots, ViolationCollector violations) {
+        if (ruleMetrics != null) return evaluateInstrumented(slots, violations, null, new JsonNode[rules.length]);
+        if (generated != null) return generated.evaluate(slots, violations);
+        JsonNode[] values = new JsonNode[rules.length];
+        if (violations.failFast) {
+            for (int i : order.order()) {
+                if (violations.stopped()) break;
+                values[i] = rules[i].evaluate(slots, violations);
+            }
+        } else {
+            for (int i = 0; i < rules.length && !violations.cancelled(); i++) {
+                values[i] = rules[i].evaluate(slots, violations);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Same as {@link #evaluateRules(JsonNode[], ViolationCollector)}, recording source misses and empties,
+     * rule and operation time, and violations by reason.
+     * @param affected The rules to evaluate, or null for all of them.
+     * @param values Receives each evaluated rule's value.
+     */
+    private JsonNode[] evaluateInstrumented(JsonNode[] slots, ViolationCollector violations, boolean[] affected,
+                                            JsonNode[] values) {
+        int[] sequence = order.order();
+        for (int n = 0; n < sequence.length && !violations.stopped(); n++) {
+            int i = violations.failFast ? sequence[n] : n;
+            if (affected != null && !affected[i]) continue;
+            TransformMetrics.RuleMetrics m = ruleMetrics[i];
+            for (int k = 0; k < m.slots.length; k++) {
+                JsonNode value = slots[m.slots[k]];
+                if (value == null) {
+                    m.misses[k].increment();
+                } else if (TransformerUtils.isEmpty(value)) {
+                    m.empties[k].increment();
+                }
+            }
+            int before = violations.size();
+            long start = System.nanoTime();
+            values[i] = rules[i].evaluate(slots, violations);
+            long elapsed = System.nanoTime() - start;
+            m.time.record(elapsed);
+            m.operation.record(elapsed);
+            for (int k = before; k < violations.size(); k++) {
+                m.field.failures(violations.get(k).reason()).increment();
+            }
+        }
+        metrics.recordEvent(violations.isEmpty());
+        return values;
+    }
+
+    private void write(JsonNode[] values, JsonGenerator out) throws IOException {
+        output.write(values, out, Json.MAPPER);
+    }
+
+    /**
+     * The mapper and factory for raw JSON input and output, created on first use so that loading a plan from
+     * a snapshot does not initialize Jackson's databind machinery.
+     */
+    private static final class Json {
+        static final ObjectMapper MAPPER = new ObjectMapper().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        static final JsonFactory FACTORY = MAPPER.getFactory();
+    }
+
+    /**
+     * Adapts a ByteBuffer to the OutputStream Jackson's generators write to.
+     */
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.put(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compiled plans for many tenants, loaded from a directory of configs named {@code <tenantID>.json},
+ * with {@code default.json} as the fallback for tenants without their own config.
+ * <p>
+ * The hot path ({@link #planFor(String)}) is a single read of an immutable snapshot map held in a
+ * volatile field. A tenant's config is read and compiled without holding the registry's lock; only
+ * publishing the new snapshot, eviction and reloading take it, so in-flight transforms keep using the plan
+ * they already hold and one slow tenant does not hold up the others. At most {@code maxTenants} tenants are
+ * kept; rarely used ones are evicted (second-chance LRU) and reloaded on their next event. Tenant IDs come
+ * from event data, so IDs without a usable config are remembered in a separate set of up to
+ * {@value #MAX_UNKNOWN} IDs: they get the default plan without touching the file system again and never
+ * push compiled tenants out. {@link #start()} watches the directory and recompiles changed configs.
+ */
+public final class ConfigRegistry implements Closeable {
+    /** Name of the fallback config file. */
+    public static final String DEFAULT_CONFIG = "default.json";
+    /** Path of the tenant ID in the input event. */
+    public static final String DEFAULT_TENANT_PATH = "message.responseHeader.tenantID";
+    /** Most tenant IDs remembered as having no usable config; the set is cleared when it fills up. */
+    static final int MAX_UNKNOWN = 10_000;
+    private static final Logger LOG = Logger.getLogger(ConfigRegistry.class.getName());
+
+    private final Path directory;
+    private final int maxTenants;
+    private final JsonPath tenantPath;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile Map<String, Entry> plans = Collections.emptyMap();
+    private volatile CompiledTransformer defaultPlan;
+    /** Tenants that use the default plan because they have no config, or one that does not compile. */
+    private final Set<String> unknown = ConcurrentHashMap.newKeySet();
+    /** Incremented by every reload, so a tenant compiled from a config that has since changed is not published. */
+    private volatile long generation;
+    private final List<String> clock = new ArrayList<>();
+    private int clockHand;
+    private WatchService watcher;
+    private Thread watchThread;
+
+    /**
+     * Creates a registry and compiles the default config.
+     * @param directory Directory holding {@code default.json} and {@code <tenantID>.json} configs.
+     * @param maxTenants Maximum number of tenants kept compiled at once.
+     * @throws IOException if the default config cannot be read.
+     * @throws IllegalArgumentException if the default config is malformed.
+     */
+    public ConfigRegistry(Path directory, int maxTenants) throws IOException {
+        this(directory, maxTenants, DEFAULT_TENANT_PATH);
+    }
+
+    /**
+     * Creates a registry and compiles the default config.
+     * @param directory Directory holding {@code default.json} and {@code <tenantID>.json} configs.
+     * @param maxTenants Maximum number of tenants kept compiled at once.
+     * @param tenantPath Dot/bracket path of the tenant ID in the input event.
+     * @throws IOException if the default config cannot be read.
+     * @throws IllegalArgumentException if the default config is malformed.
+     */
+    public ConfigRegistry(Path directory, int maxTenants, String tenantPath) throws IOException {
+        if (maxTenants < 1) throw new IllegalArgumentException("maxTenants must be at least 1");
+        this.directory = directory;
+        this.maxTenants = maxTenants;
+        this.tenantPath = JsonPath.compile(tenantPath);
+        this.defaultPlan = compileFile(directory.resolve(DEFAULT_CONFIG));
+    }
+
+    /**
+     * Returns the plan for a tenant, loading and compiling its config on first use.
+     * @param tenantId The tenant ID; null selects the default config.
+     * @return The tenant's plan, or the default plan if the tenant has no config.
+     */
+    public CompiledTransformer planFor(String tenantId) {
+        if (tenantId == null) return defaultPlan;
+        Entry entry = plans.get(tenantId);
+        if (entry != null) {
+            if (!entry.referenced) entry.referenced = true;
+            return entry.plan;
+        }
+        if (unknown.contains(tenantId)) return defaultPlan;
+        return load(tenantId);
+    }
+
+    /**
+     * Returns the plan for an event, keyed by the tenant ID found at the registry's tenant path.
+     * @param event The input event.
+     * @return The tenant's plan, or the default plan.
+     */
+    public CompiledTransformer planFor(JsonNode event) {
+        JsonNode tenant = tenantPath.evaluate(event);
+        return planFor(tenant == null || !tenant.isValueNode() ? null : tenant.asText());
+    }
+
+    /**
+     * Transforms an event with its tenant's plan.
+     * @param event The input event.
+     * @return The transformed output.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(JsonNode event) {
+        return planFor(event).transform(event);
+    }
+
+    /**
+     * @return The number of tenants currently compiled.
+     */
+    public int size() {
+        return plans.size();
+    }
+
+    /**
+     * @return The number of tenant IDs remembered as using the default plan.
+     */
+    int unknownSize() {
+        return unknown.size();
+    }
+
+    /** Reads and compiles a tenant's config outside the lock, then publishes it under the lock. */
+    private CompiledTransformer load(String tenantId) {
+        long loadedAt = generation;
+        CompiledTransformer plan = compileTenant(tenantId);
+        if (plan == null) {
+            if (unknown.size() >= MAX_UNKNOWN) unknown.clear();
+            unknown.add(tenantId);
+            return defaultPlan;
+        }
+        synchronized (this) {
+            Entry entry = plans.get(tenantId);
+            if (entry != null) return entry.plan;
+            // A reload ran while compiling: the file may have changed, so compile again on the next event.
+            if (generation != loadedAt) return plan;
+            Map<String, Entry> next = new HashMap<>(plans);
+            while (next.size() >= maxTenants) {
+                next.remove(evictOne(next));
+            }
+            next.put(tenantId, new Entry(plan));
+            clock.add(tenantId);
+            plans = Collections.unmodifiableMap(next);
+            return plan;
+        }
+    }
+
+    /** Second-chance (CLOCK) eviction: skip and clear entries used since the hand last passed them. */
+    private String evictOne(Map<String, Entry> next) {
+        while (true) {
+            if (clockHand >= clock.size()) clockHand = 0;
+            String tenant = clock.get(clockHand);
+            Entry entry = next.get(tenant);
+            if (entry != null && entry.referenced) {
+                entry.referenced = false;
+                clockHand++;
+            } else {
+                clock.remove(clockHand);
+                return tenant;
+            }
+        }
+    }
+
+    /**
+     * @return The tenant's compiled plan, or null if it has no config or the config does not compile.
+     */
+    private CompiledTransformer compileTenant(String tenantId) {
+        Path file = configFile(tenantId);
+        if (file == null || !Files.isRegularFile(file)) return null;
+        try {
+            return compileFile(file);
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Could not compile config " + file + "; using the default plan", ex);
+            return null;
+        }
+    }
+
+    private Path configFile(String tenantId) {
+        if (tenantId.isEmpty() || tenantId.contains("/") || tenantId.contains("\\") || tenantId.startsWith(".")) {
+            return null;
+        }
+        return directory.resolve(tenantId + ".json");
+    }
+
+    private CompiledTransformer compileFile(Path file) throws IOException {
+        return JsonTransformer.compile(mapper.readTree(file.toFile()));
+    }
+
+    /**
+     * Recompiles the default config and every loaded tenant, publishing the new plans atomically.
+     * Configs that fail to compile keep their previous plan.
+     */
+    public void reload() {
+        reload(null);
+    }
+
+    /**
+     * Recompiles the given config files, or everything if {@code changed} is null.
+     */
+    private synchronized void reload(List<String> changed) {
+        generation++;
+        boolean all = changed == null || changed.contains(DEFAULT_CONFIG);
+        if (all) {
+            unknown.clear();
+        } else {
+            for (String name : changed) unknown.remove(name.substring(0, name.length() - ".json".length()));
+        }
+        if (all) {
+            try {
+                defaultPlan = compileFile(directory.resolve(DEFAULT_CONFIG));
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Could not compile " + DEFAULT_CONFIG + "; keeping the previous plan", ex);
+            }
+        }
+        Map<String, Entry> next = new HashMap<>(plans);
+        Iterator<Map.Entry<String, Entry>> it = next.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            String tenant = e.getKey();
+            if (!all && !changed.contains(tenant + ".json")) continue;
+            Path file = configFile(tenant);
+            if (!Files.isRegularFile(file)) {
+                // Deleted: the tenant falls back to the default plan.
+                it.remove();
+                clock.remove(tenant);
+                continue;
+            }
+            try {
+                e.setValue(new Entry(compileFile(file)));
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Could not compile config " + file + "; keeping the previous plan", ex);
+            }
+        }
+        clockHand = 0;
+        plans = Collections.unmodifiableMap(next);
+    }
+
+    /**
+     * Starts watching the config directory; changed, created and deleted configs are recompiled
+     * and swapped in atomically.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null) return;
+        watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        WatchService service = watcher;
+        watchThread = new Thread(() -> watch(service), "config-registry-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                List<String> changed = new ArrayList<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = null;
+                        break;
+                    }
+                    String name = event.context().toString();
+                    if (name.endsWith(".json")) changed.add(name);
+                }
+                key.reset();
+                if (changed == null || !changed.isEmpty()) {
+                    reload(changed);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // Closed: stop watching.
+        }
+    }
+
+    /**
+     * Stops watching the config directory. Plans already handed out remain usable.
+     * @throws IOException if the watch service cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watchThread.interrupt();
+            watcher = null;
+        }
+    }
+
+    private static final class Entry {
+        final CompiledTransformer plan;
+        /** Set on use from the hot path; read and cleared by eviction under the lock. */
+        volatile boolean referenced;
+
+        Entry(CompiledTransformer plan) {
+            this.plan = plan;
+        }
+    }
+}
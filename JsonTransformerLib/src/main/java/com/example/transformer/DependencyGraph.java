@@ -0,0 +1,104 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Which output fields depend on which input paths, worked out once when a plan is built. Given the slots of
+ * two versions of an event, or the locations a JSON Patch changed, it tells which rules have to be evaluated
+ * again; every other rule would give the same value and the same verdict. Immutable and thread-safe.
+ */
+final class DependencyGraph {
+    private final PathTrie paths;
+    /** Every slot some rule reads. */
+    private final int[] slots;
+    /** Per entry of {@link #slots}, the rules reading it. */
+    private final int[][] readers;
+
+    DependencyGraph(CompiledRule[] rules, PathTrie paths) {
+        this.paths = paths;
+        List<List<Integer>> bySlot = new ArrayList<>();
+        for (int i = 0; i < paths.slotCount(); i++) bySlot.add(null);
+        for (int r = 0; r < rules.length; r++) {
+            for (int slot : rules[r].inputSlots()) {
+                if (bySlot.get(slot) == null) bySlot.set(slot, new ArrayList<>());
+                if (!bySlot.get(slot).contains(r)) bySlot.get(slot).add(r);
+            }
+        }
+        List<Integer> used = new ArrayList<>();
+        for (int i = 0; i < bySlot.size(); i++) {
+            if (bySlot.get(i) != null) used.add(i);
+        }
+        this.slots = new int[used.size()];
+        this.readers = new int[used.size()][];
+        for (int k = 0; k < slots.length; k++) {
+            slots[k] = used.get(k);
+            List<Integer> rs = bySlot.get(slots[k]);
+            readers[k] = new int[rs.size()];
+            for (int j = 0; j < readers[k].length; j++) readers[k][j] = rs.get(j);
+        }
+    }
+
+    /**
+     * Compares two resolved versions of an event, only over the paths rules read.
+     * @param before The slots of the previous version.
+     * @param after The slots of the updated version.
+     * @param ruleCount The number of rules.
+     * @return Per rule, true if any of its inputs differs.
+     */
+    boolean[] affected(JsonNode[] before, JsonNode[] after, int ruleCount) {
+        boolean[] affected = new boolean[ruleCount];
+        for (int k = 0; k < slots.length; k++) {
+            if (!Objects.equals(before[slots[k]], after[slots[k]])) mark(affected, k);
+        }
+        return affected;
+    }
+
+    /**
+     * @param changed Locations that changed, as JSON Pointer reference tokens.
+     * @param ruleCount The number of rules.
+     * @return Per rule, true if any of its input paths is at, above or below a changed location.
+     */
+    boolean[] affected(List<String[]> changed, int ruleCount) {
+        boolean[] affected = new boolean[ruleCount];
+        for (int k = 0; k < slots.length; k++) {
+            JsonPath path = paths.pathAt(slots[k]);
+            for (String[] tokens : changed) {
+                if (overlaps(path, tokens)) {
+                    mark(affected, k);
+                    break;
+                }
+            }
+        }
+        return affected;
+    }
+
+    private void mark(boolean[] affected, int k) {
+        for (int rule : readers[k]) affected[rule] = true;
+    }
+
+    /**
+     * Tells whether a change at a location can change a path's value: one must be a prefix of the other.
+     * Wildcards and negative indexes match any token; a filter step matches anything from there on, since
+     * a change inside an element can change whether the filter keeps it.
+     * @param path A compiled path.
+     * @param tokens A changed location.
+     * @return True if the path's value may have changed.
+     */
+    static boolean overlaps(JsonPath path, String[] tokens) {
+        int n = Math.min(path.length(), tokens.length);
+        for (int k = 0; k < n; k++) {
+            if (path.isFanOut(k)) {
+                if (path.filterAt(k) != JsonPath.Filter.ALL) return true;
+            } else if (path.isIndex(k)) {
+                int index = path.indexAt(k);
+                if (index >= 0 && !tokens[k].equals(Integer.toString(index))) return false;
+            } else if (!path.fieldAt(k).equals(tokens[k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.transformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The order a plan runs its rules in when validation is fail-fast. Rules with a required check (on the field,
+ * a source or a score) run first, cheapest first, so a rejected event stops after the fewest and cheapest rules;
+ * the other rules follow in config order. Costs are estimated from each rule's shape when the plan is compiled,
+ * or taken from the evaluation times recorded by {@link TransformMetrics}. Values are still stored by config
+ * index, so the output order never changes. Immutable and thread-safe.
+ */
+final class ExecutionOrder {
+    /** Estimated cost of checking one slot for a missing or empty value; the unit of every estimate. */
+    static final double CHECK_COST = 1;
+    /** Extra estimated cost per input that fans out over an array. */
+    static final double FAN_OUT_COST = 4;
+
+    private final int[] order;
+    /** Per rule, in config order. */
+    private final double[] costs;
+    private final boolean measured;
+
+    private ExecutionOrder(CompiledRule[] rules, double[] costs, boolean measured) {
+        this.costs = costs;
+        this.measured = measured;
+        Integer[] sorted = new Integer[rules.length];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = i;
+        // Stable: equal costs keep config order.
+        Arrays.sort(sorted, (a, b) -> {
+            boolean va = rules[a].validates();
+            boolean vb = rules[b].validates();
+            if (va != vb) return va ? -1 : 1;
+            return va ? Double.compare(costs[a], costs[b]) : 0;
+        });
+        this.order = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) order[i] = sorted[i];
+    }
+
+    /**
+     * Orders rules by their estimated cost.
+     * @param rules The plan's rules, in config order.
+     * @param paths The plan's paths, to tell which inputs fan out.
+     * @return The order.
+     */
+    static ExecutionOrder estimate(CompiledRule[] rules, PathTrie paths) {
+        double[] costs = new double[rules.length];
+        for (int i = 0; i < rules.length; i++) costs[i] = estimate(rules[i], paths);
+        return new ExecutionOrder(rules, costs, false);
+    }
+
+    /**
+     * Orders rules by their mean evaluation time as recorded in the metrics. Rules without timings are given
+     * their estimate, scaled by the mean time per estimated unit of the rules that have them.
+     * @param rules The plan's rules, in config order.
+     * @param paths The plan's paths.
+     * @param metrics The metrics holding the timings.
+     * @return The order; the estimated order if no rule has timings yet.
+     */
+    static ExecutionOrder measure(CompiledRule[] rules, PathTrie paths, TransformMetrics metrics) {
+        double[] estimates = new double[rules.length];
+        double[] costs = new double[rules.length];
+        boolean[] timed = new boolean[rules.length];
+        double nanos = 0;
+        double units = 0;
+        for (int i = 0; i < rules.length; i++) {
+            estimates[i] = estimate(rules[i], paths);
+            LatencyHistogram time = metrics.field(rules[i].outputField).time;
+            if (time.count() > 0) {
+                costs[i] = time.mean();
+                timed[i] = true;
+                nanos += costs[i];
+                units += estimates[i];
+            }
+        }
+        if (units == 0) return new ExecutionOrder(rules, estimates, false);
+        for (int i = 0; i < rules.length; i++) {
+            if (!timed[i]) costs[i] = estimates[i] * nanos / units;
+        }
+        return new ExecutionOrder(rules, costs, true);
+    }
+
+    /**
+     * Orders rules by costs worked out earlier, e.g. read back from a {@link PlanSnapshot}.
+     * @param rules The plan's rules, in config order.
+     * @param costs Each rule's cost, in config order.
+     * @param measured True if the costs are mean times from metrics.
+     * @return The order.
+     */
+    static ExecutionOrder of(CompiledRule[] rules, double[] costs, boolean measured) {
+        return new ExecutionOrder(rules, costs.clone(), measured);
+    }
+
+    /**
+     * @param rule A rule.
+     * @param paths The plan's paths.
+     * @return The rule's estimated cost: one unit per required check, plus the operation's cost by input count.
+     */
+    static double estimate(CompiledRule rule, PathTrie paths) {
+        int[] slots = rule.inputSlots();
+        double cost = 0;
+        for (int slot : slots) {
+            if (paths.pathAt(slot).fansOut()) cost += FAN_OUT_COST;
+        }
+        if (rule instanceof CompiledRule.SourceRule) return cost + CHECK_COST;
+        CompiledRule.OperationRule op = (CompiledRule.OperationRule) rule;
+        for (boolean flag : op.requiredSources) if (flag) cost += CHECK_COST;
+        for (boolean flag : op.requiredScores) if (flag) cost += CHECK_COST;
+        return cost + slots.length * perInput(op.evaluator);
+    }
+
+    /** Relative cost of an operation per input it reads. */
+    private static double perInput(Operation.Evaluator evaluator) {
+        if (evaluator instanceof BuiltinOperations.FallbackEvaluator) return 1;
+        if (evaluator instanceof BuiltinOperations.ConditionalDecisionEvaluator) return 2;
+        if (evaluator instanceof BuiltinOperations.ConcatenateEvaluator) return 4;
+        return 8;
+    }
+
+    /**
+     * The same order for a subset of the rules, keeping their costs.
+     * @param rules The kept rules, in config order.
+     * @param kept The index in this order's plan of each kept rule.
+     * @return The order.
+     */
+    ExecutionOrder retain(CompiledRule[] rules, int[] kept) {
+        double[] retained = new double[kept.length];
+        for (int i = 0; i < kept.length; i++) retained[i] = costs[kept[i]];
+        return new ExecutionOrder(rules, retained, measured);
+    }
+
+    /**
+     * @return Rule indexes in the order they run for fail-fast validation.
+     */
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * @param rule A rule index.
+     * @return The cost the order is based on: estimated units, or nanoseconds if {@link #measured()}.
+     */
+    double cost(int rule) {
+        return costs[rule];
+    }
+
+    /**
+     * @return True if costs are mean times from metrics rather than estimates.
+     */
+    boolean measured() {
+        return measured;
+    }
+
+    /**
+     * Describes the plan: the fail-fast execution order with each rule's cost, the input paths read by more
+     * than one rule, and the output order.
+     * @param rules The plan's rules, in config order.
+     * @param paths The plan's paths.
+     * @param hidden Rules left out of the output, or null.
+     * @param metrics The plan's metrics, for current timings, or null.
+     * @param backend The plan's backend.
+     * @return The description, one item per line.
+     */
+    String explain(CompiledRule[] rules, PathTrie paths, boolean[] hidden, TransformMetrics metrics,
+                   CompiledTransformer.Backend backend) {
+        StringBuilder out = new StringBuilder(256);
+        out.append("Plan: ").append(rules.length).append(" rules, ").append(paths.slotCount()).append(" paths, ")
+                .append(backend).append(" backend\n")
+                .append("Fail-fast order (by ").append(measured ? "measured" : "estimated").append(" cost):\n");
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            CompiledRule rule = rules[i];
+            out.append(String.format("  %2d. %-24s %-22s %s", k + 1, rule.outputField, rule.operation(),
+                    rule.validates() ? "checks" : "      "));
+            out.append(measured ? String.format("  cost %.0fns", costs[i]) : String.format("  cost %.0f", costs[i]));
+            if (metrics != null) {
+                LatencyHistogram time = metrics.field(rule.outputField).time;
+                if (time.count() > 0) {
+                    out.append(String.format("  (now %.0fns over %d calls)", time.mean(), time.count()));
+                }
+            }
+            if (hidden != null && hidden[i]) out.append("  [validation only]");
+            out.append('\n');
+        }
+        Map<String, List<String>> readers = new LinkedHashMap<>();
+        for (CompiledRule rule : rules) {
+            for (String path : rule.inputPaths()) {
+                List<String> fields = readers.computeIfAbsent(path, p -> new ArrayList<>());
+                if (!fields.contains(rule.outputField)) fields.add(rule.outputField);
+            }
+        }
+        out.append("Shared paths (resolved once per event):\n");
+        boolean shared = false;
+        for (Map.Entry<String, List<String>> e : readers.entrySet()) {
+            if (e.getValue().size() < 2) continue;
+            out.append("  ").append(e.getKey()).append(" <- ").append(String.join(", ", e.getValue())).append('\n');
+            shared = true;
+        }
+        if (!shared) out.append("  none\n");
+        out.append("Output order:");
+        for (int i = 0; i < rules.length; i++) {
+            if (hidden == null || !hidden[i]) out.append(' ').append(rules[i].outputField);
+        }
+        return out.append('\n').toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.util.ArrayList;
+
+/**
+ * The value of a path with a fan-out step ({@code [*]} or a filter): one entry per array element reached,
+ * in document order, with a null node where an element lacks the rest of the path, so that paths sharing
+ * the same fan-out (such as {@code d[*].decision} and {@code d[*].score}) line up entry by entry.
+ * It is an ordinary array to callers; the built-in operations and {@link TransformerUtils#isEmpty(JsonNode)}
+ * treat it as a list of separate values.
+ */
+@SuppressWarnings("unchecked") // ArrayNode.deepCopy() narrows JsonNode's generic deepCopy()
+final class FanOutNode extends ArrayNode {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param capacity The expected number of entries, usually the size of the array fanned out over.
+     */
+    FanOutNode(int capacity) {
+        super(JsonNodeFactory.instance, new ArrayList<>(capacity));
+    }
+
+    /**
+     * Appends one entry; a missing value is stored as a null node to keep positions aligned.
+     * @param value The value, or null.
+     */
+    void append(JsonNode value) {
+        add(value == null ? nullNode() : value);
+    }
+}
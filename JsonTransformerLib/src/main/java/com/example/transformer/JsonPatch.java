@@ -0,0 +1,297 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An RFC 6902 JSON Patch ({@code add}, {@code remove}, {@code replace}, {@code move}, {@code copy}, {@code test}),
+ * parsed once. {@link #apply(JsonNode)} never modifies its argument: only the objects and arrays on the path
+ * of each operation are copied (shallowly), and every other subtree is shared with the original document,
+ * so patching a large event costs about as much as the patch itself. Instances are immutable and thread-safe.
+ * Used by {@link CompiledTransformer#retransform(JsonNode, JsonNode, JsonPatch)}.
+ */
+public final class JsonPatch {
+    private final Op[] ops;
+
+    private JsonPatch(Op[] ops) {
+        this.ops = ops;
+    }
+
+    /**
+     * Parses a JSON Patch document.
+     * @param patch An array of operation objects.
+     * @return The parsed patch.
+     * @throws IllegalArgumentException if the patch is not an array of well-formed operations.
+     */
+    public static JsonPatch parse(JsonNode patch) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("JSON Patch must be an array of operations");
+        }
+        Op[] ops = new Op[patch.size()];
+        for (int i = 0; i < ops.length; i++) {
+            JsonNode op = patch.get(i);
+            String name = op.path("op").asText("");
+            if (!op.path("path").isTextual()) {
+                throw new IllegalArgumentException("JSON Patch operation " + i + " has no 'path'");
+            }
+            String[] path = pointer(op.get("path").asText());
+            String[] from = null;
+            JsonNode value = null;
+            switch (name) {
+                case "add":
+                case "replace":
+                case "test":
+                    if (!op.has("value")) throw new IllegalArgumentException("JSON Patch operation " + i + " has no 'value'");
+                    value = op.get("value");
+                    break;
+                case "move":
+                case "copy":
+                    if (!op.path("from").isTextual()) {
+                        throw new IllegalArgumentException("JSON Patch operation " + i + " has no 'from'");
+                    }
+                    from = pointer(op.get("from").asText());
+                    break;
+                case "remove":
+                    break;
+                default:
+                    throw new IllegalArgumentException("JSON Patch operation " + i + " has unknown op '" + name + "'");
+            }
+            ops[i] = new Op(name, path, from, value);
+        }
+        return new JsonPatch(ops);
+    }
+
+    /**
+     * @param pointer An RFC 6901 JSON Pointer.
+     * @return Its reference tokens, unescaped; empty for the whole document.
+     */
+    static String[] pointer(String pointer) {
+        if (pointer.isEmpty()) return new String[0];
+        if (pointer.charAt(0) != '/') throw new IllegalArgumentException("Malformed JSON Pointer '" + pointer + "'");
+        String[] tokens = pointer.substring(1).split("/", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].indexOf('~') >= 0) tokens[i] = tokens[i].replace("~1", "/").replace("~0", "~");
+        }
+        return tokens;
+    }
+
+    /**
+     * Applies the patch to a document, leaving the document unchanged.
+     * @param document The document to patch.
+     * @return The patched document, sharing every untouched subtree with the original.
+     * @throws IllegalArgumentException if an operation's path does not exist or a {@code test} fails.
+     */
+    public JsonNode apply(JsonNode document) {
+        return apply(document, null);
+    }
+
+    /**
+     * Applies the patch and reports, for each operation, the locations whose values may have changed:
+     * its path, also its {@code from} for a move, and the whole array when an element is added or removed,
+     * since the later elements shift.
+     * @param document The document to patch.
+     * @param changed Receives the changed locations as reference tokens, or null.
+     * @return The patched document.
+     */
+    JsonNode apply(JsonNode document, List<String[]> changed) {
+        Map<JsonNode, Boolean> owned = new IdentityHashMap<>(8);
+        JsonNode root = document;
+        for (int i = 0; i < ops.length; i++) {
+            Op op = ops[i];
+            switch (op.name) {
+                case "test":
+                    JsonNode actual = resolve(root, op.path, op.path.length);
+                    if (actual == null || !op.value.equals(JsonPatch::compare, actual)) {
+                        throw new IllegalArgumentException("JSON Patch test failed at operation " + i);
+                    }
+                    break;
+                case "remove":
+                    root = remove(root, op.path, owned, changed, i);
+                    break;
+                case "add":
+                    root = add(root, op.path, op.value, owned, changed, i);
+                    break;
+                case "replace":
+                    root = replace(root, op.path, op.value, owned, i);
+                    if (changed != null) changed.add(op.path);
+                    break;
+                case "move": {
+                    JsonNode value = require(root, op.from, i);
+                    root = remove(root, op.from, owned, changed, i);
+                    root = add(root, op.path, value, owned, changed, i);
+                    break;
+                }
+                default: // copy
+                    // A deep copy, so later operations on either location never reach the other, and copying
+                    // a container into itself cannot make a cycle.
+                    root = add(root, op.path, require(root, op.from, i).deepCopy(), owned, changed, i);
+            }
+        }
+        return root;
+    }
+
+    private static JsonNode require(JsonNode root, String[] path, int op) {
+        JsonNode value = resolve(root, path, path.length);
+        if (value == null) throw missing(op);
+        return value;
+    }
+
+    private static JsonNode resolve(JsonNode node, String[] path, int depth) {
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.isArray() ? node.get(index(path[i], node.size() - 1)) : node.get(path[i]);
+        }
+        return node;
+    }
+
+    private static JsonNode add(JsonNode root, String[] path, JsonNode value, Map<JsonNode, Boolean> owned,
+                                List<String[]> changed, int op) {
+        if (path.length == 0) {
+            if (changed != null) changed.add(path);
+            return value;
+        }
+        root = own(root, owned);
+        JsonNode parent = parent(root, path, owned, op);
+        String last = path[path.length - 1];
+        if (parent.isArray()) {
+            ArrayNode array = (ArrayNode) parent;
+            int index = last.equals("-") ? array.size() : index(last, array.size());
+            if (index < 0) throw missing(op);
+            array.insert(index, value);
+            if (changed != null) changed.add(Arrays.copyOf(path, path.length - 1));
+        } else if (parent.isObject()) {
+            ((ObjectNode) parent).set(last, value);
+            if (changed != null) changed.add(path);
+        } else {
+            throw missing(op);
+        }
+        return root;
+    }
+
+    private static JsonNode replace(JsonNode root, String[] path, JsonNode value, Map<JsonNode, Boolean> owned, int op) {
+        if (path.length == 0) return value;
+        root = own(root, owned);
+        JsonNode parent = parent(root, path, owned, op);
+        String last = path[path.length - 1];
+        if (parent.isArray()) {
+            int index = index(last, parent.size() - 1);
+            if (index < 0) throw missing(op);
+            ((ArrayNode) parent).set(index, value);
+        } else if (parent.isObject() && parent.has(last)) {
+            ((ObjectNode) parent).set(last, value);
+        } else {
+            throw missing(op);
+        }
+        return root;
+    }
+
+    private static JsonNode remove(JsonNode root, String[] path, Map<JsonNode, Boolean> owned,
+                                   List<String[]> changed, int op) {
+        if (path.length == 0) throw new IllegalArgumentException("JSON Patch cannot remove the whole document");
+        root = own(root, owned);
+        JsonNode parent = parent(root, path, owned, op);
+        String last = path[path.length - 1];
+        if (parent.isArray()) {
+            int index = index(last, parent.size() - 1);
+            if (index < 0) throw missing(op);
+            ((ArrayNode) parent).remove(index);
+            if (changed != null) changed.add(Arrays.copyOf(path, path.length - 1));
+        } else if (parent.isObject() && parent.has(last)) {
+            ((ObjectNode) parent).remove(last);
+            if (changed != null) changed.add(path);
+        } else {
+            throw missing(op);
+        }
+        return root;
+    }
+
+    /** Walks to the container of the path's last token, copying every container on the way. */
+    private static JsonNode parent(JsonNode root, String[] path, Map<JsonNode, Boolean> owned, int op) {
+        JsonNode node = root;
+        for (int i = 0; i < path.length - 1; i++) {
+            JsonNode child;
+            if (node.isArray()) {
+                int index = index(path[i], node.size() - 1);
+                child = index < 0 ? null : node.get(index);
+                if (child == null) throw missing(op);
+                JsonNode copy = own(child, owned);
+                if (copy != child) ((ArrayNode) node).set(index, copy);
+                node = copy;
+            } else {
+                child = node.get(path[i]);
+                if (child == null) throw missing(op);
+                JsonNode copy = own(child, owned);
+                if (copy != child) ((ObjectNode) node).set(path[i], copy);
+                node = copy;
+            }
+        }
+        return node;
+    }
+
+    /** @return A shallow copy of a container the patch has not copied yet; the node itself otherwise. */
+    private static JsonNode own(JsonNode node, Map<JsonNode, Boolean> owned) {
+        if (owned.containsKey(node) || !node.isContainerNode()) return node;
+        JsonNode copy;
+        if (node.isObject()) {
+            copy = new ObjectNode(JsonNodeFactory.instance).setAll((ObjectNode) node);
+        } else {
+            copy = new ArrayNode(JsonNodeFactory.instance, node.size()).addAll((ArrayNode) node);
+        }
+        owned.put(copy, Boolean.TRUE);
+        return copy;
+    }
+
+    /** @return The array index a token names, or -1 if it is not an index from 0 to {@code max}. */
+    private static int index(String token, int max) {
+        if (token.isEmpty() || token.length() > 9 || (token.length() > 1 && token.charAt(0) == '0')) return -1;
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') return -1;
+        }
+        int index = Integer.parseInt(token);
+        return index <= max ? index : -1;
+    }
+
+    private static IllegalArgumentException missing(int op) {
+        return new IllegalArgumentException("JSON Patch operation " + op + " refers to a path that does not exist");
+    }
+
+    /**
+     * @return The number of operations.
+     */
+    public int size() {
+        return ops.length;
+    }
+
+    private static final class Op {
+        final String name;
+        final String[] path;
+        final String[] from;
+        final JsonNode value;
+
+        Op(String name, String[] path, String[] from, JsonNode value) {
+            this.name = name;
+            this.path = path;
+            this.from = from;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Equality for the {@code test} operation, applied to each pair of leaves: numbers are equal by value
+     * (so {@code 1} equals {@code 1.0}), anything else as in {@link JsonNode#equals(Object)}.
+     */
+    private static int compare(JsonNode a, JsonNode b) {
+        if (a.isNumber() && b.isNumber()) {
+            if (!Double.isFinite(a.doubleValue()) || !Double.isFinite(b.doubleValue())) {
+                return Double.compare(a.doubleValue(), b.doubleValue());
+            }
+            return a.decimalValue().compareTo(b.decimalValue());
+        }
+        return a.equals(b) ? 0 : 1;
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A dot/bracket path (e.g., a.b[0].c) parsed once into an array of steps. Besides field names and
+ * array indexes, a step can be a negative index counting from the end ({@code [-1]} is the last element),
+ * a wildcard over every element ({@code [*]}), or a filter keeping the elements whose field equals
+ * (or differs from) a literal ({@code [?decisionSource=='IDX']}, {@code [?score!=0]}).
+ * A path with a wildcard or filter evaluates to a {@link FanOutNode} listing every value it reaches.
+ * Evaluating a path without one does not allocate. Instances are immutable and thread-safe.
+ */
+public final class JsonPath {
+    /** Maximum number of distinct paths kept by {@link #of(String)}. */
+    static final int CACHE_LIMIT = 4096;
+    private static final ConcurrentHashMap<String, Cached> CACHE = new ConcurrentHashMap<>();
+    /** Cached paths in insertion order, for second-chance eviction. */
+    private static final ConcurrentLinkedQueue<String> CLOCK = new ConcurrentLinkedQueue<>();
+    private static final ReentrantLock EVICTING = new ReentrantLock();
+
+    private final String expression;
+    /** Field name per step, or null for a bracket step. */
+    private final String[] fields;
+    /** Array index per step; only meaningful for index steps. */
+    private final int[] indexes;
+    /** Per step: null for field and index steps, {@link Filter#ALL} for {@code [*]}, or the filter. */
+    private final Filter[] filters;
+    /** Index of the first and last fan-out step, or -1 if there is none. */
+    private final int firstFanOut;
+    private final int lastFanOut;
+
+    private JsonPath(String expression, String[] fields, int[] indexes, Filter[] filters) {
+        this.expression = expression;
+        this.fields = fields;
+        this.indexes = indexes;
+        this.filters = filters;
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i] != null) {
+                if (first < 0) first = i;
+                last = i;
+            }
+        }
+        this.firstFanOut = first;
+        this.lastFanOut = last;
+    }
+
+    /**
+     * Parses a dot/bracket path into a compiled path.
+     * @param path The dot/bracket path string.
+     * @return The compiled path.
+     * @throws IllegalArgumentException if the path is malformed.
+     */
+    public static JsonPath compile(String path) {
+        return compile(path, false);
+    }
+
+    /**
+     * @param lenient If true, empty segments are accepted as the string helpers in {@link TransformerUtils}
+     *        always have: trailing ones are ignored and any other one is a step to the field named {@code ""}.
+     */
+    private static JsonPath compile(String path, boolean lenient) {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null");
+        }
+        List<String> fields = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<Filter> filters = new ArrayList<>();
+        int len = path.length();
+        if (lenient) {
+            while (len > 0 && path.charAt(len - 1) == '.') len--;
+        }
+        int pos = 0;
+        while (true) {
+            int end = pos;
+            while (end < len && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+            if (end == len || path.charAt(end) == '.' || end > pos) {
+                if (end == pos && !lenient) {
+                    throw new IllegalArgumentException("Path '" + path + "' has an empty segment");
+                }
+                fields.add(path.substring(pos, end));
+                indexes.add(-1);
+                filters.add(null);
+            }
+            pos = end;
+            while (pos < len && path.charAt(pos) == '[') {
+                int close = closingBracket(path, pos);
+                String step = path.substring(pos + 1, close).trim();
+                fields.add(null);
+                if (step.equals("*")) {
+                    indexes.add(-1);
+                    filters.add(Filter.ALL);
+                } else if (step.startsWith("?")) {
+                    indexes.add(-1);
+                    filters.add(Filter.parse(path, step));
+                } else {
+                    try {
+                        indexes.add(Integer.parseInt(step));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("Malformed index in path '" + path + "'");
+                    }
+                    filters.add(null);
+                }
+                pos = close + 1;
+            }
+            if (pos == len) break;
+            if (path.charAt(pos) != '.') {
+                throw new IllegalArgumentException("Malformed path '" + path + "'");
+            }
+            pos++;
+        }
+        int[] idx = new int[indexes.size()];
+        for (int i = 0; i < idx.length; i++) idx[i] = indexes.get(i);
+        return new JsonPath(path, fields.toArray(new String[0]), idx, filters.toArray(new Filter[0]));
+    }
+
+    /** @return The position of the ']' closing the bracket at {@code open}, skipping quoted text. */
+    private static int closingBracket(String path, int open) {
+        char quote = 0;
+        for (int i = open + 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Malformed path '" + path + "'");
+    }
+
+    /**
+     * Returns the compiled form of a path, reusing a previously compiled instance when possible.
+     * The cache holds up to {@value #CACHE_LIMIT} paths and evicts in second-chance (CLOCK) order, an
+     * approximation of least recently used, so a process whose configs change over time keeps caching the
+     * paths it currently uses. Unlike {@link #compile(String)}, empty segments are accepted for the string
+     * helpers in {@link TransformerUtils}: trailing ones, as in {@code a.}, are ignored, and others, as in
+     * {@code a..b}, step to the field named {@code ""}, which is normally missing.
+     * @param path The dot/bracket path string.
+     * @return The compiled path.
+     * @throws IllegalArgumentException if the path is otherwise malformed, e.g. has an unclosed bracket.
+     */
+    public static JsonPath of(String path) {
+        Cached cached = CACHE.get(path);
+        if (cached != null) {
+            if (!cached.referenced) cached.referenced = true;
+            return cached.path;
+        }
+        JsonPath compiled = compile(path, true);
+        cached = CACHE.putIfAbsent(path, new Cached(compiled));
+        if (cached != null) return cached.path;
+        CLOCK.add(path);
+        if (CACHE.size() > CACHE_LIMIT) evict();
+        return compiled;
+    }
+
+    /**
+     * Removes paths until the cache is back within its limit, run by one thread at a time: paths used since
+     * the hand last passed them are skipped once.
+     */
+    private static void evict() {
+        if (!EVICTING.tryLock()) return;
+        try {
+            int passes = 0;
+            while (CACHE.size() > CACHE_LIMIT && passes++ < 2 * CACHE_LIMIT + 16) {
+                String key = CLOCK.poll();
+                if (key == null) break;
+                Cached cached = CACHE.get(key);
+                if (cached == null) continue;
+                if (cached.referenced) {
+                    cached.referenced = false;
+                    CLOCK.add(key);
+                } else {
+                    CACHE.remove(key, cached);
+                }
+            }
+        } finally {
+            EVICTING.unlock();
+        }
+    }
+
+    /** @return The number of paths held by the {@link #of(String)} cache. */
+    static int cacheSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * Gets the value at this path.
+     * @param node The root JsonNode.
+     * @return The value at the path, or null if not found. For a path with a wildcard or filter, an array
+     *         with one entry per element reached (null where an element lacks the rest of the path), or null
+     *         if the first fanned-out value is missing or not an array.
+     */
+    public JsonNode evaluate(JsonNode node) {
+        if (firstFanOut < 0) return walk(node, 0, fields.length);
+        JsonNode array = walk(node, 0, firstFanOut);
+        if (array == null || !array.isArray()) return null;
+        FanOutNode out = new FanOutNode(array.size());
+        fanOut(array, firstFanOut, out);
+        return out;
+    }
+
+    private JsonNode walk(JsonNode current, int from, int to) {
+        for (int i = from; i < to && current != null; i++) {
+            String field = fields[i];
+            if (field != null) {
+                current = current.get(field);
+            } else {
+                current = element(current, indexes[i]);
+            }
+        }
+        return current;
+    }
+
+    private void fanOut(JsonNode array, int step, FanOutNode out) {
+        Filter filter = filters[step];
+        for (int k = 0, n = array.size(); k < n; k++) {
+            JsonNode element = array.get(k);
+            if (filter.matches(element)) collect(element, step + 1, out);
+        }
+    }
+
+    private void collect(JsonNode current, int from, FanOutNode out) {
+        for (int i = from; i < fields.length; i++) {
+            if (current == null) {
+                // Only the last level of fan-out keeps a placeholder for a missing value.
+                if (i > lastFanOut) out.append(null);
+                return;
+            }
+            if (filters[i] != null) {
+                if (current.isArray()) fanOut(current, i, out);
+                return;
+            }
+            current = fields[i] != null ? current.get(fields[i]) : element(current, indexes[i]);
+        }
+        out.append(current);
+    }
+
+    /**
+     * @param array A node.
+     * @param index An index; negative counts from the end.
+     * @return The element, or null if the node is not an array or the index is out of range.
+     */
+    static JsonNode element(JsonNode array, int index) {
+        if (!array.isArray()) return null;
+        int size = array.size();
+        int i = index < 0 ? index + size : index;
+        return i >= 0 && i < size ? array.get(i) : null;
+    }
+
+    /** @return The number of steps in this path. */
+    int length() {
+        return fields.length;
+    }
+
+    /** @return True if the step at {@code i} is an array index. */
+    boolean isIndex(int i) {
+        return fields[i] == null && filters[i] == null;
+    }
+
+    /** @return True if the step at {@code i} is a wildcard or filter. */
+    boolean isFanOut(int i) {
+        return filters[i] != null;
+    }
+
+    /** @return True if the path has a wildcard or filter step. */
+    boolean fansOut() {
+        return firstFanOut >= 0;
+    }
+
+    /** @return The field name of the step at {@code i}, or null for a bracket step. */
+    String fieldAt(int i) {
+        return fields[i];
+    }
+
+    /** @return The array index of the step at {@code i}. */
+    int indexAt(int i) {
+        return indexes[i];
+    }
+
+    /** @return The filter of the fan-out step at {@code i}; {@link Filter#ALL} for {@code [*]}. */
+    Filter filterAt(int i) {
+        return filters[i];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof JsonPath && ((JsonPath) o).expression.equals(expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return expression.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * Which elements a fan-out step keeps: all of them, or those whose field compares equal (or not equal)
+     * to a string, number or boolean literal.
+     */
+    static final class Filter {
+        /** The {@code [*]} step. */
+        static final Filter ALL = new Filter("*", null, true, null);
+
+        private final String text;
+        private final JsonPath field;
+        private final boolean equal;
+        /** A String, BigDecimal or Boolean. */
+        private final Object literal;
+
+        private Filter(String text, JsonPath field, boolean equal, Object literal) {
+            this.text = text;
+            this.field = field;
+            this.equal = equal;
+            this.literal = literal;
+        }
+
+        /**
+         * Parses {@code ?field=='value'}, also accepting the {@code ?(@.field=='value')} form.
+         * @param path The whole path, for error messages.
+         * @param step The bracket content, starting with '?'.
+         * @return The filter.
+         */
+        static Filter parse(String path, String step) {
+            String body = step.substring(1).trim();
+            if (body.startsWith("(") && body.endsWith(")")) body = body.substring(1, body.length() - 1).trim();
+            if (body.startsWith("@.")) body = body.substring(2);
+            int op = operator(body);
+            if (op <= 0) throw new IllegalArgumentException("Malformed filter in path '" + path + "'");
+            JsonPath field = compile(body.substring(0, op).trim());
+            if (field.fansOut()) throw new IllegalArgumentException("Nested fan-out in filter of path '" + path + "'");
+            boolean equal = body.charAt(op) == '=';
+            String value = body.substring(op + 2).trim();
+            Object literal;
+            if (value.length() >= 2 && (value.charAt(0) == '\'' || value.charAt(0) == '"')
+                    && value.charAt(value.length() - 1) == value.charAt(0)) {
+                literal = value.substring(1, value.length() - 1);
+            } else if (value.equals("true") || value.equals("false")) {
+                literal = Boolean.valueOf(value);
+            } else {
+                try {
+                    literal = new BigDecimal(value);
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Malformed filter value in path '" + path + "'");
+                }
+            }
+            return new Filter(step, field, equal, literal);
+        }
+
+        /** @return The position of the first unquoted "==" or "!=", or -1. */
+        private static int operator(String body) {
+            char quote = 0;
+            for (int i = 0; i + 1 < body.length(); i++) {
+                char c = body.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if ((c == '=' || c == '!') && body.charAt(i + 1) == '=') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param element An array element.
+         * @return True if the step keeps the element.
+         */
+        boolean matches(JsonNode element) {
+            if (field == null) return true;
+            JsonNode value = element == null ? null : field.evaluate(element);
+            return equal == equalsLiteral(value);
+        }
+
+        private boolean equalsLiteral(JsonNode value) {
+            if (value == null) return false;
+            if (literal instanceof String) return value.isTextual() && value.textValue().equals(literal);
+            if (literal instanceof Boolean) return value.isBoolean() && value.booleanValue() == (Boolean) literal;
+            return value.isNumber() && value.decimalValue().compareTo((BigDecimal) literal) == 0;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /** A path held by the {@link #of(String)} cache. */
+    private static final class Cached {
+        final JsonPath path;
+        /** Set on hits; read and cleared by eviction. */
+        volatile boolean referenced;
+
+        Cached(JsonPath path) {
+            this.path = path;
+        }
+    }
+}
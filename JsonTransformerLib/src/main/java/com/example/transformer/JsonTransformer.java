@@ -2,12 +2,10 @@ package com.example.transformer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
-import java.util.Iterator;
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Map;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Main class for configuration-driven JSON transformation.
@@ -16,107 +14,111 @@ import java.util.Map;
  * Throws a RuntimeException if required fields, sources, or scores are missing or empty.
  */
 public class JsonTransformer {
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final TransformMetrics metrics;
+    /** The plan for the config last passed to {@link #transform(JsonNode, JsonNode)}. */
+    private volatile Memo memo;
+
+    /**
+     * Creates a transformer without instrumentation.
+     */
+    public JsonTransformer() {
+        this(null);
+    }
+
+    /**
+     * Creates a transformer that records per-field and per-operation metrics for every transform.
+     * @param metrics The metrics to record into, or null to disable instrumentation.
+     */
+    public JsonTransformer(TransformMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     /**
      * Transforms the input JSON according to the provided config.
+     * The plan compiled for the last config object is kept and reused while that same object is passed again.
+     * Configs are matched by identity, so a config edited in place is not recompiled: pass a new config object,
+     * or call {@link #compile(JsonNode)} again. Switching between configs compiles on every switch, so callers
+     * with several configs should use {@link #compile(JsonNode)} once per config and reuse the returned plans.
      * @param input The input event as a JsonNode.
      * @param config The transformation config as a JsonNode.
      * @return The transformed output as a JsonNode.
      * @throws RuntimeException if any required field, source, or score is missing or empty.
      */
     public JsonNode transform(JsonNode input, JsonNode config) {
-        ObjectNode output = mapper.createObjectNode();
-        JsonNode outputFields = config.get("outputFields");
-        Iterator<Map.Entry<String, JsonNode>> fields = outputFields.fields();
-        boolean strictSourcesRequired = config.has("strictSourcesRequired") && config.get("strictSourcesRequired").asBoolean(false);
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> entry = fields.next();
-            String outField = entry.getKey();
-            JsonNode rule = entry.getValue();
-            boolean required = rule.has("required") && rule.get("required").asBoolean(false);
-            JsonNode value = null;
-            boolean hasValue = false;
-            if (rule.has("source")) {
-                value = TransformerUtils.getValueByPath(input, rule.get("source").asText());
-                hasValue = value != null && !TransformerUtils.isEmpty(value);
-                if (hasValue) {
-                    output.set(outField, value);
-                }
-                if (required && !hasValue) {
-                    throw new RuntimeException(outField + " defined in the config mapping is null or empty");
-                }
-            } else if (rule.has("operation")) {
-                String op = rule.get("operation").asText();
-                List<String> sources = new ArrayList<>();
-                for (JsonNode s : rule.get("sources")) sources.add(s.asText());
-                List<Boolean> requiredSources = new ArrayList<>();
-                if (rule.has("requiredSources")) {
-                    for (JsonNode rs : rule.get("requiredSources")) requiredSources.add(rs.asBoolean(false));
-                }
-                // If strictSourcesRequired is true, treat all sources as required for required fields
-                if (strictSourcesRequired && required) {
-                    requiredSources.clear();
-                    for (int i = 0; i < sources.size(); i++) requiredSources.add(true);
-                }
-                // Check each required source
-                for (int i = 0; i < sources.size(); i++) {
-                    boolean srcRequired = (i < requiredSources.size()) ? requiredSources.get(i) : false;
-                    if (srcRequired) {
-                        JsonNode srcVal = TransformerUtils.getValueByPath(input, sources.get(i));
-                        if (srcVal == null || TransformerUtils.isEmpty(srcVal)) {
-                            throw new RuntimeException(outField + ": required source '" + sources.get(i) + "' defined in the config mapping is null or empty");
-                        }
-                    }
-                }
-                List<String> scorePaths = new ArrayList<>();
-                if (rule.has("scores")) {
-                    for (JsonNode s : rule.get("scores")) scorePaths.add(s.asText());
-                }
-                List<Boolean> requiredScores = new ArrayList<>();
-                if (rule.has("requiredScores")) {
-                    for (JsonNode rs : rule.get("requiredScores")) requiredScores.add(rs.asBoolean(false));
-                }
-                // Check each required score
-                for (int i = 0; i < scorePaths.size(); i++) {
-                    boolean scoreRequired = (i < requiredScores.size()) ? requiredScores.get(i) : false;
-                    if (scoreRequired) {
-                        JsonNode scoreVal = TransformerUtils.getValueByPath(input, scorePaths.get(i));
-                        if (scoreVal == null || TransformerUtils.isEmpty(scoreVal)) {
-                            throw new RuntimeException(outField + ": required score '" + scorePaths.get(i) + "' defined in the config mapping is null or empty");
-                        }
-                    }
-                }
-                switch (op) {
-                    case "concatenate": {
-                        String sep = rule.has("separator") ? rule.get("separator").asText() : ", ";
-                        String concat = OperationsUtils.concatenate(input, sources, sep);
-                        hasValue = concat != null && !concat.trim().isEmpty();
-                        if (hasValue) output.put(outField, concat);
-                        value = hasValue ? output.get(outField) : null;
-                        break;
-                    }
-                    case "conditional_decision": {
-                        String result = OperationsUtils.conditionalDecision(input, sources, scorePaths);
-                        hasValue = result != null && !result.trim().isEmpty();
-                        if (hasValue) output.put(outField, result);
-                        value = hasValue ? output.get(outField) : null;
-                        break;
-                    }
-                    case "fallback": {
-                        JsonNode val = OperationsUtils.fallback(input, sources);
-                        hasValue = val != null && !TransformerUtils.isEmpty(val);
-                        if (hasValue) output.set(outField, val);
-                        value = hasValue ? val : null;
-                        break;
-                    }
-                }
-                if (required && (!hasValue || (value != null && value.isArray() && TransformerUtils.isArrayAllEmpty(value)))) {
-                    throw new RuntimeException(outField + " defined in the config mapping is null or empty");
-                }
-            }
+        Memo m = memo;
+        if (m == null || m.config != config) {
+            m = new Memo(config, compile(config).withMetrics(metrics));
+            memo = m;
         }
-        return output;
+        return m.plan.transform(input);
+    }
+
+    /**
+     * Compiles a config into an immutable, thread-safe plan that can be applied to many events.
+     * @param config The transformation config as a JsonNode.
+     * @return The compiled plan.
+     * @throws IllegalArgumentException if the config is malformed or uses an unknown operation.
+     */
+    public static CompiledTransformer compile(JsonNode config) {
+        return compile(config, OperationRegistry.defaults());
+    }
+
+    /**
+     * Compiles a config against a specific set of operations.
+     * @param config The transformation config as a JsonNode.
+     * @param operations The operations rules may use.
+     * @return The compiled plan.
+     * @throws IllegalArgumentException if the config is malformed or uses an unknown operation.
+     */
+    public static CompiledTransformer compile(JsonNode config, OperationRegistry operations) {
+        return CompiledTransformer.compile(config, operations);
+    }
+
+    /**
+     * Loads a plan from a snapshot written by {@link CompiledTransformer#writeSnapshot(java.io.OutputStream)},
+     * without parsing the JSON config. Faster at startup than {@link #compile(JsonNode)}.
+     * @param in The stream holding the snapshot; it is not closed.
+     * @return The plan.
+     * @throws IOException if reading fails or the stream does not hold a plan snapshot.
+     */
+    public static CompiledTransformer loadSnapshot(InputStream in) throws IOException {
+        return loadSnapshot(in, OperationRegistry.defaults());
+    }
+
+    /**
+     * Loads a plan from a snapshot, binding its rules to a specific set of operations.
+     * @param in The stream holding the snapshot; it is not closed.
+     * @param operations The operations rules may use; must include every operation the snapshot's rules use.
+     * @return The plan.
+     * @throws IOException if reading fails or the stream does not hold a plan snapshot.
+     * @throws IllegalArgumentException if a rule uses an operation missing from {@code operations}.
+     */
+    public static CompiledTransformer loadSnapshot(InputStream in, OperationRegistry operations) throws IOException {
+        return CompiledTransformer.fromSnapshot(in, operations);
+    }
+
+    /**
+     * Transforms a raw JSON event in streaming mode, without parsing the whole event into a tree.
+     * @param input The input event as JSON bytes.
+     * @param plan The compiled plan.
+     * @return The transformed output as a JsonNode.
+     * @throws IOException if the input is not valid JSON.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(byte[] input, CompiledTransformer plan) throws IOException {
+        return plan.transform(input);
+    }
+
+    /**
+     * Transforms a raw JSON event in streaming mode, without parsing the whole event into a tree.
+     * @param input The stream holding a single event; it is not closed.
+     * @param plan The compiled plan.
+     * @return The transformed output as a JsonNode.
+     * @throws IOException if reading fails or the input is not valid JSON.
+     * @throws RuntimeException if any required field, source, or score is missing or empty.
+     */
+    public JsonNode transform(InputStream input, CompiledTransformer plan) throws IOException {
+        return plan.transform(input);
     }
 
     /**
@@ -127,10 +129,22 @@ public class JsonTransformer {
      */
     public static void main(String[] args) throws Exception {
         ObjectMapper mapper = new ObjectMapper();
-        JsonNode input = mapper.readTree(new File("input_event.json"));
         JsonNode config = mapper.readTree(new File("config/sample_config.json"));
-        JsonTransformer transformer = new JsonTransformer();
-        JsonNode output = transformer.transform(input, config);
+        CompiledTransformer plan = compile(config);
+        JsonNode output;
+        try (InputStream input = new FileInputStream("input_event.json")) {
+            output = plan.transform(input);
+        }
         System.out.println("Transformed output:\n" + mapper.writerWithDefaultPrettyPrinter().writeValueAsString(output));
     }
-} 
\ No newline at end of file
+
+    private static final class Memo {
+        final JsonNode config;
+        final CompiledTransformer plan;
+
+        Memo(JsonNode config, CompiledTransformer plan) {
+            this.config = config;
+            this.plan = plan;
+        }
+    }
+}
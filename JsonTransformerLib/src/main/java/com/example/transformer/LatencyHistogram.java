@@ -0,0 +1,127 @@
+package com.example.transformer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket, thread-safe latency histogram. Values are grouped into log-linear buckets
+ * (16 sub-buckets per power of two), so percentiles are accurate to about 6% over the full
+ * range of a long with a constant ~8 KB footprint, no matter how many values are recorded.
+ * Like {@link LongAdder}, bucket counts start in one array and are striped over more arrays,
+ * up to the number of processors, once threads collide on it; each thread records into the
+ * stripe its id hashes to, and reads sum the stripes.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+    private static final int MAX_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    /** A power of two in length; replaced by a longer copy when recording threads collide. */
+    private volatile AtomicLongArray[] stripes = {new AtomicLongArray(BUCKETS)};
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a value.
+     * @param value The value, e.g. a latency in nanoseconds; negative values are recorded as 0.
+     */
+    public void record(long value) {
+        int bucket = bucketOf(Math.max(0, value));
+        AtomicLongArray[] current = stripes;
+        AtomicLongArray counts = current[stripe(current.length)];
+        long count = counts.get(bucket);
+        if (!counts.compareAndSet(bucket, count, count + 1)) {
+            counts.incrementAndGet(bucket);
+            grow(current);
+        }
+        total.increment();
+        sum.add(Math.max(0, value));
+    }
+
+    /**
+     * @return The number of recorded values.
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * @return The mean of the recorded values, or 0 if none were recorded.
+     */
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Estimates a percentile from the bucket counts.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket holding that percentile, or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) snapshot[i] += counts.get(i);
+        }
+        for (long count : snapshot) n += count;
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+    }
+
+    /**
+     * @return The number of bucket arrays in use.
+     */
+    int stripes() {
+        return stripes.length;
+    }
+
+    private static int stripe(int length) {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (length - 1);
+    }
+
+    /** Doubles the stripes after a collision, unless another thread already has or the limit is reached. */
+    private void grow(AtomicLongArray[] current) {
+        if (current.length >= MAX_STRIPES) return;
+        synchronized (this) {
+            if (stripes != current) return;
+            AtomicLongArray[] grown = Arrays.copyOf(current, current.length * 2);
+            for (int i = current.length; i < grown.length; i++) grown[i] = new AtomicLongArray(BUCKETS);
+            stripes = grown;
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int shift = bucket / SUB_COUNT - 1;
+        long lower = (long) (SUB_COUNT + bucket % SUB_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
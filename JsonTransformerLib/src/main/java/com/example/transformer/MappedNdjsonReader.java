@@ -0,0 +1,162 @@
+package com.example.transformer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an NDJSON file through memory-mapped windows ({@link FileChannel#map}), finding record
+ * boundaries by scanning bytes. Each record is returned as a slice of the mapping, so no bytes are
+ * copied and no String is decoded per line. A file can be split into line-aligned byte ranges with
+ * {@link #split(Path, int)} so that several threads each own a range.
+ * Not thread-safe; use one reader per thread.
+ */
+public final class MappedNdjsonReader implements RecordSource {
+    /** Default size of a mapped window; records longer than a window get a larger one. */
+    static final int DEFAULT_WINDOW = 64 << 20;
+
+    private final FileChannel channel;
+    private final long end;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long lineNumber;
+
+    /**
+     * Opens a reader over the whole file.
+     * @param file The NDJSON file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public MappedNdjsonReader(Path file) throws IOException {
+        this(file, 0, -1, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Opens a reader over a byte range of a file. The range must start at the beginning of a line
+     * and end just after a newline (or at end of file), as the ranges from {@link #split(Path, int)} do.
+     * @param file The NDJSON file.
+     * @param start Offset of the first byte of the range.
+     * @param end Offset just past the range, or -1 for end of file.
+     * @param windowSize Size of each mapped window in bytes.
+     * @throws IOException if the file cannot be opened.
+     */
+    public MappedNdjsonReader(Path file, long start, long end, int windowSize) throws IOException {
+        if (windowSize < 1) throw new IllegalArgumentException("windowSize must be positive");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        this.end = end < 0 ? size : Math.min(end, size);
+        this.windowSize = windowSize;
+        this.position = start;
+    }
+
+    /**
+     * Splits a file into line-aligned byte ranges of roughly equal size and opens a reader per range.
+     * @param file The NDJSON file.
+     * @param parts The number of ranges wanted; fewer are returned for small files.
+     * @return One reader per non-empty range, in file order.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<MappedNdjsonReader> split(Path file, int parts) throws IOException {
+        if (parts < 1) throw new IllegalArgumentException("parts must be at least 1");
+        List<Long> bounds = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            bounds.add(0L);
+            ByteBuffer probe = ByteBuffer.allocate(8192);
+            for (int i = 1; i < parts; i++) {
+                long from = Math.max(bounds.get(bounds.size() - 1), size * i / parts);
+                long bound = nextLineStart(channel, from, size, probe);
+                if (bound > bounds.get(bounds.size() - 1) && bound < size) bounds.add(bound);
+            }
+            bounds.add(size);
+        }
+        List<MappedNdjsonReader> readers = new ArrayList<>(bounds.size() - 1);
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            readers.add(new MappedNdjsonReader(file, bounds.get(i), bounds.get(i + 1), DEFAULT_WINDOW));
+        }
+        return readers;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer probe) throws IOException {
+        // A boundary at offset 0 or right after a newline is already aligned.
+        if (from == 0) return 0;
+        long pos = from - 1;
+        while (pos < size) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    @Override
+    public ByteBuffer nextRecord() throws IOException {
+        while (position < end) {
+            long newline = findNewline();
+            long recordEnd = newline < 0 ? end : newline;
+            int from = (int) (position - windowStart);
+            int to = (int) (recordEnd - windowStart);
+            position = newline < 0 ? end : newline + 1;
+            lineNumber++;
+            while (from < to && isBlank(window.get(from))) from++;
+            while (to > from && isBlank(window.get(to - 1))) to--;
+            if (from < to) {
+                return window.slice(from, to - from);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the newline ending the record at {@link #position}, remapping the window as needed.
+     * @return The newline's file offset, or -1 if the record runs to the end of the range.
+     */
+    private long findNewline() throws IOException {
+        long scanned = position;
+        int size = windowSize;
+        while (true) {
+            if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+                map(position, size);
+            }
+            int limit = window.limit();
+            for (int i = (int) (scanned - windowStart); i < limit; i++) {
+                if (window.get(i) == '\n') return windowStart + i;
+            }
+            scanned = windowStart + limit;
+            if (scanned >= end) return -1;
+            // The record does not fit in the rest of this window: remap from its start, larger if needed.
+            if (windowStart == position) size = (int) Math.min(Integer.MAX_VALUE, (long) size * 2);
+            map(position, size);
+        }
+    }
+
+    private void map(long from, int size) throws IOException {
+        long length = Math.min(size, end - from);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        windowStart = from;
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.transformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory, append-only log of keyed records, standing in for a Kafka topic in tests and local runs.
+ * Offsets are positions in the log. A topic remembers one committed offset, like a single consumer group,
+ * and each {@link #source()} resumes after it, so a restarted pipeline continues where the last one
+ * committed. Thread-safe.
+ */
+public final class MemoryTopic {
+    private final List<Pipeline.Record> log = new ArrayList<>();
+    private long committed = -1;
+    private boolean closed;
+
+    /**
+     * Appends a record.
+     * @param key The partition key, or null.
+     * @param value The record's bytes.
+     * @return The record's offset.
+     * @throws IllegalStateException if the topic has been closed.
+     */
+    public synchronized long send(String key, byte[] value) {
+        if (closed) throw new IllegalStateException("topic is closed");
+        long offset = log.size();
+        log.add(new Pipeline.Record(key, value, offset));
+        notifyAll();
+        return offset;
+    }
+
+    /**
+     * Marks the end of the stream: sources report end of stream once they have read every record.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * @return A copy of every record in the log, in offset order.
+     */
+    public synchronized List<Pipeline.Record> records() {
+        return new ArrayList<>(log);
+    }
+
+    /**
+     * @return The number of records in the log.
+     */
+    public synchronized long size() {
+        return log.size();
+    }
+
+    /**
+     * @return The last committed offset, or -1 if nothing has been committed.
+     */
+    public synchronized long committed() {
+        return committed;
+    }
+
+    /**
+     * @return A consumer reading from just after the committed offset.
+     */
+    public PipelineSource source() {
+        return new Source(committed() + 1);
+    }
+
+    /**
+     * @return A sink appending every record it is given to this topic, keeping keys but assigning new offsets.
+     */
+    public PipelineSink sink() {
+        return new PipelineSink() {
+            @Override
+            public void write(List<Pipeline.Record> batch) {
+                synchronized (MemoryTopic.this) {
+                    for (Pipeline.Record record : batch) send(record.key(), record.value());
+                }
+            }
+
+            @Override
+            public void close() {
+                // The topic outlives its sinks.
+            }
+        };
+    }
+
+    private synchronized Pipeline.Record poll(long position, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (position >= log.size() && !closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return null;
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return position < log.size() ? log.get((int) position) : null;
+    }
+
+    private synchronized void commit(long offset) {
+        if (offset > committed) committed = offset;
+    }
+
+    private final class Source implements PipelineSource {
+        private long position;
+
+        Source(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public Pipeline.Record poll(long timeout, TimeUnit unit) throws InterruptedException {
+            Pipeline.Record record = MemoryTopic.this.poll(position, unit.toNanos(timeout));
+            if (record != null) position++;
+            return record;
+        }
+
+        @Override
+        public boolean isEndOfStream() {
+            synchronized (MemoryTopic.this) {
+                return closed && position >= log.size();
+            }
+        }
+
+        @Override
+        public void commit(long offset) {
+            MemoryTopic.this.commit(offset);
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release; the topic keeps the committed offset.
+        }
+    }
+}
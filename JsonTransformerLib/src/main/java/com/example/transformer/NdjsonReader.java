@@ -0,0 +1,106 @@
+package com.example.transformer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads newline-delimited JSON as raw byte records, without decoding each line into a String.
+ * Blank lines are skipped but still counted, so {@link #lineNumber()} matches the input file.
+ * Not thread-safe.
+ */
+public final class NdjsonReader implements RecordSource {
+    private final InputStream in;
+    private byte[] buffer = new byte[64 * 1024];
+    private int start;
+    private int end;
+    private boolean eof;
+    private long lineNumber;
+
+    /**
+     * @param in The stream to read; closed by {@link #close()}.
+     */
+    public NdjsonReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next non-blank record.
+     * @return The record's bytes without the line terminator, or null at end of input.
+     * @throws IOException if reading fails.
+     */
+    public byte[] next() throws IOException {
+        while (true) {
+            int scanFrom = start;
+            int newline = -1;
+            while (newline < 0) {
+                for (int i = scanFrom; i < end; i++) {
+                    if (buffer[i] == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0 || eof) break;
+                scanFrom = end - start;
+                fill();
+            }
+            if (newline < 0 && start == end) return null;
+            int lineEnd = newline < 0 ? end : newline;
+            byte[] record = trim(buffer, start, lineEnd);
+            start = newline < 0 ? end : newline + 1;
+            lineNumber++;
+            if (record != null) return record;
+        }
+    }
+
+    @Override
+    public ByteBuffer nextRecord() throws IOException {
+        byte[] record = next();
+        return record == null ? null : ByteBuffer.wrap(record);
+    }
+
+    /**
+     * @return The 1-based line number of the record last returned by {@link #next()}.
+     */
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int n = in.read(buffer, end, buffer.length - end);
+        if (n < 0) {
+            eof = true;
+        } else {
+            end += n;
+        }
+    }
+
+    /**
+     * Strips a trailing '\r' and surrounding blanks.
+     * @return A copy of the trimmed range, or null if it is blank.
+     */
+    static byte[] trim(byte[] bytes, int from, int to) {
+        while (from < to && isBlank(bytes[from])) from++;
+        while (to > from && isBlank(bytes[to - 1])) to--;
+        return from == to ? null : Arrays.copyOfRange(bytes, from, to);
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
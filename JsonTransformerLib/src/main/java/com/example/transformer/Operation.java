@@ -0,0 +1,44 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A named operation that config rules can use through {@code "operation": "<name>"}.
+ * <p>
+ * Operations are bound once per rule when a config is compiled: {@link #bind(OperationBinding)} validates
+ * the rule, reads its arguments and returns an immutable {@link Evaluator}, which is then called for
+ * every event. Besides the rule's {@code sources} and {@code scores}, an operation may declare further
+ * input paths with {@link OperationBinding#path(String)}; they are resolved together with every other
+ * path of the config in the same single walk of the event.
+ * <p>
+ * Third-party operations are found with {@link java.util.ServiceLoader}: list the implementation class in
+ * {@code META-INF/services/com.example.transformer.Operation}. Implementations must be stateless and
+ * have a public no-argument constructor.
+ */
+public interface Operation {
+    /**
+     * @return The name used in the config's {@code operation} attribute.
+     */
+    String name();
+
+    /**
+     * Validates a rule and binds its arguments.
+     * @param binding The rule being compiled, with its source and score paths already assigned slots.
+     * @return The evaluator applied to every event; must be immutable and thread-safe.
+     * @throws IllegalArgumentException if the rule is invalid for this operation.
+     */
+    Evaluator bind(OperationBinding binding);
+
+    /**
+     * An operation bound to one rule.
+     */
+    @FunctionalInterface
+    interface Evaluator {
+        /**
+         * Computes the rule's value once its required sources and scores have been checked.
+         * @param slots The per-event slot array; read the slots returned by {@link OperationBinding}.
+         * @return The output value, or null if it is empty.
+         */
+        JsonNode apply(JsonNode[] slots);
+    }
+}
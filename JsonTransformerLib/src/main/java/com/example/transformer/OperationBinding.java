@@ -0,0 +1,117 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A rule being compiled, as seen by {@link Operation#bind(OperationBinding)}: its output field, the raw rule
+ * from the config for operation-specific arguments, and the slots assigned to its {@code sources} and
+ * {@code scores}. Only valid during the {@code bind} call.
+ */
+public final class OperationBinding {
+    private final String outputField;
+    private final JsonNode rule;
+    private final List<String> sourcePaths;
+    private final int[] sources;
+    private final List<String> scorePaths;
+    private final int[] scores;
+    private final PathTrie.Builder paths;
+    private final List<String> extraPaths = new ArrayList<>();
+    private final List<Integer> extraSlots = new ArrayList<>();
+    private boolean closed;
+
+    OperationBinding(String outputField, JsonNode rule, List<String> sourcePaths, int[] sources,
+                     List<String> scorePaths, int[] scores, PathTrie.Builder paths) {
+        this.outputField = outputField;
+        this.rule = rule;
+        this.sourcePaths = sourcePaths;
+        this.sources = sources;
+        this.scorePaths = scorePaths;
+        this.scores = scores;
+        this.paths = paths;
+    }
+
+    /** @return The output field the rule produces. */
+    public String outputField() {
+        return outputField;
+    }
+
+    /** @return The rule's config object, for operation-specific arguments such as {@code separator}. */
+    public JsonNode rule() {
+        return rule;
+    }
+
+    /** @return The rule's {@code sources} paths, in config order. */
+    public List<String> sourcePaths() {
+        return sourcePaths;
+    }
+
+    /** @return The slot of each source path. */
+    public int[] sources() {
+        return sources.clone();
+    }
+
+    /** @return The rule's {@code scores} paths, in config order; empty if it has none. */
+    public List<String> scorePaths() {
+        return scorePaths;
+    }
+
+    /** @return The slot of each score path. */
+    public int[] scores() {
+        return scores.clone();
+    }
+
+    /**
+     * Declares an additional input path the operation reads, such as a path given in an argument.
+     * @param path Dot/bracket path in the input event.
+     * @return The slot holding the path's value for each event.
+     * @throws IllegalArgumentException if the path is malformed.
+     */
+    public int path(String path) {
+        if (closed) throw new IllegalStateException("Paths can only be declared while the rule is being bound");
+        int slot = paths.add(path);
+        extraPaths.add(path);
+        extraSlots.add(slot);
+        return slot;
+    }
+
+    /**
+     * Builds the exception to throw from {@code bind} for an invalid rule, naming the output field.
+     * @param message What is wrong with the rule.
+     * @return The exception.
+     */
+    public IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException(outputField + ": " + message);
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    int[] sourceSlots() {
+        return sources;
+    }
+
+    int[] scoreSlots() {
+        return scores;
+    }
+
+    /** @return Every path the rule reads: sources, scores, then declared paths. */
+    List<String> inputPaths() {
+        List<String> all = new ArrayList<>(sourcePaths);
+        all.addAll(scorePaths);
+        all.addAll(extraPaths);
+        return Collections.unmodifiableList(all);
+    }
+
+    /** @return The slot of each path in {@link #inputPaths()}. */
+    int[] inputSlots() {
+        int[] all = new int[sources.length + scores.length + extraSlots.size()];
+        System.arraycopy(sources, 0, all, 0, sources.length);
+        System.arraycopy(scores, 0, all, sources.length, scores.length);
+        for (int i = 0; i < extraSlots.size(); i++) all[sources.length + scores.length + i] = extraSlots.get(i);
+        return all;
+    }
+}
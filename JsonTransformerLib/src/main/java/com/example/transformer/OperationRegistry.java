@@ -0,0 +1,81 @@
+package com.example.transformer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * The operations available to configs, by name: the built-ins plus every {@link Operation} found with
+ * {@link ServiceLoader}. Instances are immutable; {@link #with(Operation)} returns a copy with one more
+ * operation, for registering operations programmatically.
+ */
+public final class OperationRegistry {
+    private final Map<String, Operation> operations;
+
+    private OperationRegistry(Map<String, Operation> operations) {
+        this.operations = Collections.unmodifiableMap(operations);
+    }
+
+    /**
+     * Returns the registry used by {@link JsonTransformer#compile(com.fasterxml.jackson.databind.JsonNode)}:
+     * the built-ins plus the operations on the class path, loaded once.
+     * @return The default registry.
+     * @throws IllegalStateException if two operations share a name.
+     */
+    public static OperationRegistry defaults() {
+        return Defaults.INSTANCE;
+    }
+
+    /**
+     * Loads the built-ins plus the operations visible to a class loader.
+     * @param loader The class loader to search for {@code META-INF/services/com.example.transformer.Operation}.
+     * @return A new registry.
+     * @throws IllegalStateException if two operations share a name.
+     */
+    public static OperationRegistry load(ClassLoader loader) {
+        OperationRegistry registry = new OperationRegistry(new LinkedHashMap<>());
+        for (Operation operation : BuiltinOperations.all()) {
+            registry = registry.with(operation);
+        }
+        for (Operation operation : ServiceLoader.load(Operation.class, loader)) {
+            registry = registry.with(operation);
+        }
+        return registry;
+    }
+
+    /**
+     * @param operation The operation to add.
+     * @return A copy of this registry with the operation added.
+     * @throws IllegalStateException if an operation with the same name is already registered.
+     */
+    public OperationRegistry with(Operation operation) {
+        if (operations.containsKey(operation.name())) {
+            throw new IllegalStateException("Duplicate operation '" + operation.name() + "': "
+                    + operations.get(operation.name()).getClass().getName() + " and " + operation.getClass().getName());
+        }
+        Map<String, Operation> next = new LinkedHashMap<>(operations);
+        next.put(operation.name(), operation);
+        return new OperationRegistry(next);
+    }
+
+    /**
+     * @param name An operation name from a config.
+     * @return The operation, or null if none is registered under that name.
+     */
+    public Operation get(String name) {
+        return operations.get(name);
+    }
+
+    /**
+     * @return The registered operation names.
+     */
+    public Set<String> names() {
+        return operations.keySet();
+    }
+
+    private static final class Defaults {
+        static final OperationRegistry INSTANCE = load(OperationRegistry.class.getClassLoader());
+    }
+}
@@ -5,7 +5,8 @@ import java.util.List;
 
 /**
  * Utility methods for transformation operations (concatenate, conditionalDecision, fallback).
- * Used by JsonTransformer to apply config-driven logic.
+ * Used by JsonTransformer to apply config-driven logic. Each operation takes any number of sources;
+ * a wildcard or filter path counts as one source per value it reaches.
  */
 public class OperationsUtils {
     /**
@@ -20,33 +21,185 @@ public class OperationsUtils {
     }
 
     /**
-     * Compares two decisions and their scores, returning the one with the lower score, or the same if equal.
+     * Picks the decision with the lowest score, pairing the n-th decision with the n-th score.
      * @param input The root JsonNode.
      * @param sources List of decision paths.
      * @param scorePaths List of score paths.
      * @return The selected decision string.
      */
     public static String conditionalDecision(JsonNode input, List<String> sources, List<String> scorePaths) {
-        String dec1 = TransformerUtils.getValueByPath(input, sources.get(0)).asText("");
-        String dec2 = TransformerUtils.getValueByPath(input, sources.get(1)).asText("");
-        int score1 = TransformerUtils.getValueByPath(input, scorePaths.get(0)).asInt(Integer.MAX_VALUE);
-        int score2 = TransformerUtils.getValueByPath(input, scorePaths.get(1)).asInt(Integer.MAX_VALUE);
-        return TransformerUtils.compareDecisions(dec1, score1, dec2, score2);
+        JsonNode[] slots = new JsonNode[sources.size() + scorePaths.size()];
+        int[] decisions = new int[sources.size()];
+        int[] scores = new int[scorePaths.size()];
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = i;
+            slots[i] = TransformerUtils.getValueByPath(input, sources.get(i));
+        }
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = decisions.length + i;
+            slots[scores[i]] = TransformerUtils.getValueByPath(input, scorePaths.get(i));
+        }
+        return conditionalDecision(slots, decisions, scores);
     }
 
     /**
-     * Returns the first non-empty value from the given sources, or null if all are empty.
+     * Returns the first non-empty value from the given sources. If none is, returns the last source's
+     * value as found (null if missing).
      * @param input The root JsonNode.
      * @param sources List of source paths.
-     * @return The first non-empty JsonNode, or null.
+     * @return The first non-empty JsonNode, or the last source's value.
      */
     public static JsonNode fallback(JsonNode input, List<String> sources) {
-        JsonNode val1 = TransformerUtils.getValueByPath(input, sources.get(0));
-        if (val1 == null || TransformerUtils.isEmpty(val1)) {
-            JsonNode val2 = TransformerUtils.getValueByPath(input, sources.get(1));
-            return val2;
-        } else {
-            return val1;
+        JsonNode last = null;
+        for (String source : sources) {
+            last = TransformerUtils.getValueByPath(input, source);
+            JsonNode found = firstNonEmpty(last);
+            if (found != null) return found;
         }
+        return last instanceof FanOutNode ? null : last;
+    }
+
+    /**
+     * Concatenates already-resolved source values, separated by sep. Skips empty or missing values.
+     * Used by compiled plans, which resolve every source path into a slot array once per event.
+     * @param slots The per-event slot array.
+     * @param sources Slot index of each source.
+     * @param sep Separator string.
+     * @return The concatenated string.
+     */
+    public static String concatenate(JsonNode[] slots, int[] sources, String sep) {
+        StringBuilder sb = TransformerUtils.builder();
+        for (int source : sources) {
+            append(sb, slots[source], sep);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Slot-based variant of {@link #conditionalDecision(JsonNode, List, List)}.
+     * A missing decision counts as "" and a missing score as Integer.MAX_VALUE; on a tie the later decision wins.
+     * @param slots The per-event slot array.
+     * @param sources Slot index of each decision.
+     * @param scores Slot index of each score.
+     * @return The selected decision string.
+     */
+    public static String conditionalDecision(JsonNode[] slots, int[] sources, int[] scores) {
+        return asText(lowestScore(slots, sources, scores));
+    }
+
+    /**
+     * Returns the first non-empty already-resolved source value, or null if all are empty.
+     * @param slots The per-event slot array.
+     * @param sources Slot index of each source.
+     * @return The first non-empty JsonNode, or null.
+     */
+    public static JsonNode fallback(JsonNode[] slots, int[] sources) {
+        for (int source : sources) {
+            JsonNode found = firstNonEmpty(slots[source]);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    /**
+     * Appends a source to a concatenation: the value itself, or each value of a fan-out, skipping empties.
+     * @param sb The concatenation so far.
+     * @param value The source value.
+     * @param sep Separator string.
+     */
+    static void append(StringBuilder sb, JsonNode value, String sep) {
+        if (value instanceof FanOutNode) {
+            for (int i = 0, n = value.size(); i < n; i++) append(sb, value.get(i), sep);
+        } else if (value != null && !TransformerUtils.isEmpty(value)) {
+            if (sb.length() > 0) sb.append(sep);
+            sb.append(value.asText());
+        }
+    }
+
+    /**
+     * @param value A source value.
+     * @return The value if it is non-empty, the first non-empty value of a fan-out, or null.
+     */
+    static JsonNode firstNonEmpty(JsonNode value) {
+        if (value instanceof FanOutNode) {
+            for (int i = 0, n = value.size(); i < n; i++) {
+                if (!TransformerUtils.isEmpty(value.get(i))) return value.get(i);
+            }
+            return null;
+        }
+        return value == null || TransformerUtils.isEmpty(value) ? null : value;
+    }
+
+    /**
+     * Finds the decision with the lowest score among every decision and score, fan-outs counting one entry
+     * per value. Without fan-outs nothing is allocated; with them, the scores are read into one int buffer
+     * sized to the number of decisions.
+     * @param slots The per-event slot array.
+     * @param sources Slot index of each decision.
+     * @param scores Slot index of each score.
+     * @return The winning decision node, or null if it is missing or there are no decisions.
+     */
+    static JsonNode lowestScore(JsonNode[] slots, int[] sources, int[] scores) {
+        if (!fansOut(slots, sources) && !fansOut(slots, scores)) {
+            JsonNode best = null;
+            int bestScore = Integer.MAX_VALUE;
+            for (int k = 0; k < sources.length; k++) {
+                int score = k < scores.length ? asInt(slots[scores[k]]) : Integer.MAX_VALUE;
+                if (k == 0 || score <= bestScore) {
+                    best = slots[sources[k]];
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+        int count = count(slots, sources);
+        int[] values = new int[count];
+        int filled = 0;
+        for (int slot : scores) {
+            JsonNode score = slots[slot];
+            if (score instanceof FanOutNode) {
+                for (int i = 0, n = score.size(); i < n && filled < count; i++) values[filled++] = asInt(score.get(i));
+            } else if (filled < count) {
+                values[filled++] = asInt(score);
+            }
+        }
+        while (filled < count) values[filled++] = Integer.MAX_VALUE;
+        JsonNode best = null;
+        int bestScore = Integer.MAX_VALUE;
+        int k = 0;
+        for (int slot : sources) {
+            JsonNode decision = slots[slot];
+            int n = decision instanceof FanOutNode ? decision.size() : 1;
+            for (int i = 0; i < n; i++, k++) {
+                if (k == 0 || values[k] <= bestScore) {
+                    best = decision instanceof FanOutNode ? decision.get(i) : decision;
+                    bestScore = values[k];
+                }
+            }
+        }
+        return best;
+    }
+
+    private static boolean fansOut(JsonNode[] slots, int[] group) {
+        for (int slot : group) {
+            if (slots[slot] instanceof FanOutNode) return true;
+        }
+        return false;
+    }
+
+    private static int count(JsonNode[] slots, int[] group) {
+        int count = 0;
+        for (int slot : group) {
+            count += slots[slot] instanceof FanOutNode ? slots[slot].size() : 1;
+        }
+        return count;
+    }
+
+    private static String asText(JsonNode value) {
+        return value == null ? "" : value.asText("");
+    }
+
+    private static int asInt(JsonNode value) {
+        return value == null ? Integer.MAX_VALUE : value.asInt(Integer.MAX_VALUE);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shape of a plan's output, worked out once when the plan is built. Dotted output field names such as
+ * {@code overallResponse.decision} become nested objects; with {@code flatOutputKeys} every field is a
+ * top-level key named exactly as in the config. Each field's parent object and key are resolved up front
+ * and each object's map is sized for its known field count, so filling the output only sets one key per field.
+ * Nested objects whose fields are all omitted are left out. Immutable and thread-safe.
+ */
+final class OutputTemplate {
+    private final Node root;
+    private final boolean flat;
+
+    private OutputTemplate(Node root, boolean flat) {
+        this.root = root;
+        this.flat = flat;
+    }
+
+    /**
+     * Builds the template for a plan's rules.
+     * @param rules The plan's rules, in config order.
+     * @param hidden Rules left out of the output, or null.
+     * @param flat If true, every field is a top-level key named exactly as in the config.
+     * @return The template.
+     * @throws IllegalArgumentException if a dotted field has an empty segment, or a field is also used as
+     *         the parent of another field (e.g. {@code a} and {@code a.b}).
+     */
+    static OutputTemplate of(CompiledRule[] rules, boolean[] hidden, boolean flat) {
+        MutableNode root = new MutableNode();
+        for (int i = 0; i < rules.length; i++) {
+            if (hidden != null && hidden[i]) continue;
+            String field = rules[i].outputField;
+            String[] keys = flat || field.indexOf('.') < 0 ? new String[]{field} : field.split("\\.", -1);
+            MutableNode node = root;
+            for (int k = 0; k < keys.length; k++) {
+                String key = keys[k];
+                if (key.isEmpty()) {
+                    throw new IllegalArgumentException("Output field '" + field
+                            + "' has an empty segment; set flatOutputKeys to keep it as a flat key");
+                }
+                Object child = node.children.get(key);
+                if (k == keys.length - 1) {
+                    if (child != null) throw conflict(field);
+                    node.children.put(key, i);
+                } else {
+                    if (child instanceof Integer) throw conflict(field);
+                    if (child == null) {
+                        child = new MutableNode();
+                        node.children.put(key, child);
+                    }
+                    node = (MutableNode) child;
+                }
+            }
+        }
+        return new OutputTemplate(root.freeze(), flat);
+    }
+
+    /**
+     * Builds the template for a subset of a plan's rules, keeping this template's key style.
+     * @param rules The rules, in config order.
+     * @param hidden Rules left out of the output, or null.
+     * @return The template.
+     */
+    OutputTemplate of(CompiledRule[] rules, boolean[] hidden) {
+        return of(rules, hidden, flat);
+    }
+
+    /**
+     * @return True if every field is a top-level key named exactly as in the config.
+     */
+    boolean flat() {
+        return flat;
+    }
+
+    private static IllegalArgumentException conflict(String field) {
+        return new IllegalArgumentException("Output field '" + field
+                + "' clashes with another field's nesting; rename it or set flatOutputKeys");
+    }
+
+    /**
+     * @param values The value of each rule; null where the field is omitted.
+     * @return The output object.
+     */
+    ObjectNode toObject(JsonNode[] values) {
+        return build(root, values);
+    }
+
+    /**
+     * Reads each rule's value back from an output object built by this template.
+     * @param output The output object.
+     * @param ruleCount The number of rules.
+     * @return The value of each rule; null where the field is omitted or hidden.
+     */
+    JsonNode[] values(ObjectNode output, int ruleCount) {
+        JsonNode[] values = new JsonNode[ruleCount];
+        read(root, output, values);
+        return values;
+    }
+
+    private static void read(Node node, JsonNode object, JsonNode[] values) {
+        for (int k = 0; k < node.keys.length; k++) {
+            JsonNode value = object.get(node.keys[k]);
+            if (value == null) continue;
+            if (node.rules[k] >= 0) {
+                values[node.rules[k]] = value;
+            } else if (value.isObject()) {
+                read(node.objects[k], value, values);
+            }
+        }
+    }
+
+    /**
+     * Writes the output object, in the same shape and order as {@link #toObject(JsonNode[])}.
+     * @param values The value of each rule; null where the field is omitted.
+     * @param out The generator to write to.
+     * @param mapper Writes non-text values.
+     * @throws IOException if writing fails.
+     */
+    void write(JsonNode[] values, JsonGenerator out, ObjectMapper mapper) throws IOException {
+        write(root, values, out, mapper);
+    }
+
+    private static ObjectNode build(Node node, JsonNode[] values) {
+        ObjectNode object = new ObjectNode(JsonNodeFactory.instance, new LinkedHashMap<>(node.capacity));
+        for (int k = 0; k < node.keys.length; k++) {
+            int rule = node.rules[k];
+            if (rule >= 0) {
+                if (values[rule] != null) object.set(node.keys[k], values[rule]);
+            } else if (node.objects[k].present(values)) {
+                object.set(node.keys[k], build(node.objects[k], values));
+            }
+        }
+        return object;
+    }
+
+    private static void write(Node node, JsonNode[] values, JsonGenerator out, ObjectMapper mapper) throws IOException {
+        out.writeStartObject();
+        for (int k = 0; k < node.keys.length; k++) {
+            int rule = node.rules[k];
+            if (rule >= 0) {
+                JsonNode value = values[rule];
+                if (value == null) continue;
+                out.writeFieldName(node.keys[k]);
+                if (value.isTextual()) {
+                    out.writeString(value.textValue());
+                } else {
+                    mapper.writeTree(out, value);
+                }
+            } else if (node.objects[k].present(values)) {
+                out.writeFieldName(node.keys[k]);
+                write(node.objects[k], values, out, mapper);
+            }
+        }
+        out.writeEndObject();
+    }
+
+    /**
+     * One output object. Children are kept in parallel arrays: a rule index for a value, or -1 and a nested node.
+     */
+    private static final class Node {
+        final String[] keys;
+        final int[] rules;
+        final Node[] objects;
+        /** Every rule below this node, to tell whether the object has anything to show. */
+        final int[] leaves;
+        final int capacity;
+
+        Node(String[] keys, int[] rules, Node[] objects, int[] leaves) {
+            this.keys = keys;
+            this.rules = rules;
+            this.objects = objects;
+            this.leaves = leaves;
+            // LinkedHashMap resizes past 0.75 of its capacity.
+            this.capacity = (int) (keys.length / 0.75f) + 1;
+        }
+
+        boolean present(JsonNode[] values) {
+            for (int leaf : leaves) {
+                if (values[leaf] != null) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class MutableNode {
+        /** Key to rule index (Integer) or nested MutableNode, in config order. */
+        final Map<String, Object> children = new LinkedHashMap<>();
+
+        Node freeze() {
+            String[] keys = new String[children.size()];
+            int[] rules = new int[keys.length];
+            Node[] objects = new Node[keys.length];
+            List<Integer> leaves = new ArrayList<>();
+            int k = 0;
+            for (Map.Entry<String, Object> e : children.entrySet()) {
+                keys[k] = e.getKey();
+                if (e.getValue() instanceof Integer) {
+                    rules[k] = (Integer) e.getValue();
+                    leaves.add(rules[k]);
+                } else {
+                    rules[k] = -1;
+                    objects[k] = ((MutableNode) e.getValue()).freeze();
+                    for (int leaf : objects[k].leaves) leaves.add(leaf);
+                }
+                k++;
+            }
+            int[] leafArray = new int[leaves.size()];
+            for (int i = 0; i < leafArray.length; i++) leafArray[i] = leaves.get(i);
+            return new Node(keys, rules, objects, leafArray);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a shared {@link CompiledTransformer} on N single-threaded lanes while keeping the results for each
+ * key (for example {@code message.responseHeader.tenantID} or {@code expRequestId}) in submission order.
+ * <p>
+ * Keys are hashed into {@value #GROUPS_PER_LANE} key groups per lane. Each group is a queue that at most one
+ * lane drains at a time, and every group starts out owned by one lane. A lane whose own groups are idle steals
+ * a waiting group from the busiest lane and keeps it, so load rebalances without a global lock and without
+ * reordering any key. A single hot key is still limited to one thread. Submissions block once
+ * {@code capacity} events are queued.
+ * <p>
+ * Futures complete on the lane threads, so dependent actions should be short or use the {@code *Async} variants.
+ */
+public final class PartitionedExecutor implements AutoCloseable {
+    /** Key groups per lane; more groups let stealing balance finer-grained load. */
+    static final int GROUPS_PER_LANE = 64;
+    /** Events a lane takes from one group before giving other groups a turn. */
+    static final int BATCH = 64;
+    /** How long an idle lane waits for its own work before trying to steal again. */
+    private static final long IDLE_MILLIS = 2;
+
+    private final CompiledTransformer plan;
+    private final JsonPath keyPath;
+    private final Group[] groups;
+    private final Lane[] lanes;
+    private final Semaphore capacity;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicInteger unkeyed = new AtomicInteger();
+    private final long started = System.nanoTime();
+    private volatile boolean closed;
+
+    /**
+     * Starts the lanes.
+     * @param plan The compiled plan shared by every lane.
+     * @param keyPath Dot/bracket path of the ordering key in the input event. Events without one are spread evenly.
+     * @param lanes Number of lane threads, typically the number of cores.
+     * @param capacity Most events queued across all lanes before {@link #submit(JsonNode)} blocks.
+     */
+    public PartitionedExecutor(CompiledTransformer plan, String keyPath, int lanes, int capacity) {
+        if (lanes < 1) throw new IllegalArgumentException("lanes must be at least 1");
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.plan = plan;
+        this.keyPath = JsonPath.compile(keyPath);
+        this.capacity = new Semaphore(capacity);
+        this.lanes = new Lane[lanes];
+        this.groups = new Group[lanes * GROUPS_PER_LANE];
+        for (int i = 0; i < groups.length; i++) groups[i] = new Group(i % lanes);
+        for (int i = 0; i < lanes; i++) this.lanes[i] = new Lane(i);
+        for (Lane lane : this.lanes) lane.thread.start();
+    }
+
+    /**
+     * Queues an event on the lane owning its key.
+     * @param event The input event.
+     * @return The outcome, completed once the event has been transformed; it only completes exceptionally on an
+     *         unexpected error.
+     * @throws InterruptedException if interrupted while waiting for capacity.
+     * @throws RejectedExecutionException if the executor is closed.
+     */
+    public CompletableFuture<TransformResult> submit(JsonNode event) throws InterruptedException {
+        JsonNode key = keyPath.evaluate(event);
+        return submit(key == null || !key.isValueNode() ? null : key.asText(), event);
+    }
+
+    /**
+     * Queues an event under a key the caller already has, such as a Kafka record key.
+     * @param key The ordering key, or null for no ordering.
+     * @param event The input event.
+     * @return The outcome, completed once the event has been transformed.
+     * @throws InterruptedException if interrupted while waiting for capacity.
+     * @throws RejectedExecutionException if the executor is closed.
+     */
+    public CompletableFuture<TransformResult> submit(String key, JsonNode event) throws InterruptedException {
+        capacity.acquire();
+        // Counted before the closed check, so a closing executor cannot stop its lanes under this event.
+        pending.incrementAndGet();
+        if (closed) {
+            pending.decrementAndGet();
+            capacity.release();
+            throw new RejectedExecutionException("executor is closed");
+        }
+        Task task = new Task(event);
+        Group group = groups[group(key)];
+        group.tasks.add(task);
+        group.size.incrementAndGet();
+        schedule(group);
+        return task.result;
+    }
+
+    /**
+     * @return The lane currently owning the key's group.
+     */
+    int laneOf(String key) {
+        return groups[Math.floorMod(mix(key.hashCode()), groups.length)].lane;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private int group(String key) {
+        return Math.floorMod(mix(key == null ? unkeyed.getAndIncrement() : key.hashCode()), groups.length);
+    }
+
+    private void schedule(Group group) {
+        if (group.scheduled.compareAndSet(false, true)) {
+            lanes[group.lane].ready.addLast(group);
+        }
+    }
+
+    /**
+     * Drains a group for up to {@link #BATCH} events, then hands it back to its owner if more arrived.
+     */
+    private void run(Lane lane, Group group) {
+        for (int i = 0; i < BATCH; i++) {
+            Task task = group.tasks.poll();
+            if (task == null) break;
+            group.size.decrementAndGet();
+            try {
+                task.result.complete(plan.tryTransform(task.event));
+            } catch (RuntimeException ex) {
+                task.result.completeExceptionally(ex);
+            } finally {
+                lane.processed.increment();
+                capacity.release();
+                pending.decrementAndGet();
+            }
+        }
+        group.scheduled.set(false);
+        if (!group.tasks.isEmpty()) schedule(group);
+    }
+
+    /**
+     * Takes the oldest waiting group of the lane with the most waiting groups, and moves its ownership here.
+     */
+    private Group steal(Lane thief) {
+        Lane victim = null;
+        int most = 0;
+        for (Lane lane : lanes) {
+            int waiting = lane.ready.size();
+            if (lane != thief && waiting > most) {
+                victim = lane;
+                most = waiting;
+            }
+        }
+        if (victim == null) return null;
+        Group group = victim.ready.pollFirst();
+        if (group != null) {
+            group.lane = thief.index;
+            thief.steals.increment();
+        }
+        return group;
+    }
+
+    /**
+     * @return Per-lane queue depth, throughput and steal counts.
+     */
+    public List<LaneStats> stats() {
+        long[] queued = new long[lanes.length];
+        for (Group group : groups) queued[group.lane] += group.size.get();
+        long elapsed = System.nanoTime() - started;
+        List<LaneStats> stats = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) {
+            stats.add(new LaneStats(lane.index, queued[lane.index], lane.processed.sum(), lane.steals.sum(), elapsed));
+        }
+        return Collections.unmodifiableList(stats);
+    }
+
+    /**
+     * @return Events submitted but not yet transformed.
+     */
+    public long pending() {
+        return pending.get();
+    }
+
+    /**
+     * Rejects new events, waits for every queued event to be transformed and stops the lanes.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        boolean interrupted = false;
+        for (Lane lane : lanes) {
+            while (lane.thread.isAlive()) {
+                try {
+                    lane.thread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Queue depth, throughput and steals of one lane.
+     */
+    public static final class LaneStats {
+        private final int lane;
+        private final long queued;
+        private final long processed;
+        private final long steals;
+        private final long elapsedNanos;
+
+        LaneStats(int lane, long queued, long processed, long steals, long elapsedNanos) {
+            this.lane = lane;
+            this.queued = queued;
+            this.processed = processed;
+            this.steals = steals;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** @return The lane's index. */
+        public int lane() {
+            return lane;
+        }
+
+        /** @return Events waiting in the key groups the lane currently owns. */
+        public long queued() {
+            return queued;
+        }
+
+        /** @return Events the lane has transformed. */
+        public long processed() {
+            return processed;
+        }
+
+        /** @return Key groups the lane has taken over from busier lanes. */
+        public long steals() {
+            return steals;
+        }
+
+        /** @return Events transformed per second since the executor started. */
+        public double eventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : processed * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("lane=%d queued=%d processed=%d steals=%d rate=%.0f events/s",
+                    lane, queued, processed, steals, eventsPerSecond());
+        }
+    }
+
+    private static final class Task {
+        final JsonNode event;
+        final CompletableFuture<TransformResult> result = new CompletableFuture<>();
+
+        Task(JsonNode event) {
+            this.event = event;
+        }
+    }
+
+    /**
+     * A key group: its events in submission order, and the lane that owns it.
+     */
+    private static final class Group {
+        final ConcurrentLinkedQueue<Task> tasks = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        /** True while the group is waiting in a lane's ready queue or being drained. */
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile int lane;
+
+        Group(int lane) {
+            this.lane = lane;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        final int index;
+        final LinkedBlockingDeque<Group> ready = new LinkedBlockingDeque<>();
+        final LongAdder processed = new LongAdder();
+        final LongAdder steals = new LongAdder();
+        final Thread thread;
+
+        Lane(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "partitioned-executor-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Group group = ready.pollFirst();
+                if (group == null) group = steal(this);
+                if (group == null) {
+                    if (closed && pending.get() == 0) return;
+                    try {
+                        group = ready.pollFirst(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException ex) {
+                        // Lanes only stop once drained; keep going.
+                        continue;
+                    }
+                    if (group == null) continue;
+                }
+                PartitionedExecutor.this.run(this, group);
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All input paths referenced by a compiled config, merged into a trie on their shared prefixes.
+ * Each distinct path is assigned a slot; {@link #resolve(JsonNode, JsonNode[])} walks the input once,
+ * visiting every shared prefix a single time, and stores each path's value in its slot.
+ * Wildcard and filter steps are merged the same way: every path below {@code d[*]} is collected in one pass
+ * over the array, each into a {@link FanOutNode} sized for the array, with the same entries as
+ * {@link JsonPath#evaluate(JsonNode)}.
+ * The same trie drives {@link #resolve(JsonParser, JsonNode[])}, which streams over raw JSON and only
+ * materializes the values it needs. Instances are immutable and thread-safe.
+ */
+final class PathTrie {
+    private final Node root;
+    private final JsonPath[] paths;
+
+    private PathTrie(Node root, JsonPath[] paths) {
+        this.root = root;
+        this.paths = paths;
+    }
+
+    /**
+     * @return The number of slots a per-event slot array must hold.
+     */
+    int slotCount() {
+        return paths.length;
+    }
+
+    /**
+     * @param slot A slot index.
+     * @return The path stored in that slot.
+     */
+    JsonPath pathAt(int slot) {
+        return paths[slot];
+    }
+
+    /**
+     * Returns a trie that only resolves the given slots, keeping the slot numbering; other slots stay null.
+     * @param keep Which slots to keep, indexed by slot.
+     * @return The pruned trie.
+     */
+    PathTrie retain(boolean[] keep) {
+        Node pruned = prune(root, keep);
+        return new PathTrie(pruned == null ? Node.EMPTY : pruned, paths);
+    }
+
+    private static Node prune(Node node, boolean[] keep) {
+        List<String> names = new ArrayList<>();
+        List<Node> fields = new ArrayList<>();
+        for (int i = 0; i < node.fieldNames.length; i++) {
+            Node child = prune(node.fieldChildren[i], keep);
+            if (child != null) {
+                names.add(node.fieldNames[i]);
+                fields.add(child);
+            }
+        }
+        List<Integer> indexes = new ArrayList<>();
+        List<Node> indexed = new ArrayList<>();
+        for (int i = 0; i < node.indexes.length; i++) {
+            Node child = prune(node.indexChildren[i], keep);
+            if (child != null) {
+                indexes.add(node.indexes[i]);
+                indexed.add(child);
+            }
+        }
+        List<JsonPath.Filter> filters = new ArrayList<>();
+        List<Node> fannedOut = new ArrayList<>();
+        for (int i = 0; i < node.filters.length; i++) {
+            Node child = prune(node.fanOutChildren[i], keep);
+            if (child != null) {
+                filters.add(node.filters[i]);
+                fannedOut.add(child);
+            }
+        }
+        int slot = node.slot >= 0 && keep[node.slot] ? node.slot : -1;
+        if (slot < 0 && fields.isEmpty() && indexed.isEmpty() && fannedOut.isEmpty()) return null;
+        int[] indexArray = new int[indexes.size()];
+        for (int i = 0; i < indexArray.length; i++) indexArray[i] = indexes.get(i);
+        return new Node(slot, names.toArray(new String[0]), fields.toArray(new Node[0]), indexArray,
+                indexed.toArray(new Node[0]), filters.toArray(new JsonPath.Filter[0]), fannedOut.toArray(new Node[0]));
+    }
+
+    /**
+     * Resolves every path in a single walk of the input.
+     * @param input The input event.
+     * @param slots The per-event slot array, at least {@link #slotCount()} long; missing paths are left null.
+     */
+    void resolve(JsonNode input, JsonNode[] slots) {
+        if (input != null) {
+            resolve(root, input, slots);
+        }
+    }
+
+    private static void resolve(Node node, JsonNode value, JsonNode[] slots) {
+        if (node.slot >= 0) {
+            slots[node.slot] = value;
+        }
+        String[] fieldNames = node.fieldNames;
+        for (int i = 0; i < fieldNames.length; i++) {
+            JsonNode child = value.get(fieldNames[i]);
+            if (child != null) {
+                resolve(node.fieldChildren[i], child, slots);
+            }
+        }
+        if (!value.isArray()) return;
+        int[] indexes = node.indexes;
+        for (int i = 0; i < indexes.length; i++) {
+            JsonNode child = JsonPath.element(value, indexes[i]);
+            if (child != null) {
+                resolve(node.indexChildren[i], child, slots);
+            }
+        }
+        for (int i = 0; i < node.filters.length; i++) {
+            Node child = node.fanOutChildren[i];
+            for (int slot : child.slotsBelow) slots[slot] = new FanOutNode(value.size());
+            fanOut(node.filters[i], child, value, slots);
+        }
+    }
+
+    /** Appends what every path below a fan-out step reaches in each kept element, in one pass over the array. */
+    private static void fanOut(JsonPath.Filter filter, Node node, JsonNode array, JsonNode[] slots) {
+        for (int k = 0, n = array.size(); k < n; k++) {
+            JsonNode element = array.get(k);
+            if (filter.matches(element)) append(node, element, slots);
+        }
+    }
+
+    /**
+     * Like {@link #resolve(Node, JsonNode, JsonNode[])} below a fan-out step: slots are appended to, a missing
+     * value still appends a placeholder, and nested fan-outs over a missing or non-array value add nothing.
+     */
+    private static void append(Node node, JsonNode value, JsonNode[] slots) {
+        if (node.slot >= 0) {
+            ((FanOutNode) slots[node.slot]).append(value);
+        }
+        String[] fieldNames = node.fieldNames;
+        for (int i = 0; i < fieldNames.length; i++) {
+            append(node.fieldChildren[i], value == null ? null : value.get(fieldNames[i]), slots);
+        }
+        int[] indexes = node.indexes;
+        for (int i = 0; i < indexes.length; i++) {
+            append(node.indexChildren[i], value == null ? null : JsonPath.element(value, indexes[i]), slots);
+        }
+        if (value == null || !value.isArray()) return;
+        for (int i = 0; i < node.filters.length; i++) {
+            fanOut(node.filters[i], node.fanOutChildren[i], value, slots);
+        }
+    }
+
+    /**
+     * Resolves every path while streaming over the input, without building a tree for the whole event.
+     * Subtrees that no path reaches are skipped with {@link JsonParser#skipChildren()}; only the values
+     * stored in slots are materialized.
+     * @param parser A parser positioned before the event's first token.
+     * @param slots The per-event slot array, at least {@link #slotCount()} long; missing paths are left null.
+     * @throws IOException if the input is not valid JSON.
+     */
+    void resolve(JsonParser parser, JsonNode[] slots) throws IOException {
+        if (parser.nextToken() != null) {
+            resolve(root, parser, slots);
+        }
+    }
+
+    private static void resolve(Node node, JsonParser parser, JsonNode[] slots) throws IOException {
+        if (node.slot >= 0) {
+            JsonNode value = Json.MAPPER.readTree(parser);
+            // Deeper paths below a materialized value are resolved from the tree we already have.
+            resolve(node, value, slots);
+            return;
+        }
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_ARRAY && node.materializesArrays) {
+            // Fan-out and negative indexes need the whole array; resolve it from a tree.
+            JsonNode array = Json.MAPPER.readTree(parser);
+            resolve(node, array, slots);
+        } else if (token == JsonToken.START_OBJECT && node.fieldNames.length > 0) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.fieldChild(parser.currentName());
+                parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                } else {
+                    resolve(child, parser, slots);
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY && node.indexes.length > 0) {
+            int idx = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Node child = node.indexChild(idx++);
+                if (child == null) {
+                    parser.skipChildren();
+                } else {
+                    resolve(child, parser, slots);
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * A frozen trie node: children are kept in parallel arrays so the walk does no map lookups.
+     */
+    static final class Node {
+        static final Node EMPTY = new Node(-1, new String[0], new Node[0], new int[0], new Node[0],
+                new JsonPath.Filter[0], new Node[0]);
+
+        final int slot;
+        final String[] fieldNames;
+        final Node[] fieldChildren;
+        final int[] indexes;
+        final Node[] indexChildren;
+        /** Wildcard and filter steps, with the subtree below each. */
+        final JsonPath.Filter[] filters;
+        final Node[] fanOutChildren;
+        /** Every slot in this subtree, so a fan-out can start a buffer for each. */
+        final int[] slotsBelow;
+        /** True if streaming must read an array here into a tree: it has a fan-out or a negative index. */
+        final boolean materializesArrays;
+
+        Node(int slot, String[] fieldNames, Node[] fieldChildren, int[] indexes, Node[] indexChildren,
+             JsonPath.Filter[] filters, Node[] fanOutChildren) {
+            this.slot = slot;
+            this.fieldNames = fieldNames;
+            this.fieldChildren = fieldChildren;
+            this.indexes = indexes;
+            this.indexChildren = indexChildren;
+            this.filters = filters;
+            this.fanOutChildren = fanOutChildren;
+            List<Integer> below = new ArrayList<>();
+            if (slot >= 0) below.add(slot);
+            for (Node[] children : new Node[][]{fieldChildren, indexChildren, fanOutChildren}) {
+                for (Node child : children) for (int s : child.slotsBelow) below.add(s);
+            }
+            this.slotsBelow = new int[below.size()];
+            for (int i = 0; i < slotsBelow.length; i++) slotsBelow[i] = below.get(i);
+            boolean negative = false;
+            for (int index : indexes) negative |= index < 0;
+            this.materializesArrays = negative || filters.length > 0;
+        }
+
+        Node fieldChild(String name) {
+            for (int i = 0; i < fieldNames.length; i++) {
+                if (fieldNames[i].equals(name)) return fieldChildren[i];
+            }
+            return null;
+        }
+
+        Node indexChild(int index) {
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i] == index) return indexChildren[i];
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Collects paths at config-compile time. Adding the same path twice returns the same slot.
+     */
+    static final class Builder {
+        private final MutableNode root = new MutableNode();
+        private final Map<String, Integer> slots = new HashMap<>();
+        private final List<JsonPath> paths = new ArrayList<>();
+
+        /**
+         * Registers a path.
+         * @param path The path to resolve per event.
+         * @return The slot the path's value will be stored in.
+         */
+        int add(JsonPath path) {
+            Integer existing = slots.get(path.toString());
+            if (existing != null) return existing;
+            MutableNode node = root;
+            for (int i = 0; i < path.length(); i++) {
+                if (path.isFanOut(i)) {
+                    JsonPath.Filter filter = path.filterAt(i);
+                    MutableNode child = node.fanOutChildren.computeIfAbsent(filter.toString(), k -> new MutableNode());
+                    node.filters.putIfAbsent(filter.toString(), filter);
+                    node = child;
+                } else {
+                    node = path.isIndex(i)
+                            ? node.indexChildren.computeIfAbsent(path.indexAt(i), k -> new MutableNode())
+                            : node.fieldChildren.computeIfAbsent(path.fieldAt(i), k -> new MutableNode());
+                }
+            }
+            int slot = paths.size();
+            if (node.slot >= 0) {
+                // Same steps written differently (e.g. "a[0]" and "a.[0]"): share the slot.
+                slot = node.slot;
+            } else {
+                node.slot = slot;
+                paths.add(path);
+            }
+            slots.put(path.toString(), slot);
+            return slot;
+        }
+
+        /**
+         * @param path The path string.
+         * @return The slot the path's value will be stored in.
+         */
+        int add(String path) {
+            return add(JsonPath.compile(path));
+        }
+
+        PathTrie build() {
+            return new PathTrie(root.freeze(), paths.toArray(new JsonPath[0]));
+        }
+    }
+
+    /** Created on first streaming use, so building a trie does not initialize an ObjectMapper. */
+    private static final class Json {
+        static final ObjectMapper MAPPER = new ObjectMapper();
+    }
+
+    private static final class MutableNode {
+        int slot = -1;
+        final Map<String, MutableNode> fieldChildren = new LinkedHashMap<>();
+        final Map<Integer, MutableNode> indexChildren = new LinkedHashMap<>();
+        final Map<String, MutableNode> fanOutChildren = new LinkedHashMap<>();
+        final Map<String, JsonPath.Filter> filters = new HashMap<>();
+
+        Node freeze() {
+            String[] names = new String[fieldChildren.size()];
+            Node[] fields = new Node[names.length];
+            int i = 0;
+            for (Map.Entry<String, MutableNode> e : fieldChildren.entrySet()) {
+                names[i] = e.getKey();
+                fields[i++] = e.getValue().freeze();
+            }
+            int[] indexes = new int[indexChildren.size()];
+            Node[] indexed = new Node[indexes.length];
+            i = 0;
+            for (Map.Entry<Integer, MutableNode> e : indexChildren.entrySet()) {
+                indexes[i] = e.getKey();
+                indexed[i++] = e.getValue().freeze();
+            }
+            JsonPath.Filter[] stepFilters = new JsonPath.Filter[fanOutChildren.size()];
+            Node[] fannedOut = new Node[stepFilters.length];
+            i = 0;
+            for (Map.Entry<String, MutableNode> e : fanOutChildren.entrySet()) {
+                stepFilters[i] = filters.get(e.getKey());
+                fannedOut[i++] = e.getValue().freeze();
+            }
+            return new Node(slot, names, fields, indexes, indexed, stepFilters, fannedOut);
+        }
+    }
+}
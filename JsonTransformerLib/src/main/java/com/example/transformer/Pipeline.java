@@ -0,0 +1,583 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A long-running, in-process pipeline for streams of events: source, parse, transform, serialize and sink,
+ * each stage on its own threads and connected by bounded queues.
+ * <ul>
+ *   <li>Records are routed to a stage's threads by the hash of their key, so records with the same key keep
+ *       their source order all the way to the sink. Records without a key are spread round-robin.</li>
+ *   <li>Queues are bounded, so a slow sink fills them and the source stops polling: at most
+ *       {@link #maxInFlight()} records are held in memory.</li>
+ *   <li>The sink receives batches of up to {@code batchSize} records, or whatever arrived within
+ *       {@code linger} of the batch's first record.</li>
+ *   <li>After each batch, the source is committed up to the last offset below which every record has been
+ *       written. {@link #close()} stops polling and drains every record already taken, so a restarted source
+ *       neither loses nor repeats records. If a stage fails, uncommitted records are redelivered on restart.</li>
+ * </ul>
+ * Records that fail to parse or transform go to the error sink, if any, as
+ * {@code {"offset":..,"error":..,"input":..}} objects, and are committed like the others.
+ * For one-shot NDJSON backfills, {@link BatchTransformer} is simpler and streams each record in one step.
+ */
+public final class Pipeline implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Item END = new Item(-1, null, 0);
+    private static final long POLL_MILLIS = 50;
+
+    private final CompiledTransformer plan;
+    private final PipelineSource source;
+    private final PipelineSink sink;
+    private final PipelineSink errors;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Stage parse;
+    private final Stage transform;
+    private final Stage serialize;
+    private final Stage output;
+    private final long maxInFlight;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile boolean stopping;
+    private volatile long committed = -1;
+    private volatile long started;
+    private volatile long finished;
+
+    private Pipeline(Builder b) {
+        this.plan = b.plan;
+        this.source = b.source;
+        this.sink = b.sink;
+        this.errors = b.errors;
+        this.batchSize = b.batchSize;
+        this.lingerNanos = b.linger.toNanos();
+        this.parse = new Stage("parse", b.parseThreads, b.queueCapacity, this::parse);
+        this.transform = new Stage("transform", b.transformThreads, b.queueCapacity, this::transform);
+        this.serialize = new Stage("serialize", b.serializeThreads, b.queueCapacity, this::serialize);
+        this.output = new Stage("sink", 1, b.queueCapacity, null);
+        long queued = 0;
+        long workers = 1;
+        for (Stage stage : new Stage[]{parse, transform, serialize, output}) {
+            queued += (long) stage.queues.length * b.queueCapacity;
+            workers += stage.queues.length;
+        }
+        this.maxInFlight = queued + workers + batchSize;
+    }
+
+    /**
+     * Starts building a pipeline.
+     * @param plan The compiled plan shared by the transform threads.
+     * @param source The records to transform; not closed by the pipeline.
+     * @param sink Receives the transformed records; not closed by the pipeline.
+     * @return A builder with one parse and serialize thread, one transform thread per core, queues of 1024
+     *         records per thread, and batches of 500 records or 100 ms.
+     */
+    public static Builder builder(CompiledTransformer plan, PipelineSource source, PipelineSink sink) {
+        return new Builder(plan, source, sink);
+    }
+
+    private void start() {
+        started = System.nanoTime();
+        threads.add(thread("pipeline-source", this::runSource));
+        for (Stage stage : new Stage[]{parse, transform, serialize}) {
+            Stage next = stage == parse ? transform : stage == transform ? serialize : output;
+            for (int i = 0; i < stage.queues.length; i++) {
+                int lane = i;
+                threads.add(thread("pipeline-" + stage.name + "-" + i, () -> runStage(stage, lane, next)));
+            }
+        }
+        threads.add(thread("pipeline-sink", this::runSink));
+        for (Thread t : threads) t.start();
+    }
+
+    private Thread thread(String name, Task task) {
+        Thread t = new Thread(() -> {
+            try {
+                task.run();
+            } catch (InterruptedException ex) {
+                if (failure.get() == null) fail(ex);
+            } catch (Throwable ex) {
+                fail(ex);
+            }
+        }, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private void fail(Throwable ex) {
+        if (!failure.compareAndSet(null, ex)) return;
+        stopping = true;
+        for (Thread t : threads) {
+            if (t != Thread.currentThread()) t.interrupt();
+        }
+    }
+
+    private void runSource() throws IOException, InterruptedException {
+        long seq = 0;
+        while (!stopping) {
+            Record record = source.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (record == null) {
+                if (source.isEndOfStream()) break;
+                continue;
+            }
+            received.increment();
+            parse.put(new Item(seq++, record, System.nanoTime()));
+        }
+        parse.end();
+    }
+
+    private void runStage(Stage stage, int lane, Stage next) throws InterruptedException {
+        BlockingQueue<Item> in = stage.queues[lane];
+        Item item;
+        while ((item = in.take()) != END) {
+            if (item.error == null) {
+                try {
+                    stage.step.apply(item);
+                } catch (IOException | RuntimeException ex) {
+                    item.error = ex.getMessage() == null ? ex.toString() : ex.getMessage();
+                    item.payload = null;
+                }
+            }
+            next.put(item);
+        }
+        if (stage.running.decrementAndGet() == 0) next.end();
+    }
+
+    /** Streams the record through the plan's paths, as {@code tryTransform(byte[])} does, without building a tree. */
+    private void parse(Item item) throws IOException {
+        item.payload = plan.resolve(item.record.value);
+    }
+
+    private void transform(Item item) {
+        TransformResult result = plan.tryTransformResolved((JsonNode[]) item.payload, TransformResult.Mode.FAIL_FAST);
+        if (result.isSuccess()) {
+            item.payload = result.output();
+        } else {
+            item.payload = null;
+            item.error = result.violations().get(0).message();
+        }
+    }
+
+    private void serialize(Item item) throws IOException {
+        item.payload = MAPPER.writeValueAsBytes(item.payload);
+    }
+
+    private void runSink() throws IOException, InterruptedException {
+        BlockingQueue<Item> in = output.queues[0];
+        List<Item> batch = new ArrayList<>(batchSize);
+        PriorityQueue<Item> done = new PriorityQueue<>(Comparator.comparingLong((Item i) -> i.seq));
+        long[] next = {0};
+        long deadline = 0;
+        while (true) {
+            Item item = batch.isEmpty() ? in.take() : in.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (item == END) break;
+            if (item != null) {
+                if (batch.isEmpty()) deadline = System.nanoTime() + lingerNanos;
+                batch.add(item);
+            }
+            if (batch.size() >= batchSize || (!batch.isEmpty() && System.nanoTime() - deadline >= 0)) {
+                flush(batch, done, next);
+            }
+        }
+        flush(batch, done, next);
+        finished = System.nanoTime();
+    }
+
+    /**
+     * Writes a batch, then commits the source up to the last offset with no earlier record still in flight.
+     */
+    private void flush(List<Item> batch, PriorityQueue<Item> done, long[] next) throws IOException {
+        if (batch.isEmpty()) return;
+        List<Record> out = new ArrayList<>(batch.size());
+        List<Record> rejected = new ArrayList<>();
+        for (Item item : batch) {
+            if (item.error == null) {
+                out.add(new Record(item.record.key, (byte[]) item.payload, item.record.offset));
+            } else {
+                rejected.add(new Record(item.record.key, error(item), item.record.offset));
+            }
+        }
+        if (!out.isEmpty()) sink.write(out);
+        if (!rejected.isEmpty() && errors != null) errors.write(rejected);
+        long now = System.nanoTime();
+        for (Item item : batch) latency.record(now - item.polled);
+        written.add(out.size());
+        failed.add(rejected.size());
+        batches.increment();
+        done.addAll(batch);
+        batch.clear();
+        long offset = -1;
+        while (!done.isEmpty() && done.peek().seq == next[0]) {
+            offset = done.poll().record.offset;
+            next[0]++;
+        }
+        if (offset >= 0) {
+            source.commit(offset);
+            committed = offset;
+        }
+    }
+
+    private static byte[] error(Item item) throws IOException {
+        ObjectNode error = MAPPER.createObjectNode();
+        error.put("offset", item.record.offset);
+        error.put("error", item.error);
+        error.put("input", new String(item.record.value, StandardCharsets.UTF_8));
+        return MAPPER.writeValueAsBytes(error);
+    }
+
+    /**
+     * @return The most records the pipeline holds at once: every queue full, one per thread and a batch.
+     */
+    public long maxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return Counts, queue depths and latency so far.
+     */
+    public Stats stats() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Stage stage : new Stage[]{parse, transform, serialize, output}) {
+            int depth = 0;
+            for (BlockingQueue<Item> q : stage.queues) depth += q.size();
+            depths.put(stage.name, depth);
+        }
+        long end = finished == 0 ? System.nanoTime() : finished;
+        return new Stats(received.sum(), written.sum(), failed.sum(), batches.sum(), committed,
+                Collections.unmodifiableMap(depths), end - started, latency);
+    }
+
+    /**
+     * Waits until the source has ended and every record has been written.
+     * @return The final statistics.
+     * @throws IOException if a stage failed; records after the last committed offset were not acknowledged.
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    public Stats await() throws IOException, InterruptedException {
+        for (Thread t : threads) t.join();
+        Throwable ex = failure.get();
+        if (ex != null) throw new IOException("Pipeline failed", ex);
+        return stats();
+    }
+
+    /**
+     * Stops polling the source, then drains, writes and commits every record already taken.
+     * @throws IOException if a stage failed.
+     */
+    @Override
+    public void close() throws IOException {
+        stopping = true;
+        try {
+            await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while draining the pipeline");
+        }
+    }
+
+    /**
+     * A keyed record with its source offset, as read from a source or handed to a sink.
+     */
+    public static final class Record {
+        private final String key;
+        private final byte[] value;
+        private final long offset;
+
+        /**
+         * @param key The partition key, or null.
+         * @param value The record's bytes.
+         * @param offset The record's position in its source.
+         */
+        public Record(String key, byte[] value, long offset) {
+            this.key = key;
+            this.value = value;
+            this.offset = offset;
+        }
+
+        /** @return The partition key, or null. */
+        public String key() {
+            return key;
+        }
+
+        /** @return The record's bytes; not copied. */
+        public byte[] value() {
+            return value;
+        }
+
+        /** @return The record's position in its source. */
+        public long offset() {
+            return offset;
+        }
+
+        @Override
+        public String toString() {
+            return offset + "/" + key + ": " + new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Configures and starts a {@link Pipeline}.
+     */
+    public static final class Builder {
+        private final CompiledTransformer plan;
+        private final PipelineSource source;
+        private final PipelineSink sink;
+        private PipelineSink errors;
+        private int parseThreads = 1;
+        private int transformThreads = Runtime.getRuntime().availableProcessors();
+        private int serializeThreads = 1;
+        private int queueCapacity = 1024;
+        private int batchSize = 500;
+        private Duration linger = Duration.ofMillis(100);
+
+        private Builder(CompiledTransformer plan, PipelineSource source, PipelineSink sink) {
+            this.plan = plan;
+            this.source = source;
+            this.sink = sink;
+        }
+
+        /**
+         * @param errors Receives records that failed to parse or transform; not closed. Without one they are dropped.
+         * @return This builder.
+         */
+        public Builder errors(PipelineSink errors) {
+            this.errors = errors;
+            return this;
+        }
+
+        /**
+         * @param threads Threads parsing records.
+         * @return This builder.
+         */
+        public Builder parseThreads(int threads) {
+            this.parseThreads = positive(threads, "parseThreads");
+            return this;
+        }
+
+        /**
+         * @param threads Threads running the plan.
+         * @return This builder.
+         */
+        public Builder transformThreads(int threads) {
+            this.transformThreads = positive(threads, "transformThreads");
+            return this;
+        }
+
+        /**
+         * @param threads Threads serializing outputs.
+         * @return This builder.
+         */
+        public Builder serializeThreads(int threads) {
+            this.serializeThreads = positive(threads, "serializeThreads");
+            return this;
+        }
+
+        /**
+         * @param capacity Records each stage thread's queue holds before its producer blocks.
+         * @return This builder.
+         */
+        public Builder queueCapacity(int capacity) {
+            this.queueCapacity = positive(capacity, "queueCapacity");
+            return this;
+        }
+
+        /**
+         * @param size Most records handed to the sink at once.
+         * @return This builder.
+         */
+        public Builder batchSize(int size) {
+            this.batchSize = positive(size, "batchSize");
+            return this;
+        }
+
+        /**
+         * @param linger Longest a record waits for its batch to fill.
+         * @return This builder.
+         */
+        public Builder linger(Duration linger) {
+            if (linger.isNegative()) throw new IllegalArgumentException("linger must not be negative");
+            this.linger = linger;
+            return this;
+        }
+
+        /**
+         * Starts the pipeline's threads.
+         * @return The running pipeline.
+         */
+        public Pipeline start() {
+            Pipeline pipeline = new Pipeline(this);
+            pipeline.start();
+            return pipeline;
+        }
+
+        private static int positive(int value, String name) {
+            if (value < 1) throw new IllegalArgumentException(name + " must be at least 1");
+            return value;
+        }
+    }
+
+    /**
+     * Counts, queue depths, throughput and end-to-end latency of a pipeline.
+     */
+    public static final class Stats {
+        private final long received;
+        private final long written;
+        private final long failed;
+        private final long batches;
+        private final long committedOffset;
+        private final Map<String, Integer> queueDepths;
+        private final long elapsedNanos;
+        private final LatencyHistogram latency;
+
+        Stats(long received, long written, long failed, long batches, long committedOffset,
+              Map<String, Integer> queueDepths, long elapsedNanos, LatencyHistogram latency) {
+            this.received = received;
+            this.written = written;
+            this.failed = failed;
+            this.batches = batches;
+            this.committedOffset = committedOffset;
+            this.queueDepths = queueDepths;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+        }
+
+        /** @return Records taken from the source. */
+        public long received() {
+            return received;
+        }
+
+        /** @return Records written to the sink. */
+        public long written() {
+            return written;
+        }
+
+        /** @return Records that failed to parse or transform. */
+        public long failed() {
+            return failed;
+        }
+
+        /** @return Batches handed to the sink. */
+        public long batches() {
+            return batches;
+        }
+
+        /** @return Records taken from the source but not yet written. */
+        public long inFlight() {
+            return received - written - failed;
+        }
+
+        /** @return The last offset committed to the source, or -1. */
+        public long committedOffset() {
+            return committedOffset;
+        }
+
+        /** @return Records waiting in each stage's queues, keyed by stage name. */
+        public Map<String, Integer> queueDepths() {
+            return queueDepths;
+        }
+
+        /** @return Time since the pipeline started, or its total run time once it has finished. */
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** @return Records completed per second. */
+        public double eventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (written + failed) * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        /** @return Time from polling each record to its batch being written, in nanoseconds. */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("received=%d ok=%d failed=%d batches=%d committed=%d queues=%s rate=%.0f events/s p50=%.1fus p99=%.1fus",
+                    received, written, failed, batches, committedOffset, queueDepths, eventsPerSecond(),
+                    latency.percentile(50) / 1e3, latency.percentile(99) / 1e3);
+        }
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private interface Step {
+        void apply(Item item) throws IOException;
+    }
+
+    /**
+     * One record on its way through the stages; handed from thread to thread through the queues.
+     */
+    private static final class Item {
+        final long seq;
+        final Record record;
+        final long polled;
+        Object payload;
+        String error;
+
+        Item(long seq, Record record, long polled) {
+            this.seq = seq;
+            this.record = record;
+            this.polled = polled;
+        }
+    }
+
+    /**
+     * A stage's threads, each with its own queue; records are routed to a thread by key.
+     */
+    private static final class Stage {
+        final String name;
+        final BlockingQueue<Item>[] queues;
+        final AtomicInteger running;
+        final Step step;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Stage(String name, int threads, int capacity, Step step) {
+            this.name = name;
+            this.queues = new BlockingQueue[threads];
+            for (int i = 0; i < threads; i++) queues[i] = new ArrayBlockingQueue<>(capacity);
+            this.running = new AtomicInteger(threads);
+            this.step = step;
+        }
+
+        void put(Item item) throws InterruptedException {
+            int lane = 0;
+            if (queues.length > 1) {
+                lane = item.record.key == null
+                        ? (int) (item.seq % queues.length)
+                        : (item.record.key.hashCode() & 0x7fffffff) % queues.length;
+            }
+            queues[lane].put(item);
+        }
+
+        /** Called once every upstream thread has finished. */
+        void end() throws InterruptedException {
+            for (BlockingQueue<Item> q : queues) q.put(END);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.transformer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives batches of transformed records from a {@link Pipeline}. Called from a single thread.
+ */
+public interface PipelineSink extends Closeable {
+    /**
+     * Writes a batch. Records are durable once this returns, since their offsets are committed next.
+     * @param batch The records, in the order they completed; never empty.
+     * @throws IOException if writing fails; the pipeline then stops without committing the batch.
+     */
+    void write(List<Pipeline.Record> batch) throws IOException;
+}
@@ -0,0 +1,35 @@
+package com.example.transformer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A source of keyed records for a {@link Pipeline}, modelled on a Kafka consumer: records carry increasing
+ * offsets, and the pipeline commits an offset once every record up to it has reached the sink.
+ * Polling happens on one thread; {@link #commit(long)} is called from another.
+ */
+public interface PipelineSource extends Closeable {
+    /**
+     * Waits for the next record.
+     * @param timeout How long to wait.
+     * @param unit The unit of the timeout.
+     * @return The next record, or null if none arrived in time or the stream has ended.
+     * @throws IOException if reading fails.
+     * @throws InterruptedException if the polling thread is interrupted.
+     */
+    Pipeline.Record poll(long timeout, TimeUnit unit) throws IOException, InterruptedException;
+
+    /**
+     * @return True once every record has been returned and no more will arrive.
+     */
+    boolean isEndOfStream();
+
+    /**
+     * Acknowledges that every record up to and including the given offset has been written by the sink.
+     * A restarted consumer resumes after the last committed offset.
+     * @param offset The offset of the last completed record.
+     * @throws IOException if the commit cannot be stored.
+     */
+    void commit(long offset) throws IOException;
+}
@@ -0,0 +1,293 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary form of a compiled plan, written by {@link CompiledTransformer#writeSnapshot(OutputStream)} and read
+ * by {@link JsonTransformer#loadSnapshot(InputStream)}. It holds each rule's definition with its required flags
+ * already resolved (so {@code strictSourcesRequired} is applied), the execution order costs, which rules are
+ * validation only, the output key style and the backend. Definitions are stored as tagged binary values and
+ * rebuilt directly as nodes, so loading never runs the JSON parser; operations are bound again on load.
+ * Metrics and caches are runtime state and are not included.
+ * <p>
+ * Format: the magic {@code JTPS}, a version, plan flags, then per rule its output field, flags, cost and definition.
+ * Sizes are varints and every string is written once: later uses, such as a path read by several rules or a
+ * repeated key like {@code sources}, refer back to it by number.
+ */
+final class PlanSnapshot {
+    private static final int MAGIC = 0x4A545053;
+    private static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte DECIMAL = 5;
+    private static final byte TEXT = 6;
+    private static final byte ARRAY = 7;
+    private static final byte OBJECT = 8;
+
+    final String[] fields;
+    final JsonNode[] definitions;
+    /** Rules evaluated only for their required checks, or null if none. */
+    final boolean[] hidden;
+    final double[] costs;
+    final boolean measured;
+    final boolean flat;
+    final CompiledTransformer.Backend backend;
+
+    private PlanSnapshot(String[] fields, JsonNode[] definitions, boolean[] hidden, double[] costs, boolean measured,
+                         boolean flat, CompiledTransformer.Backend backend) {
+        this.fields = fields;
+        this.definitions = definitions;
+        this.hidden = hidden;
+        this.costs = costs;
+        this.measured = measured;
+        this.flat = flat;
+        this.backend = backend;
+    }
+
+    /**
+     * Writes a plan.
+     * @param rules The plan's rules, in config order.
+     * @param hidden Rules left out of the output, or null.
+     * @param order The plan's execution order.
+     * @param flat True if the plan uses {@code flatOutputKeys}.
+     * @param backend The plan's backend.
+     * @param out The stream to write to; it is flushed but not closed.
+     * @throws IOException if writing fails.
+     */
+    static void write(CompiledRule[] rules, boolean[] hidden, ExecutionOrder order, boolean flat,
+                      CompiledTransformer.Backend backend, OutputStream out) throws IOException {
+        Writer data = new Writer(new DataOutputStream(new BufferedOutputStream(out)));
+        data.out.writeInt(MAGIC);
+        data.out.writeShort(VERSION);
+        data.out.writeBoolean(flat);
+        data.out.writeBoolean(order.measured());
+        data.out.writeByte(backend.ordinal());
+        data.size(rules.length);
+        for (int i = 0; i < rules.length; i++) {
+            data.string(rules[i].outputField);
+            data.out.writeBoolean(hidden != null && hidden[i]);
+            data.out.writeDouble(order.cost(i));
+            data.node(resolved(rules[i]));
+        }
+        data.out.flush();
+    }
+
+    /**
+     * Reads a plan written by {@link #write}.
+     * @param in The stream to read from; it is not closed.
+     * @return The snapshot.
+     * @throws IOException if reading fails or the stream does not hold a plan snapshot of this version.
+     */
+    static PlanSnapshot read(InputStream in) throws IOException {
+        Reader data = new Reader(new DataInputStream(in));
+        if (data.in.readInt() != MAGIC) throw new StreamCorruptedException("Not a plan snapshot");
+        int version = data.in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported plan snapshot version " + version + "; expected " + VERSION);
+        }
+        boolean flat = data.in.readBoolean();
+        boolean measured = data.in.readBoolean();
+        int backend = data.in.readUnsignedByte();
+        if (backend >= CompiledTransformer.Backend.values().length) throw corrupt();
+        int count = data.size();
+        String[] fields = new String[count];
+        JsonNode[] definitions = new JsonNode[count];
+        boolean[] hidden = new boolean[count];
+        boolean anyHidden = false;
+        double[] costs = new double[count];
+        for (int i = 0; i < count; i++) {
+            fields[i] = data.string();
+            hidden[i] = data.in.readBoolean();
+            anyHidden |= hidden[i];
+            costs[i] = data.in.readDouble();
+            definitions[i] = data.node();
+            if (!definitions[i].isObject()) throw corrupt();
+        }
+        return new PlanSnapshot(fields, definitions, anyHidden ? hidden : null, costs, measured, flat,
+                CompiledTransformer.Backend.values()[backend]);
+    }
+
+    /** @return The rule's definition with the required source flags the plan actually applies. */
+    private static JsonNode resolved(CompiledRule rule) {
+        if (!(rule instanceof CompiledRule.OperationRule)) return rule.definition;
+        boolean[] flags = ((CompiledRule.OperationRule) rule).requiredSources;
+        ObjectNode copy = ((ObjectNode) rule.definition).deepCopy();
+        ArrayNode array = copy.putArray("requiredSources");
+        for (boolean flag : flags) array.add(flag);
+        return copy;
+    }
+
+    /** Writes varints, strings through the string table, and tagged nodes. */
+    private static final class Writer {
+        final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void size(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        /** Writes 0 and the text for a new string, or 1 + its number for one written before. */
+        void string(String value) throws IOException {
+            Integer known = strings.get(value);
+            if (known != null) {
+                size(known + 1);
+                return;
+            }
+            strings.put(value, strings.size());
+            size(0);
+            out.writeUTF(value);
+        }
+
+        void node(JsonNode node) throws IOException {
+            if (node == null || node.isNull() || node.isMissingNode()) {
+                out.writeByte(NULL);
+            } else if (node.isBoolean()) {
+                out.writeByte(node.booleanValue() ? TRUE : FALSE);
+            } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+                out.writeByte(LONG);
+                out.writeLong(node.longValue());
+            } else if (node.isDouble() || node.isFloat()) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(node.doubleValue());
+            } else if (node.isNumber()) {
+                out.writeByte(DECIMAL);
+                string(node.decimalValue().toString());
+            } else if (node.isArray()) {
+                out.writeByte(ARRAY);
+                size(node.size());
+                for (JsonNode element : node) node(element);
+            } else if (node.isObject()) {
+                out.writeByte(OBJECT);
+                size(node.size());
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    string(field.getKey());
+                    node(field.getValue());
+                }
+            } else {
+                out.writeByte(TEXT);
+                string(node.asText());
+            }
+        }
+    }
+
+    /** Reads what {@link Writer} wrote. */
+    private static final class Reader {
+        final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        int size() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) throw corrupt();
+                    return value;
+                }
+            }
+            throw corrupt();
+        }
+
+        String string() throws IOException {
+            int ref = size();
+            if (ref == 0) {
+                String value = in.readUTF();
+                strings.add(value);
+                return value;
+            }
+            if (ref > strings.size()) throw corrupt();
+            return strings.get(ref - 1);
+        }
+
+        JsonNode node() throws IOException {
+            JsonNodeFactory nodes = JsonNodeFactory.instance;
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL: return nodes.nullNode();
+                case TRUE: return nodes.booleanNode(true);
+                case FALSE: return nodes.booleanNode(false);
+                case LONG: {
+                    long value = in.readLong();
+                    return value == (int) value ? nodes.numberNode((int) value) : nodes.numberNode(value);
+                }
+                case DOUBLE: return nodes.numberNode(in.readDouble());
+                case DECIMAL: return nodes.numberNode(new BigDecimal(string()));
+                case TEXT: return nodes.textNode(string());
+                case ARRAY: {
+                    int size = size();
+                    ArrayNode array = nodes.arrayNode(Math.min(size, 64));
+                    for (int i = 0; i < size; i++) array.add(node());
+                    return array;
+                }
+                case OBJECT: {
+                    int size = size();
+                    ObjectNode object = nodes.objectNode();
+                    for (int i = 0; i < size; i++) object.set(string(), node());
+                    return object;
+                }
+                default:
+                    throw corrupt();
+            }
+        }
+    }
+
+    private static StreamCorruptedException corrupt() {
+        return new StreamCorruptedException("Corrupt plan snapshot");
+    }
+
+    /**
+     * Compiles a config and writes its plan snapshot, e.g. as a build step so services can start from the snapshot.
+     * Usage: {@code snapshot <config.json> <plan.snapshot> [generated]}.
+     * @param args The config file, the snapshot file, and optionally {@code generated} for the generated backend.
+     * @throws Exception if the config cannot be read or compiled, or the snapshot cannot be written.
+     */
+    static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: snapshot <config.json> <plan.snapshot> [generated]");
+            System.exit(2);
+        }
+        CompiledTransformer plan = JsonTransformer.compile(new ObjectMapper().readTree(new File(args[0])));
+        if (args.length > 2 && "generated".equals(args[2])) plan = plan.withBackend(CompiledTransformer.Backend.GENERATED);
+        try (OutputStream out = new FileOutputStream(args[1])) {
+            plan.writeSnapshot(out);
+        }
+        System.out.println("Wrote " + plan.outputFields().size() + " rules to " + args[1]);
+    }
+}
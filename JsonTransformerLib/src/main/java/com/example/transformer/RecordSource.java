@@ -0,0 +1,24 @@
+package com.example.transformer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A sequential source of raw JSON records, such as the lines of an NDJSON file.
+ * Records are handed out as byte slices so they can be parsed without decoding to a String.
+ */
+public interface RecordSource extends Closeable {
+    /**
+     * Reads the next record.
+     * @return The record's bytes between position and limit, or null at end of input.
+     *         The buffer stays valid after later calls.
+     * @throws IOException if reading fails.
+     */
+    ByteBuffer nextRecord() throws IOException;
+
+    /**
+     * @return The line number of the record last returned by {@link #nextRecord()}.
+     */
+    long lineNumber();
+}
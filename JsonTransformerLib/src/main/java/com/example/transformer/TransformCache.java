@@ -0,0 +1,318 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * An opt-in memoization cache for a compiled plan, for streams where retries and duplicate deliveries
+ * repeat the same values on every field the config reads.
+ * <p>
+ * The key is a 64-bit hash of only the values the plan resolved for an event, so events that differ in
+ * unreferenced fields (timestamps, attributes) share an entry. On a hit the stored rule values, or the
+ * stored violations, are returned without running any operation; hash collisions are ruled out by
+ * comparing the stored values. Entries expire after a TTL and are evicted second-chance (CLOCK) order
+ * once the entry limit or the estimated memory budget is exceeded. Safe for concurrent use.
+ * <p>
+ * Attach with {@link CompiledTransformer#withCache(TransformCache)}. A cache holds values of one plan's
+ * slot layout, so it can only be shared by plans derived from the same compiled config. Cached output
+ * values are shared between hits and must not be mutated.
+ */
+public final class TransformCache {
+    /** Rough fixed cost of one entry: key, entry, map node and queue node. */
+    private static final long ENTRY_OVERHEAD = 160;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long maxBytes;
+    private final LongSupplier clock;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Key> order = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evicting = new ReentrantLock();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private volatile Object owner;
+
+    /**
+     * @param maxEntries Maximum number of cached events.
+     * @param ttl How long an entry stays valid after it is computed.
+     * @param maxBytes Budget for the estimated heap held by the cache, including the input values it retains.
+     */
+    public TransformCache(int maxEntries, Duration ttl, long maxBytes) {
+        this(maxEntries, ttl, maxBytes, System::nanoTime);
+    }
+
+    TransformCache(int maxEntries, Duration ttl, long maxBytes, LongSupplier clock) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be at least 1");
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive");
+        if (maxBytes < 1) throw new IllegalArgumentException("maxBytes must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * Binds the cache to a plan's rules; plans derived with {@code withMetrics} or {@code withBackend} share them.
+     */
+    void bind(Object rules) {
+        synchronized (this) {
+            if (owner == null) owner = rules;
+        }
+        if (owner != rules) {
+            throw new IllegalStateException("A TransformCache can only be used by plans compiled from the same config");
+        }
+    }
+
+    /**
+     * Returns the cached outcome for the resolved values, computing and storing it on a miss.
+     * @param slots The event's resolved values.
+     * @param violations Receives the cached or computed violations, honouring its fail-fast mode.
+     * @param compute Evaluates the rules; called with a collect-all collector so every violation is cached.
+     * @param failFast Picks, from every violation in config order, the one fail-fast evaluation stops at.
+     * @return The rule values; not to be modified.
+     */
+    JsonNode[] lookup(JsonNode[] slots, ViolationCollector violations, Computation compute,
+                      Function<List<TransformResult.Violation>, TransformResult.Violation> failFast) {
+        long hash = hash(slots);
+        long now = clock.getAsLong();
+        Key probe = new Key(hash, slots);
+        Entry entry = entries.get(probe);
+        if (entry != null) {
+            if (now - entry.created < ttlNanos) {
+                hits.increment();
+                if (!entry.referenced) entry.referenced = true;
+                return replay(entry, violations);
+            }
+            if (entries.remove(probe, entry)) {
+                release(entry);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        ViolationCollector all = violations.collectAll();
+        JsonNode[] values = compute.evaluate(slots, all);
+        // An abandoned call stops part way through, so what it computed is incomplete.
+        if (all.cancelled()) return values;
+        List<TransformResult.Violation> found = all.isEmpty() ? Collections.emptyList() : all.violations();
+        Key key = new Key(hash, slots.clone());
+        entry = new Entry(values, found, found.isEmpty() ? null : failFast.apply(found), now,
+                estimate(key.values) + estimate(values) + ENTRY_OVERHEAD + 64L * found.size());
+        if (entry.bytes <= maxBytes && entries.putIfAbsent(key, entry) == null) {
+            order.add(key);
+            count.incrementAndGet();
+            bytes.addAndGet(entry.bytes);
+            evict(now);
+        }
+        return replay(entry, violations);
+    }
+
+    private static JsonNode[] replay(Entry entry, ViolationCollector violations) {
+        if (violations.failFast) {
+            if (entry.failFast != null) violations.add(entry.failFast);
+        } else {
+            for (TransformResult.Violation violation : entry.violations) violations.add(violation);
+        }
+        return entry.values;
+    }
+
+    private void release(Entry entry) {
+        count.decrementAndGet();
+        bytes.addAndGet(-entry.bytes);
+    }
+
+    /**
+     * Second-chance eviction, run by one inserting thread at a time: expired entries go first,
+     * entries hit since the hand last passed them are skipped once.
+     */
+    private void evict(long now) {
+        if (!evicting.tryLock()) return;
+        try {
+            int passes = 0;
+            while ((count.get() > maxEntries || bytes.get() > maxBytes) && passes++ < 2 * maxEntries + 16) {
+                Key key = order.poll();
+                if (key == null) break;
+                Entry entry = entries.get(key);
+                if (entry == null) continue;
+                boolean expired = now - entry.created >= ttlNanos;
+                if (entry.referenced && !expired) {
+                    entry.referenced = false;
+                    order.add(key);
+                } else if (entries.remove(key, entry)) {
+                    release(entry);
+                    if (expired) expirations.increment(); else evictions.increment();
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry. Statistics are kept.
+     */
+    public void clear() {
+        evicting.lock();
+        try {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next().getValue();
+                it.remove();
+                release(entry);
+            }
+            order.clear();
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    /** @return Lookups answered from the cache. */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** @return Lookups that ran the rules, including ones whose entry had expired. */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** @return Entries removed to stay within the entry limit or memory budget. */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** @return Entries removed because their TTL had passed. */
+    public long expirations() {
+        return expirations.sum();
+    }
+
+    /** @return Hits divided by lookups, or 0 before the first lookup. */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /** @return The number of cached events. */
+    public long size() {
+        return count.get();
+    }
+
+    /** @return The estimated heap held by cached entries, in bytes. */
+    public long estimatedBytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransformCache[size=%d bytes=%d hits=%d misses=%d evictions=%d expirations=%d]",
+                size(), estimatedBytes(), hits(), misses(), evictions(), expirations());
+    }
+
+    /**
+     * Mixes the hash codes of the resolved values into 64 bits. Missing values hash differently from JSON null.
+     */
+    static long hash(JsonNode[] slots) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (JsonNode value : slots) {
+            h = Long.rotateLeft(h ^ (value == null ? 0x5bd1e995L : value.hashCode()), 27) * 0xC2B2AE3D27D4EB4FL;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Rough retained size of JSON values: enough to keep the cache within its budget, not an exact measure.
+     */
+    static long estimate(JsonNode[] values) {
+        long size = 16 + 8L * values.length;
+        for (JsonNode value : values) {
+            if (value != null) size += estimate(value);
+        }
+        return size;
+    }
+
+    private static long estimate(JsonNode node) {
+        if (node.isTextual()) return 56 + node.textValue().length();
+        if (node.isContainerNode()) {
+            long size = 64;
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                size += 48 + field.getKey().length() + estimate(field.getValue());
+            }
+            if (node.isArray()) {
+                for (JsonNode element : node) size += 8 + estimate(element);
+            }
+            return size;
+        }
+        return 24;
+    }
+
+    /**
+     * Evaluates a plan's rules; supplied by the plan on a miss.
+     */
+    interface Computation {
+        JsonNode[] evaluate(JsonNode[] slots, ViolationCollector violations);
+    }
+
+    private static final class Key {
+        final long hash;
+        final JsonNode[] values;
+
+        Key(long hash, JsonNode[] values) {
+            this.hash = hash;
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    private static final class Entry {
+        final JsonNode[] values;
+        /** Every violation, in config order. */
+        final List<TransformResult.Violation> violations;
+        /** The violation fail-fast evaluation stops at, in execution order; null if there are none. */
+        final TransformResult.Violation failFast;
+        final long created;
+        final long bytes;
+        /** Set on hits; read and cleared by eviction. */
+        volatile boolean referenced;
+
+        Entry(JsonNode[] values, List<TransformResult.Violation> violations, TransformResult.Violation failFast,
+              long created, long bytes) {
+            this.values = values;
+            this.violations = violations;
+            this.failFast = failFast;
+            this.created = created;
+            this.bytes = bytes;
+        }
+    }
+}
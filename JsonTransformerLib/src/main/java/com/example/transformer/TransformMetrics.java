@@ -0,0 +1,365 @@
+package com.example.transformer;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Optional per-field and per-operation instrumentation for compiled plans.
+ * <p>
+ * For each output field it records evaluation time, how often each source path was missing or empty,
+ * and required-field failures by reason; for each operation type it records calls and time. Counters
+ * are {@link LongAdder}s and timings go into {@link LatencyHistogram}s, so recording never locks.
+ * Attach it with {@link CompiledTransformer#withMetrics(TransformMetrics)}; plans without metrics pay a
+ * single null check per event. One instance may be shared by several plans, for example across config
+ * reloads: fields and operations are keyed by name.
+ */
+public final class TransformMetrics {
+    private final LongAdder events = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, Field> fields = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+
+    Field field(String name) {
+        return fields.computeIfAbsent(name, n -> new Field());
+    }
+
+    LatencyHistogram operation(String name) {
+        return operations.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    void recordEvent(boolean accepted) {
+        events.increment();
+        if (!accepted) rejected.increment();
+    }
+
+    /**
+     * @return A point-in-time copy of every counter and timing.
+     */
+    public Snapshot snapshot() {
+        Map<String, FieldSnapshot> fieldSnapshots = new TreeMap<>();
+        for (Map.Entry<String, Field> e : fields.entrySet()) {
+            fieldSnapshots.put(e.getKey(), e.getValue().snapshot());
+        }
+        Map<String, Timing> operationSnapshots = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> e : operations.entrySet()) {
+            operationSnapshots.put(e.getKey(), new Timing(e.getValue()));
+        }
+        return new Snapshot(events.sum(), rejected.sum(), fieldSnapshots, operationSnapshots);
+    }
+
+    /**
+     * Clears every counter and timing. Plans keep recording into the same metrics.
+     */
+    public void reset() {
+        events.reset();
+        rejected.reset();
+        fields.values().forEach(Field::reset);
+        operations.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as
+     * {@code com.example.transformer:type=TransformMetrics,name=<name>}.
+     * @param name The name to register under, e.g. the config or tenant name.
+     * @return The registered object name, for {@link #unregister(ObjectName)}.
+     * @throws JMException if the name is invalid or already registered.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.example.transformer:type=TransformMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Jmx(this), objectName);
+        return objectName;
+    }
+
+    /**
+     * Removes a registration made by {@link #register(String)}.
+     * @param name The object name returned by {@link #register(String)}.
+     * @throws JMException if the name is not registered.
+     */
+    public static void unregister(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+
+    /**
+     * Live counters for one output field.
+     */
+    static final class Field {
+        final LatencyHistogram time = new LatencyHistogram();
+        private final Map<String, LongAdder> misses = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> empties = new ConcurrentHashMap<>();
+        private final LongAdder[] failures = new LongAdder[TransformResult.Reason.values().length];
+
+        Field() {
+            for (int i = 0; i < failures.length; i++) failures[i] = new LongAdder();
+        }
+
+        LongAdder misses(String path) {
+            return misses.computeIfAbsent(path, p -> new LongAdder());
+        }
+
+        LongAdder empties(String path) {
+            return empties.computeIfAbsent(path, p -> new LongAdder());
+        }
+
+        LongAdder failures(TransformResult.Reason reason) {
+            return failures[reason.ordinal()];
+        }
+
+        FieldSnapshot snapshot() {
+            Map<TransformResult.Reason, Long> byReason = new EnumMap<>(TransformResult.Reason.class);
+            for (TransformResult.Reason reason : TransformResult.Reason.values()) {
+                byReason.put(reason, failures[reason.ordinal()].sum());
+            }
+            return new FieldSnapshot(new Timing(time), sums(misses), sums(empties), byReason);
+        }
+
+        void reset() {
+            time.reset();
+            misses.values().forEach(LongAdder::reset);
+            empties.values().forEach(LongAdder::reset);
+            for (LongAdder failure : failures) failure.reset();
+        }
+
+        private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+            Map<String, Long> sums = new TreeMap<>();
+            counters.forEach((path, count) -> sums.put(path, count.sum()));
+            return sums;
+        }
+    }
+
+    /**
+     * A plan's rule bound to its counters, so the hot path indexes arrays instead of looking up names.
+     */
+    static final class RuleMetrics {
+        final LatencyHistogram time;
+        final LatencyHistogram operation;
+        final int[] slots;
+        final LongAdder[] misses;
+        final LongAdder[] empties;
+        final Field field;
+
+        RuleMetrics(TransformMetrics metrics, CompiledRule rule) {
+            this.field = metrics.field(rule.outputField);
+            this.time = field.time;
+            this.operation = metrics.operation(rule.operation());
+            List<String> paths = rule.inputPaths();
+            this.slots = rule.inputSlots();
+            this.misses = new LongAdder[slots.length];
+            this.empties = new LongAdder[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                misses[i] = field.misses(paths.get(i));
+                empties[i] = field.empties(paths.get(i));
+            }
+        }
+    }
+
+    /**
+     * Count, mean and percentiles of a timing, in nanoseconds.
+     */
+    public static final class Timing {
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p99;
+
+        Timing(LatencyHistogram histogram) {
+            this.count = histogram.count();
+            this.mean = histogram.mean();
+            this.p50 = histogram.percentile(50);
+            this.p99 = histogram.percentile(99);
+        }
+
+        /** @return Number of recorded calls. */
+        public long count() {
+            return count;
+        }
+
+        /** @return Mean time in nanoseconds. */
+        public double mean() {
+            return mean;
+        }
+
+        /** @return Median time in nanoseconds (bucket upper bound). */
+        public long p50() {
+            return p50;
+        }
+
+        /** @return 99th percentile time in nanoseconds (bucket upper bound). */
+        public long p99() {
+            return p99;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.0fns p50=%dns p99=%dns", count, mean, p50, p99);
+        }
+    }
+
+    /**
+     * Counters for one output field.
+     */
+    public static final class FieldSnapshot {
+        private final Timing time;
+        private final Map<String, Long> misses;
+        private final Map<String, Long> empties;
+        private final Map<TransformResult.Reason, Long> failures;
+
+        FieldSnapshot(Timing time, Map<String, Long> misses, Map<String, Long> empties,
+                      Map<TransformResult.Reason, Long> failures) {
+            this.time = time;
+            this.misses = Collections.unmodifiableMap(misses);
+            this.empties = Collections.unmodifiableMap(empties);
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        /** @return Evaluation time of the field's rule. */
+        public Timing time() {
+            return time;
+        }
+
+        /** @return How often each source or score path was absent from the event. */
+        public Map<String, Long> misses() {
+            return misses;
+        }
+
+        /** @return How often each source or score path was present but null or empty. */
+        public Map<String, Long> empties() {
+            return empties;
+        }
+
+        /** @return Required-field violations raised by this field's rule, by reason. */
+        public Map<TransformResult.Reason, Long> failures() {
+            return failures;
+        }
+    }
+
+    /**
+     * A point-in-time copy of the metrics.
+     */
+    public static final class Snapshot {
+        private final long events;
+        private final long rejected;
+        private final Map<String, FieldSnapshot> fields;
+        private final Map<String, Timing> operations;
+
+        Snapshot(long events, long rejected, Map<String, FieldSnapshot> fields, Map<String, Timing> operations) {
+            this.events = events;
+            this.rejected = rejected;
+            this.fields = Collections.unmodifiableMap(fields);
+            this.operations = Collections.unmodifiableMap(operations);
+        }
+
+        /** @return Number of events evaluated. */
+        public long events() {
+            return events;
+        }
+
+        /** @return Number of events rejected by a required-field violation. */
+        public long rejected() {
+            return rejected;
+        }
+
+        /** @return Per-field counters, by output field name. */
+        public Map<String, FieldSnapshot> fields() {
+            return fields;
+        }
+
+        /** @return Per-operation timings, by operation name ({@code source} for direct mappings). */
+        public Map<String, Timing> operations() {
+            return operations;
+        }
+    }
+
+    /**
+     * JMX view of the metrics; flattens the snapshot into maps of simple values.
+     */
+    private static final class Jmx implements TransformMetricsMXBean {
+        private final TransformMetrics metrics;
+
+        Jmx(TransformMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public long getEvents() {
+            return metrics.events.sum();
+        }
+
+        @Override
+        public long getRejected() {
+            return metrics.rejected.sum();
+        }
+
+        @Override
+        public Map<String, Long> getFieldCalls() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            metrics.snapshot().fields().forEach((field, s) -> values.put(field, s.time().count()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Double> getFieldMeanNanos() {
+            Map<String, Double> values = new LinkedHashMap<>();
+            metrics.snapshot().fields().forEach((field, s) -> values.put(field, s.time().mean()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getFieldP99Nanos() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            metrics.snapshot().fields().forEach((field, s) -> values.put(field, s.time().p99()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getSourceMisses() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            metrics.snapshot().fields().forEach((field, s) ->
+                    s.misses().forEach((path, n) -> values.put(field + " " + path, n)));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getSourceEmpties() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            metrics.snapshot().fields().forEach((field, s) ->
+                    s.empties().forEach((path, n) -> values.put(field + " " + path, n)));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getRequiredFailures() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            metrics.snapshot().fields().forEach((field, s) ->
+                    s.failures().forEach((reason, n) -> values.put(field + " " + reason, n)));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getOperationCalls() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            metrics.snapshot().operations().forEach((op, t) -> values.put(op, t.count()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Double> getOperationMeanNanos() {
+            Map<String, Double> values = new LinkedHashMap<>();
+            metrics.snapshot().operations().forEach((op, t) -> values.put(op, t.mean()));
+            return values;
+        }
+
+        @Override
+        public void reset() {
+            metrics.reset();
+        }
+    }
+}
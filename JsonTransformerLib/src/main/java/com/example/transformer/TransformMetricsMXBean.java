@@ -0,0 +1,42 @@
+package com.example.transformer;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link TransformMetrics}, registered with {@link TransformMetrics#register(String)}.
+ * Per-source keys are {@code "<field> <path>"} and per-reason keys are {@code "<field> <reason>"}.
+ */
+public interface TransformMetricsMXBean {
+    /** @return Number of events evaluated. */
+    long getEvents();
+
+    /** @return Number of events rejected by a required-field violation. */
+    long getRejected();
+
+    /** @return Rule evaluations per output field. */
+    Map<String, Long> getFieldCalls();
+
+    /** @return Mean rule evaluation time per output field, in nanoseconds. */
+    Map<String, Double> getFieldMeanNanos();
+
+    /** @return 99th percentile rule evaluation time per output field, in nanoseconds. */
+    Map<String, Long> getFieldP99Nanos();
+
+    /** @return Missing-value counts per field and source path. */
+    Map<String, Long> getSourceMisses();
+
+    /** @return Null-or-empty counts per field and source path. */
+    Map<String, Long> getSourceEmpties();
+
+    /** @return Required-field failures per field and reason. */
+    Map<String, Long> getRequiredFailures();
+
+    /** @return Calls per operation type. */
+    Map<String, Long> getOperationCalls();
+
+    /** @return Mean time per operation type, in nanoseconds. */
+    Map<String, Double> getOperationMeanNanos();
+
+    /** Clears every counter and timing. */
+    void reset();
+}
@@ -0,0 +1,121 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of {@link CompiledTransformer#tryTransform(JsonNode, TransformResult.Mode)}: either the
+ * output or the list of required-field violations. Rejections are reported as values rather than
+ * exceptions, so no stack trace is captured and no message is built unless {@link Violation#message()}
+ * is called.
+ */
+public final class TransformResult {
+    private final JsonNode output;
+    private final List<Violation> violations;
+
+    private TransformResult(JsonNode output, List<Violation> violations) {
+        this.output = output;
+        this.violations = violations;
+    }
+
+    static TransformResult success(JsonNode output) {
+        return new TransformResult(output, Collections.emptyList());
+    }
+
+    static TransformResult failure(List<Violation> violations) {
+        return new TransformResult(null, Collections.unmodifiableList(violations));
+    }
+
+    /**
+     * @return True if every required field, source and score was present.
+     */
+    public boolean isSuccess() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * @return The transformed output, or null if the event was rejected.
+     */
+    public JsonNode output() {
+        return output;
+    }
+
+    /**
+     * @return The violations, in evaluation order; empty on success.
+     */
+    public List<Violation> violations() {
+        return violations;
+    }
+
+    /**
+     * How many violations to report for a rejected event.
+     */
+    public enum Mode {
+        /** Stop at the first violation, like the throwing {@code transform}. */
+        FAIL_FAST,
+        /** Evaluate every rule and report all violations. */
+        COLLECT_ALL
+    }
+
+    /**
+     * Why a required value was rejected.
+     */
+    public enum Reason {
+        /** The output field itself is required and evaluated to null or empty. */
+        FIELD_EMPTY,
+        /** A source marked in {@code requiredSources} is null or empty. */
+        SOURCE_EMPTY,
+        /** A score marked in {@code requiredScores} is null or empty. */
+        SCORE_EMPTY
+    }
+
+    /**
+     * A single required-field violation.
+     */
+    public static final class Violation {
+        private final String field;
+        private final String path;
+        private final Reason reason;
+
+        Violation(String field, String path, Reason reason) {
+            this.field = field;
+            this.path = path;
+            this.reason = reason;
+        }
+
+        /** @return The output field whose rule was violated. */
+        public String field() {
+            return field;
+        }
+
+        /** @return The input path that was null or empty, or null if the violation is not tied to one path. */
+        public String path() {
+            return path;
+        }
+
+        /** @return The reason code. */
+        public Reason reason() {
+            return reason;
+        }
+
+        /**
+         * @return The same message the throwing {@code transform} uses for this violation.
+         */
+        public String message() {
+            switch (reason) {
+                case SOURCE_EMPTY:
+                    return field + ": required source '" + path + "' defined in the config mapping is null or empty";
+                case SCORE_EMPTY:
+                    return field + ": required score '" + path + "' defined in the config mapping is null or empty";
+                default:
+                    return field + " defined in the config mapping is null or empty";
+            }
+        }
+
+        @Override
+        public String toString() {
+            return message();
+        }
+    }
+}
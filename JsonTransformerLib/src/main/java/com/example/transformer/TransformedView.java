@@ -0,0 +1,127 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lazy view of one event's output, created by {@link CompiledTransformer#view(JsonNode)}.
+ * Each field is evaluated the first time it is read and memoized; only the input paths that field uses are
+ * looked up, and only its required checks run. {@link #result()} evaluates the remaining fields and validates
+ * the whole event. Views always use the interpreter and record no metrics. Not thread-safe.
+ */
+public final class TransformedView {
+    private static final byte PENDING = 0;
+    private static final byte DONE = 1;
+    private static final byte REJECTED = 2;
+
+    private final CompiledRule[] rules;
+    private final PathTrie paths;
+    private final boolean[] hidden;
+    private final OutputTemplate output;
+    /** The plan's fail-fast execution order. */
+    private final int[] order;
+    private final JsonNode input;
+    private final JsonNode[] slots;
+    private final boolean[] resolved;
+    private final JsonNode[] values;
+    private final byte[] state;
+    private final TransformResult.Violation[] violations;
+    private Map<String, Integer> index;
+
+    TransformedView(CompiledRule[] rules, PathTrie paths, boolean[] hidden, OutputTemplate output, int[] order,
+                    JsonNode input) {
+        this.rules = rules;
+        this.paths = paths;
+        this.hidden = hidden;
+        this.output = output;
+        this.order = order;
+        this.input = input;
+        this.slots = new JsonNode[paths.slotCount()];
+        this.resolved = new boolean[slots.length];
+        this.values = new JsonNode[rules.length];
+        this.state = new byte[rules.length];
+        this.violations = new TransformResult.Violation[rules.length];
+    }
+
+    /**
+     * Returns a field's value, evaluating it on first access.
+     * @param field The output field.
+     * @return The value, or null if the field is omitted from the output.
+     * @throws IllegalArgumentException if the plan does not produce the field.
+     * @throws RuntimeException if the field fails a required check.
+     */
+    public JsonNode get(String field) {
+        int i = indexOf(field);
+        if (evaluate(i) == REJECTED) throw new RuntimeException(violations[i].message());
+        return values[i];
+    }
+
+    /**
+     * @param field The output field.
+     * @return True if the field is present in the output; false if it is omitted or fails a required check.
+     * @throws IllegalArgumentException if the plan does not produce the field.
+     */
+    public boolean has(String field) {
+        int i = indexOf(field);
+        return evaluate(i) == DONE && values[i] != null;
+    }
+
+    /**
+     * @return The output fields the plan produces, in config order.
+     */
+    public List<String> fieldNames() {
+        List<String> names = new ArrayList<>(rules.length);
+        for (int i = 0; i < rules.length; i++) {
+            if (hidden == null || !hidden[i]) names.add(rules[i].outputField);
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Evaluates every field not read yet and validates the whole event, stopping at the first violation
+     * in the plan's execution order (required checks cheapest first), like {@link CompiledTransformer#tryTransform(JsonNode)}.
+     * @return The complete output, or the first violation.
+     */
+    public TransformResult result() {
+        for (int i : order) {
+            if (evaluate(i) == REJECTED) return TransformResult.failure(Collections.singletonList(violations[i]));
+        }
+        return TransformResult.success(output.toObject(values));
+    }
+
+    private byte evaluate(int i) {
+        if (state[i] != PENDING) return state[i];
+        CompiledRule rule = rules[i];
+        for (int slot : rule.inputSlots()) {
+            if (!resolved[slot]) {
+                slots[slot] = input == null ? null : paths.pathAt(slot).evaluate(input);
+                resolved[slot] = true;
+            }
+        }
+        ViolationCollector collector = new ViolationCollector(TransformResult.Mode.FAIL_FAST);
+        values[i] = rule.evaluate(slots, collector);
+        if (collector.isEmpty()) {
+            state[i] = DONE;
+        } else {
+            violations[i] = collector.first();
+            state[i] = REJECTED;
+        }
+        return state[i];
+    }
+
+    private int indexOf(String field) {
+        if (index == null) {
+            index = new HashMap<>();
+            for (int i = 0; i < rules.length; i++) {
+                if (hidden == null || !hidden[i]) index.putIfAbsent(rules[i].outputField, i);
+            }
+        }
+        Integer i = index.get(field);
+        if (i == null) throw new IllegalArgumentException("Unknown output field '" + field + "'; available: " + fieldNames());
+        return i;
+    }
+}
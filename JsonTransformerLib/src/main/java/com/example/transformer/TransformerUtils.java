@@ -10,31 +10,20 @@ import java.util.Iterator;
  * Includes helpers for path navigation, concatenation, comparison, and emptiness checks.
  */
 public class TransformerUtils {
+    private static final int BUILDER_CAPACITY = 128;
+    private static final int MAX_POOLED_BUILDER = 4096;
+    private static final ThreadLocal<StringBuilder> BUILDERS = ThreadLocal.withInitial(() -> new StringBuilder(BUILDER_CAPACITY));
+
     /**
      * Gets a nested value from a JsonNode by a dot/bracket path (e.g., a.b[0].c).
+     * The path is parsed once and cached; see {@link JsonPath#of(String)}. Empty segments are accepted:
+     * {@code a.} reads {@code a}, and {@code a..b} finds nothing.
      * @param node The root JsonNode.
      * @param path The dot/bracket path string.
      * @return The value at the path, or null if not found.
      */
     public static JsonNode getValueByPath(JsonNode node, String path) {
-        String[] parts = path.split("\\.");
-        JsonNode current = node;
-        for (String part : parts) {
-            if (current == null) return null;
-            if (part.contains("[")) {
-                String field = part.substring(0, part.indexOf('['));
-                int idx = Integer.parseInt(part.substring(part.indexOf('[') + 1, part.indexOf(']')));
-                current = current.path(field);
-                if (current.isArray() && current.size() > idx) {
-                    current = current.get(idx);
-                } else {
-                    return null;
-                }
-            } else {
-                current = current.path(part);
-            }
-        }
-        return current.isMissingNode() ? null : current;
+        return JsonPath.of(path).evaluate(node);
     }
 
     /**
@@ -58,20 +47,16 @@ public class TransformerUtils {
 
     /**
      * Concatenates the values of multiple fields from a JsonNode, separated by sep.
-     * Skips empty or missing fields.
+     * Skips empty or missing fields; a wildcard or filter path contributes every value it reaches.
      * @param node The root JsonNode.
      * @param fields List of field paths to concatenate.
      * @param sep Separator string.
      * @return The concatenated string.
      */
     public static String concatenateFields(JsonNode node, List<String> fields, String sep) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = builder();
         for (String fieldPath : fields) {
-            JsonNode val = getValueByPath(node, fieldPath);
-            if (val != null && !isEmpty(val)) {
-                if (sb.length() > 0) sb.append(sep);
-                sb.append(val.asText());
-            }
+            OperationsUtils.append(sb, getValueByPath(node, fieldPath), sep);
         }
         return sb.toString();
     }
@@ -91,17 +76,47 @@ public class TransformerUtils {
 
     /**
      * Checks if a JsonNode is empty (null, empty string, empty array, or empty object).
+     * The values of a wildcard or filter path are empty if every value it reached is.
      * @param value The JsonNode to check.
      * @return True if empty, false otherwise.
      */
     public static boolean isEmpty(JsonNode value) {
         if (value == null || value.isNull()) return true;
-        if (value.isTextual() && value.asText().trim().isEmpty()) return true;
+        if (value instanceof FanOutNode) return isArrayAllEmpty(value);
+        if (value.isTextual() && isBlank(value.textValue())) return true;
         if (value.isArray() && value.size() == 0) return true;
         if (value.isObject() && !value.fieldNames().hasNext()) return true;
         return false;
     }
 
+    /**
+     * Checks if text is empty or only whitespace, as {@code trim().isEmpty()} would, without copying it.
+     * @param text The text to check.
+     * @return True if every character is whitespace or a control character.
+     */
+    public static boolean isBlank(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            if (text.charAt(i) > ' ') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns this thread's reusable builder, emptied. Callers must finish with it (usually with
+     * {@code toString()}) before anything else on the same thread can call this again. Builders that grew
+     * past a few KB are dropped rather than kept for the life of the thread.
+     * @return An empty StringBuilder.
+     */
+    static StringBuilder builder() {
+        StringBuilder sb = BUILDERS.get();
+        if (sb.capacity() > MAX_POOLED_BUILDER) {
+            sb = new StringBuilder(BUILDER_CAPACITY);
+            BUILDERS.set(sb);
+        }
+        sb.setLength(0);
+        return sb;
+    }
+
     /**
      * Checks if all elements in an array node are empty.
      * @param array The array JsonNode.
@@ -109,8 +124,8 @@ public class TransformerUtils {
      */
     public static boolean isArrayAllEmpty(JsonNode array) {
         if (array == null || !array.isArray() || array.size() == 0) return true;
-        for (JsonNode elem : array) {
-            if (!isEmpty(elem)) return false;
+        for (int i = 0, n = array.size(); i < n; i++) {
+            if (!isEmpty(array.get(i))) return false;
         }
         return true;
     }
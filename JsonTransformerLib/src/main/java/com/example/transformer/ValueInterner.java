@@ -0,0 +1,80 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded table of canonical text values for one low-cardinality output field (decision codes, response
+ * codes, tenant IDs), enabled per rule with {@code "intern"} in the config. Equal strings map to one shared
+ * {@link TextNode}, so outputs kept in caches, batches or queues don't each hold their own copy.
+ * The first {@code maxEntries} distinct values are kept; later values pass through unchanged, so a field that
+ * turns out not to be low-cardinality can't grow the table. Thread-safe.
+ */
+final class ValueInterner {
+    /** The bound used for {@code "intern": true}. */
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, TextNode> values = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param maxEntries The most distinct values to keep.
+     */
+    ValueInterner(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Builds the interner a rule asks for.
+     * @param outField The output field, for error messages.
+     * @param option The rule's {@code "intern"} value: {@code true} for the default bound, or the bound itself.
+     * @return The interner, or null if the option is missing or false.
+     * @throws IllegalArgumentException if the option is neither a boolean nor a positive integer.
+     */
+    static ValueInterner forOption(String outField, JsonNode option) {
+        if (option == null || option.isNull() || (option.isBoolean() && !option.booleanValue())) return null;
+        if (option.isBoolean()) return new ValueInterner(DEFAULT_MAX_ENTRIES);
+        if (option.canConvertToInt() && option.isIntegralNumber() && option.intValue() > 0) {
+            return new ValueInterner(option.intValue());
+        }
+        throw new IllegalArgumentException(outField + ": 'intern' must be true, false or a positive number of values");
+    }
+
+    /**
+     * @param value An evaluated output value.
+     * @return The canonical node for a text value; the value itself if it is not text or the table is full.
+     */
+    JsonNode intern(JsonNode value) {
+        if (value == null || !value.isTextual()) return value;
+        String text = value.textValue();
+        TextNode canonical = values.get(text);
+        if (canonical != null) return canonical;
+        if (size.get() >= maxEntries || !(value instanceof TextNode)) return value;
+        if (size.incrementAndGet() > maxEntries) {
+            size.decrementAndGet();
+            return value;
+        }
+        canonical = values.putIfAbsent(text, (TextNode) value);
+        if (canonical == null) return value;
+        size.decrementAndGet();
+        return canonical;
+    }
+
+    /**
+     * @return The number of distinct values held.
+     */
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * @return The most distinct values this table keeps.
+     */
+    int maxEntries() {
+        return maxEntries;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.transformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Per-event sink for required-field violations. The list is only allocated on the first violation,
+ * so events that pass validation pay nothing for it. Not thread-safe.
+ */
+final class ViolationCollector {
+    final boolean failFast;
+    private final Future<?> call;
+    private List<TransformResult.Violation> violations;
+
+    ViolationCollector(TransformResult.Mode mode) {
+        this(mode, null);
+    }
+
+    /**
+     * @param mode Whether to stop at the first violation.
+     * @param call An asynchronous call; once it is done (cancelled or timed out), evaluation stops at the next field.
+     */
+    ViolationCollector(TransformResult.Mode mode, Future<?> call) {
+        this.failFast = mode == TransformResult.Mode.FAIL_FAST;
+        this.call = call;
+    }
+
+    /**
+     * @return An empty collect-all collector for the same asynchronous call, so it stops when this one would.
+     */
+    ViolationCollector collectAll() {
+        return new ViolationCollector(TransformResult.Mode.COLLECT_ALL, call);
+    }
+
+    void add(String field, String path, TransformResult.Reason reason) {
+        add(new TransformResult.Violation(field, path, reason));
+    }
+
+    void add(TransformResult.Violation violation) {
+        if (violations == null) violations = new ArrayList<>(failFast ? 1 : 4);
+        violations.add(violation);
+    }
+
+    boolean isEmpty() {
+        return violations == null;
+    }
+
+    int size() {
+        return violations == null ? 0 : violations.size();
+    }
+
+    TransformResult.Violation get(int index) {
+        return violations.get(index);
+    }
+
+    /**
+     * @return True once evaluation should stop: a violation was found in fail-fast mode, or the call was abandoned.
+     */
+    boolean stopped() {
+        return (failFast && violations != null) || cancelled();
+    }
+
+    /**
+     * @return True if the asynchronous call this event belongs to has been cancelled or has timed out.
+     */
+    boolean cancelled() {
+        return call != null && call.isDone();
+    }
+
+    TransformResult.Violation first() {
+        return violations.get(0);
+    }
+
+    List<TransformResult.Violation> violations() {
+        return violations;
+    }
+}
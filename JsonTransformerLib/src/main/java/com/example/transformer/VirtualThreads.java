@@ -0,0 +1,66 @@
+package com.example.transformer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The executor behind the {@code transformAsync} calls: one virtual thread per task on JDK 21 and later,
+ * looked up reflectively so the library still builds and runs on JDK 17. Older JDKs fall back to a fixed pool
+ * of {@link #PLATFORM_THREADS} daemon platform threads; further tasks wait in the pool's queue, since a platform
+ * thread per in-flight event costs far more than the transform itself.
+ */
+final class VirtualThreads {
+    private static final Logger LOG = Logger.getLogger(VirtualThreads.class.getName());
+    /** Size of the platform-thread fallback: transforms are CPU-bound, with headroom for calls blocked reading a stream. */
+    static final int PLATFORM_THREADS = 2 * Runtime.getRuntime().availableProcessors();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return The shared executor, created on first use.
+     */
+    static ExecutorService executor() {
+        return Holder.EXECUTOR;
+    }
+
+    /**
+     * @return True if {@link #executor()} runs tasks on virtual threads.
+     */
+    static boolean available() {
+        return Holder.VIRTUAL;
+    }
+
+    private static final class Holder {
+        static final boolean VIRTUAL;
+        static final ExecutorService EXECUTOR;
+
+        static {
+            ExecutorService executor = null;
+            try {
+                executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException ex) {
+                LOG.fine("Virtual threads unavailable; transformAsync uses platform threads");
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Could not create a virtual-thread executor; transformAsync uses platform threads", ex);
+            }
+            VIRTUAL = executor != null;
+            if (executor == null) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), r -> {
+                            Thread t = new Thread(r, "transform-async");
+                            t.setDaemon(true);
+                            return t;
+                        });
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            }
+            EXECUTOR = executor;
+        }
+    }
+}
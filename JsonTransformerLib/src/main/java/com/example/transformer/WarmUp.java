@@ -0,0 +1,231 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a freshly loaded plan against sample events until the JIT compiler has nothing left to compile, so the
+ * first real events do not pay for interpretation and compilation. Events are transformed in rounds of about
+ * {@value #ROUND_MILLIS} ms, alternating the tree and byte entry points; the plan counts as warm once at least
+ * {@value #MIN_EVENTS} events have run (past the JIT's optimizing threshold) and {@value #QUIET_ROUNDS} rounds
+ * in a row have triggered no JIT compilation and had a p99 within 20% of the round before. Compilation time
+ * only moves when a compilation finishes, so the p99 check catches a long compilation still in progress.
+ * Samples can be recorded events or a synthetic event from {@link #sampleEvent(CompiledTransformer)}.
+ * Rejected samples are fine: they exercise the validation path.
+ */
+public final class WarmUp {
+    static final int ROUND_MILLIS = 50;
+    static final int QUIET_ROUNDS = 3;
+    static final int MIN_EVENTS = 20_000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private WarmUp() {
+    }
+
+    /**
+     * Warms a plan up with a synthetic event built from the paths it reads.
+     * @param plan The plan.
+     * @param budget The longest the warm-up may run.
+     * @return What the warm-up did.
+     */
+    public static Result run(CompiledTransformer plan, Duration budget) {
+        return run(plan, Collections.singletonList(bytes(sampleEvent(plan))), budget);
+    }
+
+    /**
+     * Warms a plan up with sample events.
+     * @param plan The plan.
+     * @param samples Recorded events as JSON bytes; at least one.
+     * @param budget The longest the warm-up may run.
+     * @return What the warm-up did.
+     * @throws IllegalArgumentException if there are no samples or a sample is not valid JSON.
+     */
+    public static Result run(CompiledTransformer plan, List<byte[]> samples, Duration budget) {
+        if (samples.isEmpty()) throw new IllegalArgumentException("warm-up needs at least one sample event");
+        List<JsonNode> trees = new ArrayList<>(samples.size());
+        for (byte[] sample : samples) {
+            try {
+                trees.add(MAPPER.readTree(sample));
+            } catch (IOException ex) {
+                throw new IllegalArgumentException("warm-up sample is not valid JSON", ex);
+            }
+        }
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean timed = jit != null && jit.isCompilationTimeMonitoringSupported();
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        long compileTime = timed ? jit.getTotalCompilationTime() : 0;
+        long previousP99 = 0;
+        int rounds = 0;
+        long events = 0;
+        int quiet = 0;
+        LatencyHistogram round = new LatencyHistogram();
+        while (quiet < QUIET_ROUNDS && System.nanoTime() < deadline) {
+            round.reset();
+            long end = Math.min(deadline, System.nanoTime() + ROUND_MILLIS * 1_000_000L);
+            int i = 0;
+            do {
+                long t0 = System.nanoTime();
+                try {
+                    if ((i & 1) == 0) {
+                        plan.tryTransform(trees.get(i % trees.size()), TransformResult.Mode.FAIL_FAST);
+                    } else {
+                        plan.tryTransform(samples.get(i % samples.size()), TransformResult.Mode.FAIL_FAST);
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                round.record(System.nanoTime() - t0);
+                i++;
+            } while (System.nanoTime() < end);
+            events += i;
+            rounds++;
+            long p99 = round.percentile(99);
+            boolean settled = events >= MIN_EVENTS && previousP99 > 0 && Math.abs(p99 - previousP99) <= previousP99 / 5;
+            if (timed) {
+                long now = jit.getTotalCompilationTime();
+                settled &= now == compileTime;
+                compileTime = now;
+            }
+            quiet = settled ? quiet + 1 : 0;
+            previousP99 = p99;
+        }
+        return new Result(rounds, events, Duration.ofNanos(System.nanoTime() - start), quiet >= QUIET_ROUNDS,
+                previousP99);
+    }
+
+    /**
+     * Builds an event with a value at every path the plan reads: numbers at score paths, text elsewhere, and
+     * one-element arrays under wildcards and filters. Filter conditions are not filled in, so rules reading
+     * through a filter see no match; recorded events give a more faithful warm-up.
+     * @param plan The plan.
+     * @return The event.
+     */
+    public static JsonNode sampleEvent(CompiledTransformer plan) {
+        ObjectNode event = JsonNodeFactory.instance.objectNode();
+        List<String> scores = new ArrayList<>();
+        for (CompiledRule rule : plan.rules()) {
+            if (rule instanceof CompiledRule.OperationRule) scores.addAll(((CompiledRule.OperationRule) rule).scorePaths);
+        }
+        for (CompiledRule rule : plan.rules()) {
+            for (String path : rule.inputPaths()) {
+                JsonNode value = scores.contains(path) ? JsonNodeFactory.instance.numberNode(50)
+                        : JsonNodeFactory.instance.textNode("sample");
+                fill(event, JsonPath.of(path), value);
+            }
+        }
+        return event;
+    }
+
+    /** Creates the containers along a path and sets its value, unless another path already put a value there. */
+    private static void fill(ObjectNode root, JsonPath path, JsonNode value) {
+        JsonNode node = root;
+        for (int i = 0; i < path.length(); i++) {
+            boolean last = i == path.length() - 1;
+            boolean nextIsField = !last && path.fieldAt(i + 1) != null;
+            if (path.fieldAt(i) != null) {
+                ObjectNode object = (ObjectNode) node;
+                JsonNode child = object.get(path.fieldAt(i));
+                if (last) {
+                    if (child == null) object.set(path.fieldAt(i), value);
+                    return;
+                }
+                if (child == null || !child.isContainerNode()) {
+                    child = nextIsField ? object.putObject(path.fieldAt(i)) : object.putArray(path.fieldAt(i));
+                }
+                node = child;
+            } else {
+                ArrayNode array = (ArrayNode) node;
+                int index = path.isFanOut(i) ? 0 : path.indexAt(i) < 0 ? 0 : path.indexAt(i);
+                int size = path.indexAt(i) < 0 && !path.isFanOut(i) ? -path.indexAt(i) : index + 1;
+                while (array.size() < size) {
+                    if (last) array.add(value);
+                    else if (nextIsField) array.addObject();
+                    else array.addArray();
+                }
+                if (last) return;
+                node = array.get(index);
+            }
+            if (!node.isContainerNode()) return;
+        }
+    }
+
+    private static byte[] bytes(JsonNode node) {
+        try {
+            return MAPPER.writeValueAsBytes(node);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * What a warm-up did and whether the plan reached steady state within the budget.
+     */
+    public static final class Result {
+        private final int rounds;
+        private final long events;
+        private final Duration elapsed;
+        private final boolean steady;
+        private final long p99Nanos;
+
+        Result(int rounds, long events, Duration elapsed, boolean steady, long p99Nanos) {
+            this.rounds = rounds;
+            this.events = events;
+            this.elapsed = elapsed;
+            this.steady = steady;
+            this.p99Nanos = p99Nanos;
+        }
+
+        /**
+         * @return The number of rounds run.
+         */
+        public int rounds() {
+            return rounds;
+        }
+
+        /**
+         * @return The number of sample events transformed.
+         */
+        public long events() {
+            return events;
+        }
+
+        /**
+         * @return How long the warm-up ran.
+         */
+        public Duration elapsed() {
+            return elapsed;
+        }
+
+        /**
+         * @return True if the JIT went quiet before the budget ran out.
+         */
+        public boolean steady() {
+            return steady;
+        }
+
+        /**
+         * @return The p99 latency of the last round, in nanoseconds.
+         */
+        public long p99Nanos() {
+            return p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("warm-up %s after %d ms: %d events in %d rounds, last round p99 %.1f us",
+                    steady ? "steady" : "not steady", elapsed.toMillis(), events, rounds, p99Nanos / 1e3);
+        }
+    }
+}
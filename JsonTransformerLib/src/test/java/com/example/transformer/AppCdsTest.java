@@ -0,0 +1,95 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks the AppCDS recipe from the documentation: a training run that loads a plan snapshot and warms it up
+ * dumps a dynamic archive, and a second run started from that archive loads the library's classes from it and
+ * gives the same result. Skipped where the JVM cannot write a dynamic archive.
+ */
+public class AppCdsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSnapshotStartupRunsFromDynamicArchive() throws Exception {
+        File snapshot = folder.newFile("plan.snapshot");
+        try (OutputStream out = new FileOutputStream(snapshot)) {
+            JsonTransformer.compile(new ObjectMapper().readTree(new File("config/sample_config.json"))).writeSnapshot(out);
+        }
+        // CDS only archives classes loaded from jars, so package the compiled classes as one.
+        File jar = folder.newFile("app.jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            addClasses(out, new File("target/classes").toPath());
+            addClasses(out, new File("target/test-classes").toPath());
+        }
+        String classPath = String.join(File.pathSeparator, jar.getPath(), location(ObjectMapper.class),
+                location(JsonFactory.class), location(JsonProperty.class));
+        File archive = new File(folder.getRoot(), "app.jsa");
+        String event = new File("input_event.json").getPath();
+
+        List<String> training = run("-XX:ArchiveClassesAtExit=" + archive.getPath(), "-cp", classPath,
+                SnapshotStartup.class.getName(), snapshot.getPath(), event);
+        assumeTrue("JVM did not write a dynamic CDS archive", archive.isFile() && archive.length() > 0);
+
+        List<String> archived = run("-XX:SharedArchiveFile=" + archive.getPath(), "-Xlog:class+load=info", "-cp",
+                classPath, SnapshotStartup.class.getName(), snapshot.getPath(), event);
+        assertEquals(result(training), result(archived));
+        assertTrue(String.join("\n", archived), archived.stream().anyMatch(line ->
+                line.contains(CompiledTransformer.class.getName() + " source: shared objects file")));
+        assertTrue(String.join("\n", archived), archived.stream().anyMatch(line ->
+                line.contains(PlanSnapshot.class.getName() + " source: shared objects file")));
+    }
+
+    private static List<String> run(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-Xshare:auto");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        byte[] output = process.getInputStream().readAllBytes();
+        assertTrue("child JVM timed out", process.waitFor(60, TimeUnit.SECONDS));
+        List<String> lines = Arrays.asList(new String(output, StandardCharsets.UTF_8).split("\n"));
+        assertEquals(String.join("\n", lines), 0, process.exitValue());
+        return lines;
+    }
+
+    private static String result(List<String> lines) {
+        return lines.stream().filter(line -> line.startsWith("RESULT ")).findFirst().orElse(null);
+    }
+
+    private static String location(Class<?> type) throws Exception {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private static void addClasses(JarOutputStream jar, Path root) throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                jar.putNextEntry(new JarEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+                jar.write(Files.readAllBytes(file));
+                jar.closeEntry();
+            }
+        }
+    }
+}
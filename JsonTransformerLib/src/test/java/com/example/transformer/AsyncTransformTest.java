@@ -0,0 +1,173 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncTransformTest {
+    private static final byte[] EVENT = "{\"h\":{\"id\":\"X\"},\"a\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper mapper;
+    private SlowOperation slow;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        slow = new SlowOperation();
+        StringBuilder config = new StringBuilder("{\"outputFields\":{\"id\":{\"source\":\"h.id\",\"required\":true}");
+        for (int i = 0; i < 20; i++) {
+            config.append(",\"slow").append(i).append("\":{\"operation\":\"slow\",\"sources\":[\"a\"]}");
+        }
+        config.append("}}");
+        plan = JsonTransformer.compile(mapper.readTree(config.toString()), OperationRegistry.defaults().with(slow));
+    }
+
+    @Test
+    public void testTransformAsyncMatchesSyncResult() throws Exception {
+        CompiledTransformer fast = JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"id\":{\"source\":\"h.id\",\"required\":true},\"a\":{\"source\":\"a\"}}}"));
+        JsonNode expected = fast.transform(EVENT);
+        assertEquals(expected, fast.transformAsync(EVENT, Duration.ofSeconds(5)).get().output());
+        assertEquals(expected, fast.transformAsync(new ByteArrayInputStream(EVENT), null).get().output());
+        TransformResult rejected = fast.transformAsync("{}".getBytes(StandardCharsets.UTF_8), null).get();
+        assertFalse(rejected.isSuccess());
+        assertEquals("id", rejected.violations().get(0).field());
+    }
+
+    @Test
+    public void testInvalidJsonFailsTheFuture() throws Exception {
+        try {
+            plan.transformAsync("{not json".getBytes(StandardCharsets.UTF_8), null).get();
+            fail("Expected ExecutionException for invalid JSON");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testTimeoutStopsBetweenFields() throws Exception {
+        for (CompiledTransformer p : new CompiledTransformer[]{plan, plan.withBackend(CompiledTransformer.Backend.GENERATED)}) {
+            slow.calls.set(0);
+            CompletableFuture<TransformResult> call = p.transformAsync(EVENT, Duration.ofMillis(60));
+            try {
+                call.get();
+                fail("Expected the call to time out");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+            Thread.sleep(100);
+            int calls = slow.calls.get();
+            Thread.sleep(100);
+            assertEquals(p.backend().toString(), calls, slow.calls.get());
+            assertTrue(p.backend() + " ran " + calls + " fields", calls < 20);
+        }
+    }
+
+    @Test
+    public void testCancellationStopsBetweenFields() throws Exception {
+        slow.started = new CountDownLatch(1);
+        CompletableFuture<TransformResult> call = plan.transformAsync(EVENT, null);
+        assertTrue(slow.started.await(5, TimeUnit.SECONDS));
+        assertTrue(call.cancel(true));
+        Thread.sleep(100);
+        int calls = slow.calls.get();
+        Thread.sleep(100);
+        assertEquals(calls, slow.calls.get());
+        assertTrue("ran " + calls + " fields", calls < 20);
+        assertTrue(call.isCancelled());
+    }
+
+    @Test
+    public void testTransformAllAsyncLimitsConcurrency() throws Exception {
+        CompiledTransformer one = JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"v\":{\"operation\":\"slow\",\"sources\":[\"a\"]}}}"),
+                OperationRegistry.defaults().with(slow));
+        List<byte[]> inputs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) inputs.add(("{\"a\":\"" + i + "\"}").getBytes(StandardCharsets.UTF_8));
+        List<CompletableFuture<TransformResult>> calls = one.transformAllAsync(inputs, 3, Duration.ofSeconds(10));
+        assertEquals(12, calls.size());
+        calls.get(11).cancel(true);
+        for (int i = 0; i < 11; i++) {
+            assertEquals(i + "!", calls.get(i).get().output().get("v").asText());
+        }
+        assertTrue(calls.get(11).isCancelled());
+        assertTrue("max concurrency " + slow.maxActive.get(), slow.maxActive.get() <= 3);
+        assertTrue(slow.maxActive.get() >= 1);
+    }
+
+    @Test
+    public void testTimedOutEventsKeepTheirSlotUntilTheyStop() throws Exception {
+        List<byte[]> inputs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) inputs.add(EVENT);
+        List<CompletableFuture<TransformResult>> calls = plan.transformAllAsync(inputs, 1, Duration.ofMillis(30));
+        for (CompletableFuture<TransformResult> call : calls) {
+            try {
+                call.get();
+                fail("Expected the call to time out");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+        }
+        Thread.sleep(100);
+        assertTrue("max concurrency " + slow.maxActive.get(), slow.maxActive.get() <= 1);
+        assertEquals(0, slow.active.get());
+    }
+
+    @Test
+    public void testPlatformFallbackIsBounded() {
+        if (VirtualThreads.available()) return;
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) VirtualThreads.executor();
+        assertEquals(VirtualThreads.PLATFORM_THREADS, pool.getMaximumPoolSize());
+    }
+
+    /**
+     * Appends "!" to its first source after sleeping, tracking how many calls run at once.
+     */
+    private static final class SlowOperation implements Operation {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        volatile CountDownLatch started;
+
+        @Override
+        public String name() {
+            return "slow";
+        }
+
+        @Override
+        public Evaluator bind(OperationBinding binding) {
+            int slot = binding.sources()[0];
+            return slots -> {
+                calls.incrementAndGet();
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                if (started != null) started.countDown();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    active.decrementAndGet();
+                }
+                return TextNode.valueOf(slots[slot].asText() + "!");
+            };
+        }
+    }
+}
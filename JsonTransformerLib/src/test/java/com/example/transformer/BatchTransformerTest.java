@@ -0,0 +1,64 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class BatchTransformerTest {
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        plan = JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"id\":{\"source\":\"id\",\"required\":true},\"name\":{\"source\":\"name\"}}}"));
+    }
+
+    @Test
+    public void testOutputKeepsInputOrderAcrossThreads() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append("{\"id\":").append(i).append(",\"name\":\"n").append(i).append("\"}\n");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        BatchTransformer.Summary summary = new BatchTransformer(plan, 4)
+                .run(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), out, errors);
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(5000, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(i, mapper.readTree(lines[i]).get("id").asInt());
+        }
+        assertEquals(5000, summary.succeeded());
+        assertEquals(0, summary.failed());
+        assertEquals(5000, summary.latency().count());
+        assertEquals(0, errors.size());
+    }
+
+    @Test
+    public void testFailedRecordsGoToErrorStreamWithLineNumbers() throws Exception {
+        String input = "{\"id\":1}\n\n{\"name\":\"no id\"}\r\n{not json\n{\"id\":4}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        BatchTransformer.Summary summary = new BatchTransformer(plan, 2)
+                .run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out, errors);
+        assertEquals("{\"id\":1}\n{\"id\":4}\n", out.toString("UTF-8"));
+        String[] errorLines = errors.toString("UTF-8").split("\n");
+        assertEquals(2, errorLines.length);
+        JsonNode first = mapper.readTree(errorLines[0]);
+        assertEquals(3, first.get("line").asInt());
+        assertEquals("id defined in the config mapping is null or empty", first.get("error").asText());
+        assertEquals("{\"name\":\"no id\"}", first.get("input").asText());
+        assertEquals(4, mapper.readTree(errorLines[1]).get("line").asInt());
+        assertEquals(2, summary.succeeded());
+        assertEquals(2, summary.failed());
+        assertTrue(summary.toString().contains("p99="));
+    }
+}
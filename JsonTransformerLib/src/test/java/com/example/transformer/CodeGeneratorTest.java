@@ -0,0 +1,131 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CodeGeneratorTest {
+    private static final String CONFIG = "{\"outputFields\":{"
+            + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+            + "\"note\":{\"source\":\"h.note\"},"
+            + "\"say \\\"hi\\\" */\":{\"source\":\"h.id\"},"
+            + "\"decision\":{\"operation\":\"conditional_decision\",\"sources\":[\"d1\",\"d2\"],\"requiredSources\":[true,false],"
+            + "\"scores\":[\"s1\",\"s2\"],\"requiredScores\":[false,true],\"required\":true},"
+            + "\"joined\":{\"operation\":\"concatenate\",\"sources\":[\"a\",\"b\",\"c[1]\"],\"separator\":\" \\\"\\\\\\u00e9\\n \",\"required\":true},"
+            + "\"reasons\":{\"operation\":\"fallback\",\"sources\":[\"r1\",\"r2\"],\"required\":true},"
+            + "\"future\":{\"operation\":\"uppercase\",\"sources\":[\"a\"],\"suffixPath\":\"h.note\"}}}";
+
+    private static final String[] INPUTS = {
+            "{\"h\":{\"id\":\"X\",\"note\":\"n\"},\"d1\":\"A\",\"d2\":\"B\",\"s1\":2,\"s2\":1,\"a\":\"1\",\"b\":\"2\",\"c\":[0,3],\"r1\":[\"x\"]}",
+            "{\"h\":{\"id\":\"X\"},\"d1\":\"A\",\"s2\":5,\"a\":\"\",\"c\":[0],\"r1\":[\"\",\" \"],\"r2\":{\"k\":1}}",
+            "{\"h\":{\"id\":\"X\"},\"d1\":\"A\",\"s2\":5,\"a\":\"1\",\"r1\":[\"\",\" \"]}",
+            "{\"h\":{\"id\":\" \"}}",
+            "{}",
+            "{\"h\":{\"id\":\"X\"},\"d1\":null,\"s2\":null,\"a\":null}"
+    };
+
+    private ObjectMapper mapper;
+    private CompiledTransformer interpreted;
+    private CompiledTransformer generated;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        interpreted = JsonTransformer.compile(mapper.readTree(CONFIG));
+        generated = interpreted.withBackend(CompiledTransformer.Backend.GENERATED);
+    }
+
+    @Test
+    public void testGeneratedBackendIsUsed() {
+        assertEquals(CompiledTransformer.Backend.INTERPRETER, interpreted.backend());
+        assertEquals(CompiledTransformer.Backend.GENERATED, generated.backend());
+        assertSame(generated, generated.withBackend(CompiledTransformer.Backend.GENERATED));
+        assertEquals(CompiledTransformer.Backend.INTERPRETER,
+                generated.withBackend(CompiledTransformer.Backend.INTERPRETER).backend());
+    }
+
+    @Test
+    public void testBothBackendsGiveIdenticalResults() throws Exception {
+        assertTrue(interpreted.tryTransform(mapper.readTree(INPUTS[0])).isSuccess());
+        for (String json : INPUTS) {
+            JsonNode input = mapper.readTree(json);
+            for (TransformResult.Mode mode : TransformResult.Mode.values()) {
+                TransformResult expected = interpreted.tryTransform(input, mode);
+                TransformResult actual = generated.tryTransform(input, mode);
+                assertEquals(json, expected.output(), actual.output());
+                assertEquals(json, describe(expected), describe(actual));
+            }
+            assertEquals(json, outcome(interpreted, input), outcome(generated, input));
+            assertEquals(json, new String(streamed(interpreted, json)), new String(streamed(generated, json)));
+        }
+    }
+
+    @Test
+    public void testSampleConfigOnSampleEvent() throws Exception {
+        JsonNode config = mapper.readTree(new File("config/sample_config.json"));
+        JsonNode input = mapper.readTree(new File("input_event.json"));
+        CompiledTransformer plan = JsonTransformer.compile(config);
+        assertEquals(outcome(plan, input), outcome(plan.withBackend(CompiledTransformer.Backend.GENERATED), input));
+        ((ObjectNode) config.get("outputFields")).remove("concatenateExample");
+        plan = JsonTransformer.compile(config);
+        JsonNode expected = plan.transform(input);
+        assertEquals(expected, plan.withBackend(CompiledTransformer.Backend.GENERATED).transform(input));
+    }
+
+    @Test
+    public void testStrictSourcesRequiredMatches() throws Exception {
+        ObjectNode config = (ObjectNode) mapper.readTree(CONFIG);
+        config.put("strictSourcesRequired", true);
+        CompiledTransformer plan = JsonTransformer.compile(config);
+        CompiledTransformer gen = plan.withBackend(CompiledTransformer.Backend.GENERATED);
+        for (String json : INPUTS) {
+            JsonNode input = mapper.readTree(json);
+            assertEquals(json, describe(plan.tryTransform(input, TransformResult.Mode.COLLECT_ALL)),
+                    describe(gen.tryTransform(input, TransformResult.Mode.COLLECT_ALL)));
+        }
+    }
+
+    @Test
+    public void testMetricsStillRecordedOnGeneratedPlan() throws Exception {
+        TransformMetrics metrics = new TransformMetrics();
+        CompiledTransformer plan = generated.withMetrics(metrics);
+        assertEquals(interpreted.tryTransform(mapper.readTree(INPUTS[0])).output(),
+                plan.tryTransform(mapper.readTree(INPUTS[0])).output());
+        assertEquals(1, metrics.snapshot().events());
+    }
+
+    private static List<String> describe(TransformResult result) {
+        List<String> out = new ArrayList<>();
+        for (TransformResult.Violation v : result.violations()) {
+            out.add(v.field() + "|" + v.path() + "|" + v.reason());
+        }
+        return out;
+    }
+
+    private static String outcome(CompiledTransformer plan, JsonNode input) {
+        try {
+            return plan.transform(input).toString();
+        } catch (RuntimeException ex) {
+            return "error: " + ex.getMessage();
+        }
+    }
+
+    private static byte[] streamed(CompiledTransformer plan, String json) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            plan.transformTo(json.getBytes(StandardCharsets.UTF_8), out);
+        } catch (RuntimeException ex) {
+            return ("error: " + ex.getMessage()).getBytes(StandardCharsets.UTF_8);
+        }
+        return out.toByteArray();
+    }
+}
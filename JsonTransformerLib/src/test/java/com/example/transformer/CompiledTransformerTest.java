@@ -0,0 +1,173 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class CompiledTransformerTest {
+    private ObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+    }
+
+    @Test
+    public void testCompiledPlanMatchesSampleEvent() throws Exception {
+        JsonNode input = mapper.readTree(new File("input_event.json"));
+        ObjectNode config = (ObjectNode) mapper.readTree(new File("config/sample_config.json"));
+        try {
+            JsonTransformer.compile(config).transform(input);
+            fail("Expected RuntimeException for the missing control option");
+        } catch (RuntimeException ex) {
+            assertTrue(ex.getMessage().startsWith("concatenateExample: required source"));
+        }
+        ((ObjectNode) config.get("outputFields")).remove("concatenateExample");
+        CompiledTransformer plan = JsonTransformer.compile(config);
+        JsonNode output = plan.transform(input);
+        assertEquals("R0201", output.get("responseCode").asText());
+        assertEquals("ACCEPT02", output.get("newDecision").asText());
+        assertEquals("No Fraud Detected", output.get("newDecisionReasons").get(0).asText());
+        assertEquals("10895 Scripps, Poway, 92064, USA", output.get("address").asText());
+        assertEquals(output, new JsonTransformer().transform(input, config));
+    }
+
+    @Test
+    public void testStreamingTransformMatchesTreeTransform() throws Exception {
+        byte[] bytes = Files.readAllBytes(Paths.get("input_event.json"));
+        ObjectNode config = (ObjectNode) mapper.readTree(new File("config/sample_config.json"));
+        ((ObjectNode) config.get("outputFields")).remove("concatenateExample");
+        CompiledTransformer plan = JsonTransformer.compile(config);
+        JsonNode expected = plan.transform(mapper.readTree(bytes));
+        assertEquals(expected, plan.transform(bytes));
+        assertEquals(expected, new JsonTransformer().transform(new ByteArrayInputStream(bytes), plan));
+    }
+
+    @Test
+    public void testPlanIsReusableAcrossEvents() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"code\":{\"source\":\"a.code\",\"required\":true}}}"));
+        assertEquals("X", plan.transform(mapper.readTree("{\"a\":{\"code\":\"X\"}}")).get("code").asText());
+        assertEquals("Y", plan.transform(mapper.readTree("{\"a\":{\"code\":\"Y\"}}")).get("code").asText());
+        try {
+            plan.transform(mapper.readTree("{\"a\":{}}"));
+            fail("Expected RuntimeException for missing required field");
+        } catch (RuntimeException ex) {
+            assertEquals("code defined in the config mapping is null or empty", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testStrictSourcesRequiredIsResolvedAtCompileTime() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree(
+                "{\"strictSourcesRequired\":true,\"outputFields\":{\"joined\":{\"operation\":\"concatenate\","
+                + "\"sources\":[\"a\",\"b\"],\"required\":true}}}"));
+        assertEquals("1, 2", plan.transform(mapper.readTree("{\"a\":\"1\",\"b\":\"2\"}")).get("joined").asText());
+        try {
+            plan.transform(mapper.readTree("{\"a\":\"1\"}"));
+            fail("Expected RuntimeException for missing strict source");
+        } catch (RuntimeException ex) {
+            assertEquals("joined: required source 'b' defined in the config mapping is null or empty", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testTransformToGeneratorMatchesTreeOutput() throws Exception {
+        byte[] bytes = Files.readAllBytes(Paths.get("input_event.json"));
+        ObjectNode config = (ObjectNode) mapper.readTree(new File("config/sample_config.json"));
+        ((ObjectNode) config.get("outputFields")).remove("concatenateExample");
+        CompiledTransformer plan = JsonTransformer.compile(config);
+        String expected = mapper.writeValueAsString(plan.transform(bytes));
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(writer)) {
+            plan.transformTo(mapper.readTree(bytes), gen);
+        }
+        assertEquals(expected, writer.toString());
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        plan.transformTo(bytes, stream);
+        assertEquals(expected, stream.toString("UTF-8"));
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        int written = plan.transformTo(bytes, buffer);
+        assertEquals(expected, new String(buffer.array(), 0, written, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFailedRecordLeavesNoPartialOutput() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"a\":{\"source\":\"a\"},\"b\":{\"source\":\"b\",\"required\":true}}}"));
+        byte[] bad = "{\"a\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put((byte) '[');
+        try {
+            plan.transformTo(bad, buffer);
+            fail("Expected RuntimeException for missing required field");
+        } catch (RuntimeException ex) {
+            assertEquals(1, buffer.position());
+        }
+        ByteBuffer tiny = ByteBuffer.allocate(4);
+        try {
+            plan.transformTo("{\"a\":\"1\",\"b\":\"2\"}".getBytes(StandardCharsets.UTF_8), tiny);
+            fail("Expected BufferOverflowException");
+        } catch (BufferOverflowException ex) {
+            assertEquals(0, tiny.position());
+        }
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(writer)) {
+            plan.transformTo(mapper.readTree(bad), gen);
+            fail("Expected RuntimeException for missing required field");
+        } catch (RuntimeException ex) {
+            assertEquals("", writer.toString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompileRejectsConfigWithoutOutputFields() throws Exception {
+        JsonTransformer.compile(mapper.readTree("{}"));
+    }
+
+    @Test
+    public void testFanOutPathsInRulesAcrossBackends() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"decision\":{\"operation\":\"conditional_decision\",\"required\":true,"
+                + "\"sources\":[\"overall.decision\",\"d[*].decision\"],\"scores\":[\"overall.score\",\"d[*].score\"]},"
+                + "\"idxDecision\":{\"source\":\"d[?decisionSource=='IDX'].decision\"},"
+                + "\"lastSequence\":{\"source\":\"d[-1].sequenceId\"},"
+                + "\"reasons\":{\"operation\":\"fallback\",\"sources\":[\"d[*].reasons[*]\",\"overall.reasons[0]\"]},"
+                + "\"allDecisions\":{\"operation\":\"concatenate\",\"sources\":[\"d[*].decision\"],\"separator\":\"|\"},"
+                + "\"sources\":{\"source\":\"d[*].decisionSource\",\"required\":true}}}"));
+        String event = "{\"overall\":{\"decision\":\"ACCEPT01\",\"score\":50,\"reasons\":[\"default\"]},\"d\":["
+                + "{\"sequenceId\":\"1\",\"decisionSource\":\"IDX\",\"decision\":\"ACCEPT02\",\"score\":30,\"reasons\":[]},"
+                + "{\"sequenceId\":\"2\",\"decisionSource\":\"RUL\",\"decision\":\"REFER01\",\"score\":20,\"reasons\":[\"\",\"velocity\"]},"
+                + "{\"sequenceId\":\"3\",\"decisionSource\":\"IDX\",\"decision\":\"DECLINE01\"}]}";
+        String expected = "{\"decision\":\"REFER01\",\"idxDecision\":[\"ACCEPT02\",\"DECLINE01\"],\"lastSequence\":\"3\","
+                + "\"reasons\":\"velocity\",\"allDecisions\":\"ACCEPT02|REFER01|DECLINE01\",\"sources\":[\"IDX\",\"RUL\",\"IDX\"]}";
+        for (CompiledTransformer p : new CompiledTransformer[]{plan, plan.withBackend(CompiledTransformer.Backend.GENERATED)}) {
+            assertEquals(expected, p.transform(mapper.readTree(event)).toString());
+            assertEquals(expected, p.transform(event.getBytes(StandardCharsets.UTF_8)).toString());
+            TransformResult rejected = p.tryTransform(mapper.readTree("{\"d\":[{\"decisionSource\":\"\"}]}"));
+            // The cheaper required source check runs first and rejects the event.
+            assertEquals("sources", rejected.violations().get(0).field());
+        }
+        TransformResult empty = plan.tryTransform(mapper.readTree("{\"overall\":{\"decision\":\"A\",\"score\":1},\"d\":[{\"decisionSource\":\" \"}]}"),
+                TransformResult.Mode.COLLECT_ALL);
+        assertEquals(1, empty.violations().size());
+        assertEquals("sources", empty.violations().get(0).field());
+    }
+}
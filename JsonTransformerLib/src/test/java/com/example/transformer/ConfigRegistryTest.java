@@ -0,0 +1,132 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ConfigRegistryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ObjectMapper mapper;
+    private Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        dir = folder.getRoot().toPath();
+        writeConfig("default", "defaultField");
+        writeConfig("t1", "tenantOneField");
+    }
+
+    private void writeConfig(String name, String outputField) throws Exception {
+        String config = "{\"outputFields\":{\"" + outputField + "\":{\"source\":\"message.responseHeader.tenantID\"}}}";
+        Files.write(dir.resolve(name + ".json"), config.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private JsonNode event(String tenant) throws Exception {
+        return mapper.readTree("{\"message\":{\"responseHeader\":{\"tenantID\":\"" + tenant + "\"}}}");
+    }
+
+    @Test
+    public void testTenantConfigAndDefaultFallback() throws Exception {
+        try (ConfigRegistry registry = new ConfigRegistry(dir, 10)) {
+            assertEquals("t1", registry.transform(event("t1")).get("tenantOneField").asText());
+            assertEquals("other", registry.transform(event("other")).get("defaultField").asText());
+            assertSame(registry.planFor("other"), registry.planFor((String) null));
+            assertSame(registry.planFor("t1"), registry.planFor(event("t1")));
+            assertSame(registry.planFor("../t1"), registry.planFor((String) null));
+        }
+    }
+
+    @Test
+    public void testReloadSwapsPlansAndKeepsOldPlanUsable() throws Exception {
+        try (ConfigRegistry registry = new ConfigRegistry(dir, 10)) {
+            CompiledTransformer before = registry.planFor("t1");
+            CompiledTransformer fallback = registry.planFor("t2");
+            writeConfig("t1", "renamedField");
+            writeConfig("t2", "tenantTwoField");
+            registry.reload();
+            assertTrue(registry.transform(event("t1")).has("renamedField"));
+            assertTrue(registry.transform(event("t2")).has("tenantTwoField"));
+            assertTrue(before.transform(event("t1")).has("tenantOneField"));
+            assertTrue(fallback.transform(event("t2")).has("defaultField"));
+
+            Files.write(dir.resolve("t1.json"), "{broken".getBytes(StandardCharsets.UTF_8));
+            registry.reload();
+            assertTrue(registry.transform(event("t1")).has("renamedField"));
+        }
+    }
+
+    @Test
+    public void testWatcherPicksUpChangedConfig() throws Exception {
+        try (ConfigRegistry registry = new ConfigRegistry(dir, 10)) {
+            registry.planFor("t1");
+            registry.start();
+            writeConfig("t1", "watchedField");
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (!registry.transform(event("t1")).has("watchedField") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(registry.transform(event("t1")).has("watchedField"));
+        }
+    }
+
+    @Test
+    public void testRarelyUsedTenantsAreEvicted() throws Exception {
+        writeConfig("a", "aField");
+        writeConfig("b", "bField");
+        writeConfig("c", "cField");
+        try (ConfigRegistry registry = new ConfigRegistry(dir, 2)) {
+            CompiledTransformer t1 = registry.planFor("t1");
+            registry.planFor("a");
+            registry.planFor("t1");
+            registry.planFor("b");
+            assertEquals(2, registry.size());
+            assertSame(t1, registry.planFor("t1"));
+            registry.planFor("c");
+            assertEquals(2, registry.size());
+        }
+    }
+
+    @Test
+    public void testUnknownTenantsDoNotEvictCompiledOnes() throws Exception {
+        try (ConfigRegistry registry = new ConfigRegistry(dir, 1)) {
+            CompiledTransformer t1 = registry.planFor("t1");
+            CompiledTransformer fallback = registry.planFor((String) null);
+            for (int i = 0; i < 100; i++) {
+                assertSame(fallback, registry.planFor("unknown" + i));
+            }
+            assertEquals(1, registry.size());
+            assertEquals(100, registry.unknownSize());
+            assertSame(t1, registry.planFor("t1"));
+
+            for (int i = 0; i < ConfigRegistry.MAX_UNKNOWN; i++) {
+                registry.planFor("many" + i);
+            }
+            assertTrue(registry.unknownSize() <= ConfigRegistry.MAX_UNKNOWN);
+        }
+    }
+
+    @Test
+    public void testReloadPicksUpCreatedAndDeletedConfigs() throws Exception {
+        try (ConfigRegistry registry = new ConfigRegistry(dir, 10)) {
+            assertTrue(registry.transform(event("t2")).has("defaultField"));
+            assertTrue(registry.transform(event("t1")).has("tenantOneField"));
+            writeConfig("t2", "tenantTwoField");
+            Files.delete(dir.resolve("t1.json"));
+            registry.reload();
+            assertTrue(registry.transform(event("t2")).has("tenantTwoField"));
+            assertTrue(registry.transform(event("t1")).has("defaultField"));
+            assertEquals(1, registry.size());
+        }
+    }
+}
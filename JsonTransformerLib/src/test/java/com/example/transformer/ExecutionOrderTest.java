@@ -0,0 +1,103 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExecutionOrderTest {
+    private static final String CONFIG = "{\"outputFields\":{"
+            + "\"address\":{\"operation\":\"concatenate\",\"sources\":[\"a.line1\",\"a.line2\",\"a.city\"],\"separator\":\" \",\"required\":true},"
+            + "\"note\":{\"source\":\"h.note\"},"
+            + "\"reasons\":{\"operation\":\"fallback\",\"sources\":[\"r1\",\"r2\"],\"required\":true},"
+            + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+            + "\"city\":{\"source\":\"a.city\"}}}";
+
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        plan = JsonTransformer.compile(mapper.readTree(CONFIG));
+    }
+
+    @Test
+    public void testChecksRunCheapestFirstAndOutputKeepsConfigOrder() throws Exception {
+        String explain = plan.explain();
+        int id = explain.indexOf(" id ");
+        int reasons = explain.indexOf(" reasons ");
+        int address = explain.indexOf(" address ");
+        int note = explain.indexOf(" note ");
+        assertTrue(explain, id < reasons && reasons < address && address < note);
+
+        String event = "{\"h\":{\"id\":\"X\",\"note\":\"n\"},\"a\":{\"line1\":\"1\",\"city\":\"C\"},\"r2\":\"late\"}";
+        for (CompiledTransformer p : new CompiledTransformer[]{plan, plan.withBackend(CompiledTransformer.Backend.GENERATED)}) {
+            assertEquals("[address, note, reasons, id, city]", fieldNames(p.transform(mapper.readTree(event))));
+        }
+    }
+
+    @Test
+    public void testFailFastReportsCheapestViolationAndCollectAllKeepsConfigOrder() throws Exception {
+        JsonNode bad = mapper.readTree("{}");
+        for (CompiledTransformer p : new CompiledTransformer[]{plan, plan.withBackend(CompiledTransformer.Backend.GENERATED)}) {
+            assertEquals("id", p.tryTransform(bad).violations().get(0).field());
+            List<String> fields = new ArrayList<>();
+            for (TransformResult.Violation v : p.tryTransform(bad, TransformResult.Mode.COLLECT_ALL).violations()) {
+                fields.add(v.field());
+            }
+            assertEquals("[address, reasons, id]", fields.toString());
+        }
+    }
+
+    @Test
+    public void testViewResultReportsTheSameViolationAsTryTransform() throws Exception {
+        for (String event : new String[]{"{}", "{\"h\":{\"id\":\"X\"}}", "{\"h\":{\"id\":\"X\"},\"r1\":\"r\"}"}) {
+            JsonNode input = mapper.readTree(event);
+            assertEquals(event, plan.tryTransform(input).violations().toString(),
+                    plan.view(input).result().violations().toString());
+        }
+        TransformedView view = plan.view(mapper.readTree("{}"));
+        assertFalse(view.has("address"));
+        assertEquals("id", view.result().violations().get(0).field());
+    }
+
+    @Test
+    public void testExplainListsOrderSharedPathsAndOutput() {
+        String explain = plan.explain();
+        assertTrue(explain, explain.contains("by estimated cost"));
+        assertTrue(explain, explain.indexOf(" id ") < explain.indexOf(" address "));
+        assertTrue(explain, explain.contains("a.city <- address, city"));
+        assertTrue(explain, explain.endsWith("Output order: address note reasons id city\n"));
+    }
+
+    @Test
+    public void testMeasuredOrderUsesRecordedTimings() throws Exception {
+        try {
+            plan.withMeasuredOrder();
+            fail("Expected IllegalStateException without metrics");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        CompiledTransformer instrumented = plan.withMetrics(new TransformMetrics());
+        JsonNode event = mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":{\"line1\":\"1\"},\"r1\":\"r\"}");
+        for (int i = 0; i < 100; i++) instrumented.transform(event);
+        CompiledTransformer measured = instrumented.withMeasuredOrder();
+        assertTrue(measured.explain(), measured.explain().contains("by measured cost"));
+        assertTrue(measured.explain(), measured.explain().contains("over 100 calls"));
+        assertEquals(plan.transform(event), measured.transform(event));
+        assertEquals(CompiledTransformer.Backend.GENERATED,
+                plan.withBackend(CompiledTransformer.Backend.GENERATED).withMetrics(new TransformMetrics())
+                        .withMeasuredOrder().backend());
+    }
+
+    private static String fieldNames(JsonNode output) {
+        List<String> names = new ArrayList<>();
+        output.fieldNames().forEachRemaining(names::add);
+        return names.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonPatchTest {
+    private ObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+    }
+
+    @Test
+    public void testOperationsFollowRfc6902() throws Exception {
+        JsonNode doc = mapper.readTree("{\"a\":{\"b\":1,\"c\":[1,2,3]},\"x/y\":{\"~z\":true},\"keep\":{\"k\":1}}");
+        JsonPatch patch = JsonPatch.parse(mapper.readTree("["
+                + "{\"op\":\"test\",\"path\":\"/a/b\",\"value\":1},"
+                + "{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":2},"
+                + "{\"op\":\"add\",\"path\":\"/a/c/1\",\"value\":9},"
+                + "{\"op\":\"add\",\"path\":\"/a/c/-\",\"value\":4},"
+                + "{\"op\":\"remove\",\"path\":\"/a/c/0\"},"
+                + "{\"op\":\"copy\",\"from\":\"/x~1y/~0z\",\"path\":\"/a/flag\"},"
+                + "{\"op\":\"move\",\"from\":\"/x~1y\",\"path\":\"/moved\"}]"));
+        JsonNode patched = patch.apply(doc);
+        assertEquals(mapper.readTree("{\"a\":{\"b\":2,\"c\":[9,2,3,4],\"flag\":true},\"keep\":{\"k\":1},\"moved\":{\"~z\":true}}"), patched);
+        assertSame(doc.get("keep"), patched.get("keep"));
+        assertEquals(mapper.readTree("{\"a\":{\"b\":1,\"c\":[1,2,3]},\"x/y\":{\"~z\":true},\"keep\":{\"k\":1}}"), doc);
+    }
+
+    @Test
+    public void testFailedOperationsAndMalformedPatchesAreRejected() throws Exception {
+        JsonNode doc = mapper.readTree("{\"a\":[1]}");
+        String[] bad = {
+                "[{\"op\":\"test\",\"path\":\"/a/0\",\"value\":2}]",
+                "[{\"op\":\"remove\",\"path\":\"/b\"}]",
+                "[{\"op\":\"replace\",\"path\":\"/a/1\",\"value\":2}]",
+                "[{\"op\":\"add\",\"path\":\"/a/01\",\"value\":2}]",
+                "[{\"op\":\"add\",\"path\":\"/b/c\",\"value\":2}]",
+        };
+        for (String patch : bad) {
+            try {
+                JsonPatch.parse(mapper.readTree(patch)).apply(doc);
+                fail("Expected IllegalArgumentException for " + patch);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+        for (String patch : new String[]{"{}", "[{\"op\":\"nope\",\"path\":\"/a\"}]", "[{\"op\":\"add\",\"path\":\"a\",\"value\":1}]",
+                "[{\"op\":\"move\",\"path\":\"/a\"}]"}) {
+            try {
+                JsonPatch.parse(mapper.readTree(patch));
+                fail("Expected IllegalArgumentException for " + patch);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+        assertEquals(mapper.readTree("{\"a\":[1]}"), doc);
+    }
+
+    @Test
+    public void testTestComparesNumbersByValue() throws Exception {
+        JsonNode doc = mapper.readTree("{\"a\":1,\"b\":{\"c\":[2.50,\"x\"]},\"h\":100}");
+        JsonPatch.parse(mapper.readTree("[{\"op\":\"test\",\"path\":\"/a\",\"value\":1.0},"
+                + "{\"op\":\"test\",\"path\":\"/b\",\"value\":{\"c\":[2.5,\"x\"]}},"
+                + "{\"op\":\"test\",\"path\":\"/h\",\"value\":1e2}]")).apply(doc);
+        for (String patch : new String[]{"[{\"op\":\"test\",\"path\":\"/a\",\"value\":\"1\"}]",
+                "[{\"op\":\"test\",\"path\":\"/a\",\"value\":1.5}]",
+                "[{\"op\":\"test\",\"path\":\"/b/c\",\"value\":[2.5]}]",
+                "[{\"op\":\"test\",\"path\":\"/missing\",\"value\":null}]"}) {
+            try {
+                JsonPatch.parse(mapper.readTree(patch)).apply(doc);
+                fail("Expected IllegalArgumentException for " + patch);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testCopyIsIndependentOfItsSource() throws Exception {
+        JsonNode doc = mapper.readTree("{\"a\":{}}");
+        JsonNode patched = JsonPatch.parse(mapper.readTree("[{\"op\":\"add\",\"path\":\"/a/q\",\"value\":1},"
+                + "{\"op\":\"copy\",\"from\":\"/a\",\"path\":\"/b\"},"
+                + "{\"op\":\"replace\",\"path\":\"/b/q\",\"value\":2}]")).apply(doc);
+        assertEquals(mapper.readTree("{\"a\":{\"q\":1},\"b\":{\"q\":2}}"), patched);
+        assertEquals(mapper.readTree("{\"a\":{}}"), doc);
+    }
+
+    @Test(timeout = 5000)
+    public void testCopyIntoItselfDoesNotMakeACycle() throws Exception {
+        JsonNode doc = mapper.readTree("{\"arr\":[{\"x\":null}]}");
+        JsonNode patched = JsonPatch.parse(mapper.readTree("[{\"op\":\"copy\",\"from\":\"/arr/0\",\"path\":\"/arr/-\"},"
+                + "{\"op\":\"copy\",\"from\":\"/arr\",\"path\":\"/arr/0/x\"}]")).apply(doc);
+        assertEquals(mapper.readTree("{\"arr\":[{\"x\":[{\"x\":null},{\"x\":null}]},{\"x\":null}]}"), patched);
+        assertNotSame(patched.get("arr"), patched.at("/arr/0/x"));
+        assertEquals(mapper.readTree("{\"arr\":[{\"x\":null}]}"), doc);
+    }
+
+    @Test
+    public void testChangedLocationsCoverShiftedArrays() throws Exception {
+        JsonNode doc = mapper.readTree("{\"a\":{\"b\":[1,2]},\"c\":1}");
+        List<String[]> changed = new ArrayList<>();
+        JsonPatch.parse(mapper.readTree("[{\"op\":\"remove\",\"path\":\"/a/b/0\"},{\"op\":\"replace\",\"path\":\"/c\",\"value\":2}]"))
+                .apply(doc, changed);
+        assertEquals(2, changed.size());
+        assertArrayEquals(new String[]{"a", "b"}, changed.get(0));
+        assertArrayEquals(new String[]{"c"}, changed.get(1));
+        assertTrue(DependencyGraph.overlaps(JsonPath.of("a.b[1]"), changed.get(0)));
+        assertTrue(DependencyGraph.overlaps(JsonPath.of("a"), changed.get(0)));
+        assertFalse(DependencyGraph.overlaps(JsonPath.of("a.x"), changed.get(0)));
+        assertFalse(DependencyGraph.overlaps(JsonPath.of("c.d[0]"), new String[]{"c", "d", "1"}));
+        assertTrue(DependencyGraph.overlaps(JsonPath.of("c[*].d"), new String[]{"c", "7", "d"}));
+        assertTrue(DependencyGraph.overlaps(JsonPath.of("c[?k=='v'].d"), new String[]{"c", "7", "k"}));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JsonPathTest {
+    private JsonNode root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = new ObjectMapper().readTree(
+                "{\"a\":{\"b\":[{\"c\":\"first\"},{\"c\":\"second\"}],\"n\":null},\"m\":[[1,2],[3]],\"s\":\"x\"}");
+    }
+
+    @Test
+    public void testCompileSplitsFieldAndIndexSteps() {
+        JsonPath path = JsonPath.compile("a.b[1].c");
+        assertEquals(4, path.length());
+        assertEquals("a", path.fieldAt(0));
+        assertEquals("b", path.fieldAt(1));
+        assertTrue(path.isIndex(2));
+        assertEquals(1, path.indexAt(2));
+        assertEquals("c", path.fieldAt(3));
+        assertEquals("a.b[1].c", path.toString());
+    }
+
+    @Test
+    public void testEvaluate() {
+        assertEquals("second", JsonPath.compile("a.b[1].c").evaluate(root).asText());
+        assertEquals(3, JsonPath.compile("m[1][0]").evaluate(root).asInt());
+        assertTrue(JsonPath.compile("a.n").evaluate(root).isNull());
+    }
+
+    @Test
+    public void testEvaluateMissingReturnsNull() {
+        assertNull(JsonPath.compile("a.b[2].c").evaluate(root));
+        assertNull(JsonPath.compile("a.x.y").evaluate(root));
+        assertNull(JsonPath.compile("s.child").evaluate(root));
+        assertNull(JsonPath.compile("s[0]").evaluate(root));
+        assertNull(JsonPath.compile("a.n.child").evaluate(root));
+    }
+
+    @Test
+    public void testOfReusesCompiledPath() {
+        assertSame(JsonPath.of("a.b[0].c"), JsonPath.of("a.b[0].c"));
+    }
+
+    @Test
+    public void testOfKeepsCachingOnceFullAndKeepsPathsInUse() {
+        JsonPath hot = JsonPath.of("hot.path");
+        for (int i = 0; i < 3 * JsonPath.CACHE_LIMIT; i++) {
+            JsonPath.of("churn" + i + ".v");
+            if (i % 64 == 0) assertSame(hot, JsonPath.of("hot.path"));
+        }
+        assertTrue(JsonPath.cacheSize() + " paths", JsonPath.cacheSize() <= JsonPath.CACHE_LIMIT);
+        assertSame(hot, JsonPath.of("hot.path"));
+        String late = "churn" + (3 * JsonPath.CACHE_LIMIT - 1) + ".v";
+        assertSame(JsonPath.of(late), JsonPath.of(late));
+    }
+
+    @Test
+    public void testEmptySegmentsAreRejected() {
+        for (String path : new String[]{"a.", "a..b", ".a", "", "a[0].", "a.b[0]..c"}) {
+            try {
+                JsonPath.compile(path);
+                fail("Expected IllegalArgumentException for '" + path + "'");
+            } catch (IllegalArgumentException ex) {
+                assertTrue(ex.getMessage().contains("empty segment"));
+            }
+        }
+        assertEquals(3, JsonPath.compile("a[0][1]").length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedIndexIsRejected() {
+        JsonPath.compile("a.b[x].c");
+    }
+
+    @Test
+    public void testNegativeIndexCountsFromTheEnd() {
+        assertEquals("second", JsonPath.compile("a.b[-1].c").evaluate(root).asText());
+        assertEquals("first", JsonPath.compile("a.b[-2].c").evaluate(root).asText());
+        assertNull(JsonPath.compile("a.b[-3].c").evaluate(root));
+        assertEquals(3, JsonPath.compile("m[-1][-1]").evaluate(root).asInt());
+    }
+
+    @Test
+    public void testWildcardCollectsEveryElement() {
+        assertEquals("[\"first\",\"second\"]", JsonPath.compile("a.b[*].c").evaluate(root).toString());
+        assertEquals("[1,2,3]", JsonPath.compile("m[*][*]").evaluate(root).toString());
+        assertEquals("[null,null]", JsonPath.compile("a.b[*].x").evaluate(root).toString());
+        assertEquals("[]", JsonPath.compile("m[*].x[*]").evaluate(root).toString());
+        assertNull(JsonPath.compile("s[*]").evaluate(root));
+        assertNull(JsonPath.compile("a.x[*].c").evaluate(root));
+        assertTrue(JsonPath.compile("a.b[*].c").fansOut());
+        assertFalse(JsonPath.compile("a.b[-1].c").fansOut());
+    }
+
+    @Test
+    public void testFilterKeepsMatchingElements() throws Exception {
+        JsonNode decisions = new ObjectMapper().readTree("{\"d\":[{\"src\":\"IDX\",\"v\":\"A\",\"s\":1},"
+                + "{\"src\":\"RUL\",\"v\":\"B\",\"s\":2},{\"src\":\"IDX\",\"v\":\"C\",\"s\":2.0,\"x.y\":true}]}");
+        assertEquals("[\"A\",\"C\"]", JsonPath.compile("d[?src=='IDX'].v").evaluate(decisions).toString());
+        assertEquals("[\"B\"]", JsonPath.compile("d[?src != \"IDX\"].v").evaluate(decisions).toString());
+        assertEquals("[\"B\",\"C\"]", JsonPath.compile("d[?(@.s==2)].v").evaluate(decisions).toString());
+        assertEquals("[]", JsonPath.compile("d[?src=='a.b]'].v").evaluate(decisions).toString());
+        assertEquals("d[?src=='a.b]'].v", JsonPath.compile("d[?src=='a.b]'].v").toString());
+    }
+
+    @Test
+    public void testMalformedFiltersAreRejected() {
+        for (String path : new String[]{"d[?src]", "d[?src==IDX]", "d[?a[*]==1]", "d[*", "d[*]x"}) {
+            try {
+                JsonPath.compile(path);
+                fail("Expected IllegalArgumentException for " + path);
+            } catch (IllegalArgumentException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().contains(path));
+            }
+        }
+    }
+}
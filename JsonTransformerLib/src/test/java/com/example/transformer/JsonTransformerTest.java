@@ -2,6 +2,7 @@ package com.example.transformer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -100,7 +101,7 @@ public class JsonTransformerTest {
         assertEquals("INFO", output.get("responseType").asText());
         assertEquals("tenant1", output.get("tenantID").asText());
         assertEquals("REQ123", output.get("expRequestId").asText());
-        assertEquals("ACCEPT01", output.get("overallResponse.decision").asText());
+        assertEquals("ACCEPT01", output.get("overallResponse").get("decision").asText());
         assertEquals("ACCEPT01", output.get("newDecision").asText());
         assertEquals("reason1", output.get("newDecisionReasons").get(0).asText());
         assertEquals("Main St, Apt 1, Townsville, 12345, US", output.get("address").asText());
@@ -139,4 +140,22 @@ public class JsonTransformerTest {
         JsonNode output = transformer.transform(input, config);
         assertFalse(output.has("address"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testRepeatedConfigIsCompiledOnceAndNewConfigsAreSeen() throws Exception {
+        TransformMetrics metrics = new TransformMetrics();
+        JsonTransformer instrumented = new JsonTransformer(metrics);
+        JsonNode input = mapper.readTree("{\"a\":\"1\",\"b\":\"2\"}");
+        JsonNode config = mapper.readTree("{\"outputFields\":{\"out\":{\"source\":\"a\"}}}");
+        for (int i = 0; i < 3; i++) assertEquals("1", instrumented.transform(input, config).get("out").asText());
+        assertEquals(3, metrics.snapshot().events());
+
+        // Matched by identity: an edited config is passed as a new object.
+        config = config.deepCopy();
+        ((ObjectNode) config.get("outputFields").get("out")).put("source", "b");
+        assertEquals("2", instrumented.transform(input, config).get("out").asText());
+        JsonNode other = mapper.readTree("{\"outputFields\":{\"other\":{\"source\":\"a\"}}}");
+        assertEquals("1", instrumented.transform(input, other).get("other").asText());
+        assertEquals("2", instrumented.transform(input, config).get("out").asText());
+    }
+}
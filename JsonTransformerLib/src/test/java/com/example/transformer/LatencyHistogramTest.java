@@ -0,0 +1,61 @@
+package com.example.transformer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) histogram.record(v);
+        assertEquals(10_000, histogram.count());
+        assertEquals(5000.5, histogram.mean(), 0.001);
+        assertEquals(5000, histogram.percentile(50), 5000 * 0.07);
+        assertEquals(9900, histogram.percentile(99), 9900 * 0.07);
+        assertTrue(histogram.percentile(100) >= 10_000);
+    }
+
+    @Test
+    public void testBucketsCoverFullRange() {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(15, LatencyHistogram.upperBound(LatencyHistogram.bucketOf(15)));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+        for (long v = 16; v < 100_000; v += 7) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(v));
+            assertTrue(upper >= v && upper <= v + v / 16);
+        }
+    }
+
+    @Test
+    public void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+    }
+
+    @Test
+    public void testConcurrentRecordingIsSummedOverStripes() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (long v = 1; v <= 10_000; v++) histogram.record(v);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(40_000, histogram.count());
+        assertEquals(5000, histogram.percentile(50), 5000 * 0.07);
+        assertTrue(histogram.percentile(100) >= 10_000);
+        int stripes = histogram.stripes();
+        assertTrue(stripes >= 1 && stripes <= Math.max(1, 2 * Runtime.getRuntime().availableProcessors()));
+        assertEquals(0, Integer.bitCount(stripes) - 1);
+
+        histogram.reset();
+        assertEquals(0, histogram.percentile(100));
+    }
+}
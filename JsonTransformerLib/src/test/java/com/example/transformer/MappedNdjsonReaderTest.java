@@ -0,0 +1,87 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MappedNdjsonReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String content) throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> readAll(RecordSource reader) throws Exception {
+        List<String> records = new ArrayList<>();
+        ByteBuffer record;
+        while ((record = reader.nextRecord()) != null) {
+            records.add(StandardCharsets.UTF_8.decode(record).toString());
+        }
+        reader.close();
+        return records;
+    }
+
+    @Test
+    public void testRecordsAcrossSmallWindows() throws Exception {
+        String longRecord = "{\"long\":\"" + "x".repeat(100) + "\"}";
+        Path file = write("{\"a\":1}\r\n\n  \n" + longRecord + "\n{\"b\":2}");
+        MappedNdjsonReader reader = new MappedNdjsonReader(file, 0, -1, 16);
+        assertEquals("{\"a\":1}", StandardCharsets.UTF_8.decode(reader.nextRecord()).toString());
+        assertEquals(1, reader.lineNumber());
+        assertEquals(longRecord, StandardCharsets.UTF_8.decode(reader.nextRecord()).toString());
+        assertEquals(4, reader.lineNumber());
+        assertEquals("{\"b\":2}", StandardCharsets.UTF_8.decode(reader.nextRecord()).toString());
+        assertEquals(5, reader.lineNumber());
+        assertNull(reader.nextRecord());
+        reader.close();
+    }
+
+    @Test
+    public void testSplitRangesAreLineAlignedAndCoverTheFile() throws Exception {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String record = "{\"id\":" + i + ",\"pad\":\"" + "p".repeat(i % 37) + "\"}";
+            expected.add(record);
+            content.append(record).append('\n');
+        }
+        Path file = write(content.toString());
+        List<MappedNdjsonReader> readers = MappedNdjsonReader.split(file, 7);
+        assertEquals(7, readers.size());
+        List<String> actual = new ArrayList<>();
+        for (MappedNdjsonReader reader : readers) {
+            List<String> part = readAll(reader);
+            assertFalse(part.isEmpty());
+            actual.addAll(part);
+        }
+        assertEquals(expected, actual);
+        assertEquals(1, MappedNdjsonReader.split(write("{\"only\":1}\n"), 4).size());
+    }
+
+    @Test
+    public void testBatchRunFromMappedFileMatchesStreamRun() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) content.append("{\"id\":").append(i).append("}\n");
+        Path file = write(content.toString());
+        CompiledTransformer plan = JsonTransformer.compile(new ObjectMapper().readTree(
+                "{\"outputFields\":{\"id\":{\"source\":\"id\",\"required\":true}}}"));
+        ByteArrayOutputStream mapped = new ByteArrayOutputStream();
+        try (MappedNdjsonReader reader = new MappedNdjsonReader(file)) {
+            new BatchTransformer(plan, 3).run(reader, mapped, new ByteArrayOutputStream());
+        }
+        assertEquals(content.toString(), mapped.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OperationRegistryTest {
+    private ObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+    }
+
+    @Test
+    public void testDefaultsIncludeBuiltinsAndServiceLoaderPlugins() {
+        OperationRegistry registry = OperationRegistry.defaults();
+        assertNotNull(registry.get("concatenate"));
+        assertNotNull(registry.get("conditional_decision"));
+        assertNotNull(registry.get("fallback"));
+        assertTrue(registry.get("uppercase") instanceof UppercaseOperation);
+        assertNull(registry.get("missing"));
+    }
+
+    @Test
+    public void testPluginOperationWithDeclaredPath() throws Exception {
+        JsonNode config = mapper.readTree("{\"outputFields\":{"
+                + "\"name\":{\"operation\":\"uppercase\",\"sources\":[\"user.name\"],\"suffixPath\":\"user.id\",\"required\":true}}}");
+        JsonNode input = mapper.readTree("{\"user\":{\"name\":\"ada\",\"id\":7}}");
+        CompiledTransformer plan = JsonTransformer.compile(config);
+        assertEquals("ADA7", plan.transform(input).get("name").asText());
+        assertEquals("ADA7", plan.transform(mapper.writeValueAsBytes(input)).get("name").asText());
+        assertEquals("ADA7", plan.withBackend(CompiledTransformer.Backend.GENERATED).transform(input).get("name").asText());
+
+        TransformMetrics metrics = new TransformMetrics();
+        plan.withMetrics(metrics).transform(mapper.readTree("{\"user\":{\"name\":\"ada\"}}"));
+        assertEquals(Long.valueOf(1), metrics.snapshot().fields().get("name").misses().get("user.id"));
+        assertEquals(1, metrics.snapshot().operations().get("uppercase").count());
+    }
+
+    @Test
+    public void testUnknownOperationFailsAtCompileTime() throws Exception {
+        JsonNode config = mapper.readTree("{\"outputFields\":{\"x\":{\"operation\":\"no_such_op\",\"sources\":[\"a\"]}}}");
+        try {
+            JsonTransformer.compile(config);
+            fail("Expected IllegalArgumentException for unknown operation");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().startsWith("x: unknown operation 'no_such_op'"));
+        }
+    }
+
+    @Test
+    public void testBindValidatesRule() throws Exception {
+        JsonNode config = mapper.readTree("{\"outputFields\":{\"x\":{\"operation\":\"uppercase\",\"sources\":[]}}}");
+        try {
+            JsonTransformer.compile(config);
+            fail("Expected IllegalArgumentException for invalid rule");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("x: uppercase needs a source", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testProgrammaticRegistration() throws Exception {
+        Operation constant = new Operation() {
+            @Override
+            public String name() {
+                return "constant";
+            }
+
+            @Override
+            public Evaluator bind(OperationBinding binding) {
+                JsonNode value = TextNode.valueOf(binding.rule().get("value").asText());
+                return slots -> value;
+            }
+        };
+        OperationRegistry registry = OperationRegistry.defaults().with(constant);
+        assertNull(OperationRegistry.defaults().get("constant"));
+        JsonNode config = mapper.readTree("{\"outputFields\":{\"v\":{\"operation\":\"constant\",\"sources\":[],\"value\":\"k\"}}}");
+        assertEquals("k", JsonTransformer.compile(config, registry).transform(mapper.readTree("{}")).get("v").asText());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicateNameRejected() {
+        OperationRegistry.defaults().with(new UppercaseOperation());
+    }
+}
@@ -77,4 +77,20 @@ public class OperationsUtilsTest {
         JsonNode result = OperationsUtils.fallback(root, sources);
         assertTrue(result == null || result.isNull() || result.isMissingNode());
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testOperationsTakeAnyNumberOfSources() throws Exception {
+        JsonNode event = mapper.readTree("{\"d\":[{\"v\":\"D1\",\"s\":5},{\"v\":\"D2\",\"s\":3},{\"v\":\"D3\"},"
+                + "{\"v\":\"D4\",\"s\":3}],\"top\":\"T\",\"ts\":4,\"blank\":[\"\",\" \"]}");
+        assertEquals("D4", OperationsUtils.conditionalDecision(event, Arrays.asList("d[*].v"), Arrays.asList("d[*].s")));
+        assertEquals("D4", OperationsUtils.conditionalDecision(event, Arrays.asList("d[*].v", "top"), Arrays.asList("d[*].s", "ts")));
+        assertEquals("D2", OperationsUtils.conditionalDecision(event, Arrays.asList("d[*].v"), Arrays.asList("d[0].s", "d[1].s")));
+        assertEquals("T", OperationsUtils.conditionalDecision(event, Arrays.asList("top", "d[0].v", "d[2].v"),
+                Arrays.asList("ts", "d[0].s", "d[2].s")));
+        assertEquals("T", OperationsUtils.conditionalDecision(event, Arrays.asList("d[2].v", "top"), Arrays.asList("d[2].s", "ts")));
+        assertEquals("D1 D2 D3 D4 T", OperationsUtils.concatenate(event, Arrays.asList("d[*].v", "blank[*]", "top"), " "));
+        assertEquals("T", OperationsUtils.fallback(event, Arrays.asList("blank[*]", "missing", "top")).asText());
+        assertEquals("D1", OperationsUtils.fallback(event, Arrays.asList("blank[*]", "d[*].v")).asText());
+        assertNull(OperationsUtils.fallback(event, Arrays.asList("top.x", "blank[*]")));
+    }
+}
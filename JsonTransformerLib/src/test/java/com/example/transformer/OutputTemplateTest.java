@@ -0,0 +1,81 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class OutputTemplateTest {
+    private static final String FIELDS = "\"outputFields\":{"
+            + "\"id\":{\"source\":\"id\"},"
+            + "\"decision.code\":{\"source\":\"code\",\"required\":true},"
+            + "\"meta.source.name\":{\"source\":\"name\"},"
+            + "\"decision.score\":{\"source\":\"score\"}}";
+
+    private ObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+    }
+
+    @Test
+    public void testDottedFieldsAreNested() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree("{" + FIELDS + "}"));
+        String input = "{\"id\":\"1\",\"code\":\"ACCEPT01\",\"name\":\"web\",\"score\":5}";
+        String expected = "{\"id\":\"1\",\"decision\":{\"code\":\"ACCEPT01\",\"score\":5},\"meta\":{\"source\":{\"name\":\"web\"}}}";
+        for (CompiledTransformer p : new CompiledTransformer[]{plan, plan.withBackend(CompiledTransformer.Backend.GENERATED)}) {
+            assertEquals(expected, p.transform(mapper.readTree(input)).toString());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            p.transformTo(input.getBytes(StandardCharsets.UTF_8), out);
+            assertEquals(expected, out.toString("UTF-8"));
+            assertEquals(expected, p.view(mapper.readTree(input)).result().output().toString());
+        }
+        assertEquals(Arrays.asList("id", "decision.code", "meta.source.name", "decision.score"), plan.outputFields());
+    }
+
+    @Test
+    public void testObjectsWithNoValuesAreOmitted() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree("{" + FIELDS + "}"));
+        assertEquals("{\"decision\":{\"code\":\"X\"}}", plan.transform(mapper.readTree("{\"code\":\"X\"}")).toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        plan.transformTo("{\"code\":\"X\"}".getBytes(StandardCharsets.UTF_8), out);
+        assertEquals("{\"decision\":{\"code\":\"X\"}}", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testFlatOutputKeysKeepsDottedNames() throws Exception {
+        JsonNode config = mapper.readTree(new File("config/sample_config.json"));
+        JsonNode event = mapper.readTree(new File("input_event.json"));
+        CompiledTransformer nested = JsonTransformer.compile(config).project(Arrays.asList("tenantID", "overallResponse.decision"));
+        ((ObjectNode) config).put("flatOutputKeys", true);
+        CompiledTransformer flat = JsonTransformer.compile(config).project(Arrays.asList("tenantID", "overallResponse.decision"));
+        JsonNode decision = event.at("/message/responseHeader/overallResponse/decision");
+        assertEquals(decision, nested.transform(event).get("overallResponse").get("decision"));
+        assertEquals(decision, flat.transform(event).get("overallResponse.decision"));
+        assertNull(flat.transform(event).get("overallResponse"));
+    }
+
+    @Test
+    public void testConflictingFieldsAreRejected() throws Exception {
+        for (String fields : Arrays.asList("{\"a\":{\"source\":\"x\"},\"a.b\":{\"source\":\"y\"}}",
+                "{\"a.b\":{\"source\":\"x\"},\"a\":{\"source\":\"y\"}}",
+                "{\"a..b\":{\"source\":\"x\"}}")) {
+            try {
+                JsonTransformer.compile(mapper.readTree("{\"outputFields\":" + fields + "}"));
+                fail("Expected IllegalArgumentException for " + fields);
+            } catch (IllegalArgumentException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().contains("flatOutputKeys"));
+            }
+            JsonNode flat = mapper.readTree("{\"flatOutputKeys\":true,\"outputFields\":" + fields + "}");
+            assertNotNull(JsonTransformer.compile(flat));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class PartitionedExecutorTest {
+    private static final String KEY_PATH = "message.responseHeader.tenantID";
+
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+    private PartitionedExecutor executor;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        plan = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"tenant\":{\"source\":\"message.responseHeader.tenantID\"},"
+                + "\"n\":{\"source\":\"n\",\"required\":true}}}"));
+        executor = new PartitionedExecutor(plan, KEY_PATH, 4, 1000);
+    }
+
+    @After
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void testResultsPerKeyStayInOrder() throws Exception {
+        Map<String, List<Integer>> seen = new HashMap<>();
+        Map<String, Integer> counters = new HashMap<>();
+        List<CompletableFuture<TransformResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String tenant = "tenant-" + (i * 7 % 11);
+            int n = counters.merge(tenant, 1, Integer::sum);
+            futures.add(executor.submit(event(tenant, n)).whenComplete((result, ex) -> {
+                synchronized (seen) {
+                    seen.computeIfAbsent(result.output().get("tenant").asText(), k -> new ArrayList<>())
+                            .add(result.output().get("n").asInt());
+                }
+            }));
+        }
+        for (CompletableFuture<TransformResult> f : futures) assertTrue(f.get().isSuccess());
+        assertEquals(11, seen.size());
+        for (Map.Entry<String, List<Integer>> entry : seen.entrySet()) {
+            List<Integer> values = entry.getValue();
+            assertEquals(counters.get(entry.getKey()).intValue(), values.size());
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(entry.getKey(), i + 1, values.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testIdleLanesStealFromBusyLane() throws Exception {
+        // Only tenants whose groups start on lane 0, so the other lanes have nothing of their own.
+        List<String> tenants = new ArrayList<>();
+        for (int i = 0; tenants.size() < 32; i++) {
+            if (executor.laneOf("hot-" + i) == 0) tenants.add("hot-" + i);
+        }
+        List<CompletableFuture<TransformResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            futures.add(executor.submit(event(tenants.get(i % tenants.size()), i)));
+        }
+        for (CompletableFuture<TransformResult> f : futures) f.get();
+        long stolen = 0;
+        long processedElsewhere = 0;
+        long total = 0;
+        for (PartitionedExecutor.LaneStats lane : executor.stats()) {
+            total += lane.processed();
+            assertEquals(0, lane.queued());
+            if (lane.lane() != 0) {
+                stolen += lane.steals();
+                processedElsewhere += lane.processed();
+            }
+        }
+        assertEquals(40_000, total);
+        assertTrue(executor.stats().toString(), stolen > 0);
+        assertTrue(executor.stats().toString(), processedElsewhere > 0);
+    }
+
+    @Test
+    public void testRejectedEventsAndMissingKeys() throws Exception {
+        TransformResult failed = executor.submit(mapper.readTree("{\"message\":{}}")).get();
+        assertFalse(failed.isSuccess());
+        assertEquals("n", failed.violations().get(0).field());
+        TransformResult byKey = executor.submit("request-1", mapper.readTree("{\"n\":5}")).get();
+        assertEquals(5, byKey.output().get("n").asInt());
+    }
+
+    @Test
+    public void testCloseDrainsAndRejects() throws Exception {
+        List<CompletableFuture<TransformResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) futures.add(executor.submit(event("t" + (i % 3), i)));
+        executor.close();
+        assertEquals(0, executor.pending());
+        for (CompletableFuture<TransformResult> f : futures) assertTrue(f.isDone());
+        try {
+            executor.submit(event("t0", 0));
+            fail("Expected RejectedExecutionException after close");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+    }
+
+    private JsonNode event(String tenant, int n) {
+        return mapper.createObjectNode().put("n", n)
+                .set("message", mapper.createObjectNode()
+                        .set("responseHeader", mapper.createObjectNode().put("tenantID", tenant)));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PathTrieTest {
+    private JsonNode root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = new ObjectMapper().readTree(
+                "{\"m\":{\"h\":{\"code\":\"R1\",\"o\":{\"d\":\"ACCEPT\",\"s\":5}},\"c\":[{\"a\":[{\"st\":\"Main\"}]}]}}");
+    }
+
+    @Test
+    public void testDuplicatePathsShareASlot() {
+        PathTrie.Builder builder = new PathTrie.Builder();
+        int first = builder.add("m.h.code");
+        int second = builder.add("m.h.o.d");
+        assertEquals(first, builder.add("m.h.code"));
+        assertNotEquals(first, second);
+        assertEquals(2, builder.build().slotCount());
+    }
+
+    @Test
+    public void testResolveFillsEverySlotInOneWalk() {
+        PathTrie.Builder builder = new PathTrie.Builder();
+        int code = builder.add("m.h.code");
+        int decision = builder.add("m.h.o.d");
+        int score = builder.add("m.h.o.s");
+        int street = builder.add("m.c[0].a[0].st");
+        int object = builder.add("m.h.o");
+        int missing = builder.add("m.c[1].a[0].st");
+        PathTrie trie = builder.build();
+        JsonNode[] slots = new JsonNode[trie.slotCount()];
+        trie.resolve(root, slots);
+        assertEquals("R1", slots[code].asText());
+        assertEquals("ACCEPT", slots[decision].asText());
+        assertEquals(5, slots[score].asInt());
+        assertEquals("Main", slots[street].asText());
+        assertTrue(slots[object].isObject());
+        assertNull(slots[missing]);
+    }
+
+    @Test
+    public void testResolveMatchesGetValueByPath() {
+        String[] paths = {"m.h.code", "m.h.o", "m.c[0].a[0].st", "m.c[0].a[3]", "m.h.code.x", "nope"};
+        PathTrie.Builder builder = new PathTrie.Builder();
+        for (String p : paths) builder.add(p);
+        PathTrie trie = builder.build();
+        JsonNode[] slots = new JsonNode[trie.slotCount()];
+        trie.resolve(root, slots);
+        for (int i = 0; i < paths.length; i++) {
+            assertEquals(paths[i], TransformerUtils.getValueByPath(root, paths[i]), slots[i]);
+        }
+    }
+
+    @Test
+    public void testStreamingResolveMatchesTreeResolve() throws Exception {
+        String json = "{\"skip\":{\"big\":[1,2,{\"x\":3}]},\"m\":{\"h\":{\"n\":null,\"code\":\"R1\","
+                + "\"o\":{\"d\":\"ACCEPT\",\"s\":5,\"r\":[\"a\"]}},\"c\":[{\"z\":1},{\"a\":[{\"st\":\"Main\"}]}]}}";
+        String[] paths = {"m.h.code", "m.h.n", "m.h.o", "m.h.o.d", "m.h.o.r", "m.c[1].a[0].st", "m.c[0].a", "m.c[5]", "nope"};
+        PathTrie.Builder builder = new PathTrie.Builder();
+        for (String p : paths) builder.add(p);
+        PathTrie trie = builder.build();
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode[] fromTree = new JsonNode[trie.slotCount()];
+        trie.resolve(mapper.readTree(json), fromTree);
+        JsonNode[] fromStream = new JsonNode[trie.slotCount()];
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            trie.resolve(parser, fromStream);
+        }
+        assertArrayEquals(fromTree, fromStream);
+        assertTrue(fromStream[1].isNull());
+    }
+
+    @Test
+    public void testFanOutMatchesJsonPathInOnePass() throws Exception {
+        String json = "{\"d\":[{\"t\":\"A\",\"v\":\"x\",\"s\":2,\"r\":[\"r1\",\"r2\"]},{\"t\":\"B\",\"s\":1},"
+                + "{\"t\":\"A\",\"v\":\"z\",\"r\":[]}],\"e\":[],\"n\":5}";
+        String[] paths = {"d[*].v", "d[*].s", "d[?t=='A'].v", "d[*].r[*]", "d[*].r[0]", "d[-1].v", "d[*]", "e[*].v",
+                "n[*]", "missing[*].v", "d[0].v"};
+        PathTrie.Builder builder = new PathTrie.Builder();
+        for (String p : paths) builder.add(p);
+        PathTrie trie = builder.build();
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode event = mapper.readTree(json);
+        JsonNode[] fromTree = new JsonNode[trie.slotCount()];
+        trie.resolve(event, fromTree);
+        JsonNode[] fromStream = new JsonNode[trie.slotCount()];
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            trie.resolve(parser, fromStream);
+        }
+        for (int i = 0; i < paths.length; i++) {
+            JsonNode expected = JsonPath.compile(paths[i]).evaluate(event);
+            assertEquals(paths[i], expected, fromTree[i]);
+            assertEquals(paths[i], expected, fromStream[i]);
+            assertEquals(paths[i], expected instanceof FanOutNode, fromTree[i] instanceof FanOutNode);
+        }
+        assertEquals("[\"x\",null,\"z\"]", fromTree[0].toString());
+        assertEquals("[\"r1\",\"r2\"]", fromTree[3].toString());
+        PathTrie pruned = trie.retain(new boolean[]{false, false, true, false, false, false, false, false, false, false, false});
+        JsonNode[] projected = new JsonNode[trie.slotCount()];
+        pruned.resolve(event, projected);
+        assertEquals("[\"x\",\"z\"]", projected[2].toString());
+        assertNull(projected[0]);
+    }
+}
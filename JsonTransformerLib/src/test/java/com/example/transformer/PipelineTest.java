@@ -0,0 +1,232 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PipelineTest {
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        plan = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+                + "\"tenant\":{\"source\":\"h.tenant\"},"
+                + "\"seq\":{\"source\":\"seq\"},"
+                + "\"n\":{\"source\":\"n\"}}}"));
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        MemoryTopic in = new MemoryTopic();
+        MemoryTopic out = new MemoryTopic();
+        for (int i = 0; i < 50_000; i++) send(in, "t" + (i % 16), i, 0);
+        in.close();
+        Pipeline.Stats stats = Pipeline.builder(plan, in.source(), out.sink())
+                .transformThreads(2).start().await();
+        assertEquals(50_000, stats.written());
+        assertEquals(50_000, out.size());
+        assertEquals(49_999, in.committed());
+        assertEquals(0, stats.inFlight());
+        assertTrue(stats.toString(), stats.eventsPerSecond() > 5_000);
+        assertEquals(50_000, stats.latency().count());
+    }
+
+    @Test
+    public void testOrderingWithinKey() throws Exception {
+        MemoryTopic in = new MemoryTopic();
+        MemoryTopic out = new MemoryTopic();
+        Map<String, Integer> counters = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            String key = "t" + (i * 7 % 13);
+            int n = counters.merge(key, 1, Integer::sum);
+            send(in, key, i, n);
+        }
+        in.close();
+        Pipeline.builder(plan, in.source(), out.sink())
+                .parseThreads(3).transformThreads(3).serializeThreads(3).queueCapacity(8).batchSize(64)
+                .start().await();
+        Map<String, Integer> last = new HashMap<>();
+        for (Pipeline.Record record : out.records()) {
+            JsonNode output = mapper.readTree(record.value());
+            int n = output.get("n").asInt();
+            Integer previous = last.put(record.key(), n);
+            assertEquals(record.key(), previous == null ? 1 : previous + 1, n);
+        }
+        assertEquals(counters, last);
+    }
+
+    @Test
+    public void testSlowSinkBacksUpToSource() throws Exception {
+        MemoryTopic in = new MemoryTopic();
+        for (int i = 0; i < 2_000; i++) send(in, "t" + (i % 4), i, 0);
+        in.close();
+        List<Pipeline.Record> written = Collections.synchronizedList(new ArrayList<>());
+        Pipeline pipeline = Pipeline.builder(plan, in.source(), new PipelineSink() {
+            @Override
+            public void write(List<Pipeline.Record> batch) throws IOException {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+                written.addAll(batch);
+            }
+
+            @Override
+            public void close() {
+            }
+        }).transformThreads(2).queueCapacity(4).batchSize(10).start();
+        for (int i = 0; i < 20; i++) {
+            Thread.sleep(10);
+            Pipeline.Stats stats = pipeline.stats();
+            assertTrue(stats.toString(), stats.inFlight() <= pipeline.maxInFlight());
+        }
+        assertTrue(pipeline.stats().received() < 2_000);
+        Pipeline.Stats stats = pipeline.await();
+        assertEquals(2_000, stats.written());
+        assertEquals(2_000, written.size());
+    }
+
+    @Test
+    public void testBatchesByCountAndTime() throws Exception {
+        MemoryTopic in = new MemoryTopic();
+        for (int i = 0; i < 25; i++) send(in, null, i, 0);
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        Pipeline pipeline = Pipeline.builder(plan, in.source(), new PipelineSink() {
+            @Override
+            public void write(List<Pipeline.Record> batch) {
+                sizes.add(batch.size());
+            }
+
+            @Override
+            public void close() {
+            }
+        }).transformThreads(1).batchSize(10).linger(Duration.ofMillis(50)).start();
+        // The stream stays open, so the last partial batch can only be flushed by the linger time.
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pipeline.stats().written() < 25 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(25, pipeline.stats().written());
+        assertEquals(24, in.committed());
+        in.close();
+        pipeline.close();
+        int total = 0;
+        for (int size : sizes) {
+            assertTrue(sizes.toString(), size <= 10);
+            total += size;
+        }
+        assertEquals(25, total);
+        assertTrue(sizes.toString(), sizes.contains(10));
+    }
+
+    @Test
+    public void testNoLossOrDuplicatesAcrossShutdown() throws Exception {
+        MemoryTopic in = new MemoryTopic();
+        MemoryTopic out = new MemoryTopic();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 30_000; i++) send(in, "t" + (i % 8), i, 0);
+            in.close();
+        });
+        producer.start();
+        Pipeline first = Pipeline.builder(plan, in.source(), out.sink()).transformThreads(2).batchSize(100).start();
+        Thread.sleep(50);
+        first.close();
+        Pipeline.Stats stats = first.stats();
+        assertEquals(0, stats.inFlight());
+        assertEquals(stats.received(), out.size());
+        assertEquals(in.committed(), stats.committedOffset());
+        assertEquals(seqs(out, 0, out.size()), range(in.committed() + 1));
+
+        int firstRun = (int) out.size();
+        Pipeline.builder(plan, in.source(), out.sink()).transformThreads(2).start().await();
+        producer.join();
+        assertEquals(30_000, out.size());
+        assertEquals(29_999, in.committed());
+        Set<Integer> all = seqs(out, 0, out.size());
+        assertEquals(range(30_000), all);
+        assertTrue(Collections.disjoint(seqs(out, 0, firstRun), seqs(out, firstRun, out.size())));
+    }
+
+    @Test
+    public void testFailedRecordsGoToErrorSink() throws Exception {
+        MemoryTopic in = new MemoryTopic();
+        MemoryTopic out = new MemoryTopic();
+        MemoryTopic errors = new MemoryTopic();
+        send(in, "a", 0, 0);
+        in.send("a", "{not json".getBytes(StandardCharsets.UTF_8));
+        in.send("a", "{\"h\":{}}".getBytes(StandardCharsets.UTF_8));
+        send(in, "a", 3, 0);
+        in.close();
+        Pipeline.Stats stats = Pipeline.builder(plan, in.source(), out.sink()).errors(errors.sink()).start().await();
+        assertEquals(2, stats.written());
+        assertEquals(2, stats.failed());
+        assertEquals(3, in.committed());
+        List<Pipeline.Record> rejected = errors.records();
+        assertEquals(2, rejected.size());
+        JsonNode missing = mapper.readTree(rejected.get(1).value());
+        assertEquals(2, missing.get("offset").asInt());
+        assertEquals("id defined in the config mapping is null or empty", missing.get("error").asText());
+        assertEquals("{\"h\":{}}", missing.get("input").asText());
+        assertEquals(1, mapper.readTree(rejected.get(0).value()).get("offset").asInt());
+    }
+
+    @Test
+    public void testSinkFailureStopsWithoutCommitting() throws Exception {
+        MemoryTopic in = new MemoryTopic();
+        for (int i = 0; i < 100; i++) send(in, "t", i, 0);
+        in.close();
+        Pipeline pipeline = Pipeline.builder(plan, in.source(), new PipelineSink() {
+            @Override
+            public void write(List<Pipeline.Record> batch) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void close() {
+            }
+        }).start();
+        try {
+            pipeline.await();
+            fail("Expected IOException from the sink");
+        } catch (IOException ex) {
+            assertEquals("disk full", ex.getCause().getMessage());
+        }
+        assertEquals(-1, in.committed());
+    }
+
+    private void send(MemoryTopic topic, String key, int seq, int n) {
+        String json = "{\"h\":{\"id\":\"e" + seq + "\",\"tenant\":\"" + key + "\",\"messageTime\":" + seq + "},"
+                + "\"seq\":" + seq + ",\"n\":" + n + "}";
+        topic.send(key, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Set<Integer> seqs(MemoryTopic topic, int from, long to) throws IOException {
+        List<Pipeline.Record> records = topic.records();
+        Set<Integer> seqs = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            assertTrue("duplicate record", seqs.add(mapper.readTree(records.get(i).value()).get("seq").asInt()));
+        }
+        return seqs;
+    }
+
+    private static Set<Integer> range(long size) {
+        Set<Integer> range = new HashSet<>();
+        for (int i = 0; i < size; i++) range.add(i);
+        return range;
+    }
+}
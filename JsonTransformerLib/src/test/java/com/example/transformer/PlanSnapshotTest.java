@@ -0,0 +1,135 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PlanSnapshotTest {
+    private static final String CONFIG = "{\"strictSourcesRequired\":true,\"outputFields\":{"
+            + "\"head.id\":{\"source\":\"h.id\",\"required\":true,\"intern\":true},"
+            + "\"head.note\":{\"source\":\"h.note\"},"
+            + "\"decision\":{\"operation\":\"conditional_decision\",\"sources\":[\"d1\",\"d2\"],"
+            + "\"scores\":[\"s1\",\"s2\"],\"requiredScores\":[false,true],\"required\":true,\"threshold\":1.5e0},"
+            + "\"joined\":{\"operation\":\"concatenate\",\"sources\":[\"a\",\"b\",\"c[-1]\"],\"separator\":\" \\u00e9 \"},"
+            + "\"all\":{\"operation\":\"concatenate\",\"sources\":[\"items[*].v\"],\"separator\":\"|\"},"
+            + "\"future\":{\"operation\":\"uppercase\",\"sources\":[\"a\"],\"suffixPath\":\"h.note\"}}}";
+
+    private static final String[] INPUTS = {
+            "{\"h\":{\"id\":\"X\",\"note\":\"n\"},\"d1\":\"A\",\"d2\":\"B\",\"s1\":2,\"s2\":1,\"a\":\"1\",\"b\":\"2\","
+                    + "\"c\":[0,3],\"items\":[{\"v\":\"p\"},{\"v\":\"q\"}]}",
+            "{\"h\":{\"id\":\"X\"},\"d1\":\"A\",\"s2\":5,\"a\":\"\"}",
+            "{}"
+    };
+
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        plan = JsonTransformer.compile(mapper.readTree(CONFIG));
+    }
+
+    @Test
+    public void testSnapshotLoadsAnEquivalentPlan() throws Exception {
+        CompiledTransformer loaded = reload(plan);
+        assertEquals(plan.outputFields(), loaded.outputFields());
+        assertEquals(plan.explain(), loaded.explain());
+        assertSameResults(plan, loaded);
+    }
+
+    @Test
+    public void testSnapshotKeepsBackendProjectionAndFlatKeys() throws Exception {
+        CompiledTransformer generated = plan.withBackend(CompiledTransformer.Backend.GENERATED);
+        assertEquals(CompiledTransformer.Backend.GENERATED, reload(generated).backend());
+        assertSameResults(generated, reload(generated));
+
+        CompiledTransformer projected = plan.project(Arrays.asList("joined", "head.note"), true);
+        CompiledTransformer loaded = reload(projected);
+        assertEquals(Arrays.asList("head.note", "joined"), loaded.outputFields());
+        assertSameResults(projected, loaded);
+
+        CompiledTransformer flat = JsonTransformer.compile(mapper.readTree(
+                "{\"flatOutputKeys\":true,\"outputFields\":{\"a.b\":{\"source\":\"x\"}}}"));
+        JsonNode input = mapper.readTree("{\"x\":\"v\"}");
+        assertEquals(flat.transform(input), reload(flat).transform(input));
+        assertTrue(reload(flat).transform(input).has("a.b"));
+    }
+
+    @Test
+    public void testSnapshotKeepsMeasuredOrder() throws Exception {
+        CompiledTransformer instrumented = plan.withMetrics(new TransformMetrics());
+        for (int i = 0; i < 50; i++) instrumented.tryTransform(mapper.readTree(INPUTS[0]));
+        CompiledTransformer measured = instrumented.withMeasuredOrder();
+        CompiledTransformer loaded = reload(measured);
+        assertNull(loaded.metrics());
+        assertTrue(loaded.explain(), loaded.explain().contains("by measured cost"));
+        assertEquals(measured.withMetrics(null).explain(), loaded.explain());
+    }
+
+    @Test
+    public void testSampleConfigSnapshotIsSmallerThanConfig() throws Exception {
+        JsonNode config = mapper.readTree(new File("config/sample_config.json"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonTransformer.compile(config).writeSnapshot(out);
+        assertTrue(out.size() + " bytes", out.size() < mapper.writeValueAsBytes(config).length);
+        JsonNode event = mapper.readTree(new File("input_event.json"));
+        assertEquals(JsonTransformer.compile(config).tryTransform(event).violations().get(0).field(),
+                JsonTransformer.loadSnapshot(new ByteArrayInputStream(out.toByteArray())).tryTransform(event)
+                        .violations().get(0).field());
+    }
+
+    @Test
+    public void testRejectsOtherStreamsAndMissingOperations() throws Exception {
+        try {
+            JsonTransformer.loadSnapshot(new ByteArrayInputStream(CONFIG.getBytes("UTF-8")));
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException ex) {
+            assertTrue(ex.getMessage().contains("Not a plan snapshot"));
+        }
+        byte[] snapshot = snapshot(plan);
+        try {
+            JsonTransformer.loadSnapshot(new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length / 2)));
+            fail("Expected IOException for a truncated snapshot");
+        } catch (IOException ex) {
+            // expected
+        }
+        try {
+            JsonTransformer.loadSnapshot(new ByteArrayInputStream(snapshot), OperationRegistry.load(ClassLoader.getPlatformClassLoader()));
+            fail("Expected IllegalArgumentException for the plugin operation");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().contains("uppercase"));
+        }
+    }
+
+    private void assertSameResults(CompiledTransformer expected, CompiledTransformer actual) throws Exception {
+        for (String input : INPUTS) {
+            JsonNode event = mapper.readTree(input);
+            for (TransformResult.Mode mode : TransformResult.Mode.values()) {
+                TransformResult a = expected.tryTransform(event, mode);
+                TransformResult b = actual.tryTransform(event, mode);
+                assertEquals(input, a.output(), b.output());
+                assertEquals(input, a.violations().toString(), b.violations().toString());
+            }
+        }
+    }
+
+    private static CompiledTransformer reload(CompiledTransformer plan) throws IOException {
+        return JsonTransformer.loadSnapshot(new ByteArrayInputStream(snapshot(plan)));
+    }
+
+    private static byte[] snapshot(CompiledTransformer plan) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        plan.writeSnapshot(out);
+        return out.toByteArray();
+    }
+}
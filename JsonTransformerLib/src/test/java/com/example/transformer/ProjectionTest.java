@@ -0,0 +1,143 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ProjectionTest {
+    private ObjectMapper mapper;
+    private CompiledTransformer sample;
+    private JsonNode event;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        sample = JsonTransformer.compile(mapper.readTree(new File("config/sample_config.json")));
+        event = mapper.readTree(new File("input_event.json"));
+    }
+
+    @Test
+    public void testProjectionEvaluatesOnlyRequestedFields() throws Exception {
+        // The full sample config rejects this event on concatenateExample; the projection never evaluates it.
+        assertFalse(sample.tryTransform(event).isSuccess());
+        CompiledTransformer projected = sample.project(Arrays.asList("newDecision", "responseCode"));
+        assertEquals(Arrays.asList("responseCode", "newDecision"), projected.outputFields());
+        JsonNode output = projected.transform(event);
+        assertEquals(2, output.size());
+        CompiledTransformer full = sample.project(sample.outputFields().subList(0, 9));
+        assertEquals(full.transform(event).get("newDecision"), output.get("newDecision"));
+        assertEquals(event.at("/message/responseHeader/responseCode"), output.get("responseCode"));
+        byte[] bytes = mapper.writeValueAsBytes(event);
+        assertEquals(output, projected.transform(bytes));
+    }
+
+    @Test
+    public void testValidateAllKeepsFullValidation() throws Exception {
+        CompiledTransformer projected = sample.project(Collections.singletonList("responseCode"), true);
+        assertEquals(Collections.singletonList("responseCode"), projected.outputFields());
+        TransformResult expected = sample.tryTransform(event, TransformResult.Mode.COLLECT_ALL);
+        TransformResult actual = projected.tryTransform(event, TransformResult.Mode.COLLECT_ALL);
+        assertEquals(expected.violations().toString(), actual.violations().toString());
+
+        CompiledTransformer checked = JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"a\":{\"source\":\"a\"},\"b\":{\"source\":\"b\",\"required\":true}}}"))
+                .project(Collections.singletonList("a"), true);
+        assertEquals("{\"a\":1}", checked.transform(mapper.readTree("{\"a\":1,\"b\":2}")).toString());
+        assertFalse(checked.tryTransform(mapper.readTree("{\"a\":1}")).isSuccess());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        checked.transformTo("{\"a\":1,\"b\":2}".getBytes(StandardCharsets.UTF_8), out);
+        assertEquals("{\"a\":1}", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testProjectionWithGeneratedBackend() throws Exception {
+        CompiledTransformer generated = sample.withBackend(CompiledTransformer.Backend.GENERATED)
+                .project(Arrays.asList("newDecision", "address"));
+        assertEquals(CompiledTransformer.Backend.GENERATED, generated.backend());
+        assertEquals(sample.project(Arrays.asList("newDecision", "address")).transform(event), generated.transform(event));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFieldIsRejected() {
+        sample.project(Collections.singletonList("noSuchField"));
+    }
+
+    @Test
+    public void testViewEvaluatesFieldsOnceOnDemand() throws Exception {
+        Counting counting = new Counting();
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+                + "\"upper\":{\"operation\":\"counting\",\"sources\":[\"a\"]},"
+                + "\"other\":{\"operation\":\"counting\",\"sources\":[\"b\"]}}}"),
+                OperationRegistry.defaults().with(counting));
+        TransformedView view = plan.view(mapper.readTree("{\"h\":{},\"a\":\"x\",\"b\":\"y\"}"));
+        assertEquals(Arrays.asList("id", "upper", "other"), view.fieldNames());
+        assertEquals("X", view.get("upper").asText());
+        assertEquals("X", view.get("upper").asText());
+        assertTrue(view.has("upper"));
+        assertEquals(1, counting.calls.get());
+        assertFalse(view.has("id"));
+        try {
+            view.get("id");
+            fail("Expected RuntimeException for missing required field");
+        } catch (RuntimeException ex) {
+            assertEquals("id defined in the config mapping is null or empty", ex.getMessage());
+        }
+        TransformResult result = view.result();
+        assertFalse(result.isSuccess());
+        assertEquals("id", result.violations().get(0).field());
+        assertEquals(1, counting.calls.get());
+
+        TransformedView ok = plan.view(mapper.readTree("{\"h\":{\"id\":\"1\"},\"a\":\"x\",\"b\":\"y\"}"));
+        assertEquals("Y", ok.get("other").asText());
+        assertEquals(plan.transform(mapper.readTree("{\"h\":{\"id\":\"1\"},\"a\":\"x\",\"b\":\"y\"}")), ok.result().output());
+    }
+
+    @Test
+    public void testViewOnSampleEvent() {
+        TransformedView view = sample.view(event);
+        assertEquals(sample.project(Collections.singletonList("newDecision")).transform(event).get("newDecision"),
+                view.get("newDecision"));
+        assertFalse(view.result().isSuccess());
+        TransformedView projected = sample.project(Arrays.asList("tenantID", "address")).view(event);
+        assertEquals(Arrays.asList("tenantID", "address"), projected.fieldNames());
+        assertTrue(projected.result().isSuccess());
+        try {
+            projected.get("newDecision");
+            fail("Expected IllegalArgumentException for a field outside the projection");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Upper-cases its first source, counting calls.
+     */
+    private static final class Counting implements Operation {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String name() {
+            return "counting";
+        }
+
+        @Override
+        public Evaluator bind(OperationBinding binding) {
+            int slot = binding.sources()[0];
+            return slots -> {
+                calls.incrementAndGet();
+                return slots[slot] == null ? null : TextNode.valueOf(slots[slot].asText().toUpperCase());
+            };
+        }
+    }
+}
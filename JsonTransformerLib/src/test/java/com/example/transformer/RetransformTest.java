@@ -0,0 +1,128 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RetransformTest {
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+    private JsonNode event;
+    private JsonNode output;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        ObjectNode config = (ObjectNode) mapper.readTree(new File("config/sample_config.json"));
+        ((ObjectNode) config.get("outputFields")).remove("concatenateExample");
+        plan = JsonTransformer.compile(config);
+        event = mapper.readTree(new File("input_event.json"));
+        output = plan.transform(event);
+    }
+
+    @Test
+    public void testChangedInputRecomputesOnlyAffectedFields() throws Exception {
+        JsonNode updated = event.deepCopy();
+        ((ObjectNode) updated.at("/message/responseHeader/overallResponse")).put("decision", "REFER01").put("score", 10);
+        JsonNode result = plan.retransform(event, output, updated);
+        assertEquals(plan.transform(updated), result);
+        assertEquals("REFER01", result.get("newDecision").asText());
+        assertEquals("REFER01", result.get("overallResponse").get("decision").asText());
+        // Fields reading nothing that changed are reused from the previous output.
+        assertSame(output.get("address"), result.get("address"));
+        assertSame(output.get("newDecisionReasons"), result.get("newDecisionReasons"));
+    }
+
+    @Test
+    public void testPatchRecomputesOnlyAffectedFields() throws Exception {
+        JsonPatch patch = JsonPatch.parse(mapper.readTree("["
+                + "{\"op\":\"replace\",\"path\":\"/message/responseHeader/overallResponse/decision\",\"value\":\"DECLINE01\"},"
+                + "{\"op\":\"replace\",\"path\":\"/message/responseHeader/overallResponse/score\",\"value\":5},"
+                + "{\"op\":\"add\",\"path\":\"/message/clientResponsePayload/orchestrationDecisions/0\",\"value\":{\"decision\":\"X\",\"score\":99}}]"));
+        JsonNode before = event.deepCopy();
+        JsonNode result = plan.retransform(event, output, patch);
+        assertEquals(before, event);
+        assertEquals(plan.transform(patch.apply(event)), result);
+        assertEquals("DECLINE01", result.get("newDecision").asText());
+        assertSame(output.get("address"), result.get("address"));
+        assertSame(output.get("tenantID"), result.get("tenantID"));
+    }
+
+    @Test
+    public void testRetransformUsesGeneratedBackendAndMetrics() throws Exception {
+        JsonPatch patch = JsonPatch.parse(mapper.readTree("["
+                + "{\"op\":\"replace\",\"path\":\"/message/responseHeader/overallResponse/decision\",\"value\":\"DECLINE01\"},"
+                + "{\"op\":\"remove\",\"path\":\"/message/responseHeader/responseMessage\"}]"));
+        JsonNode expected = plan.transform(patch.apply(event));
+        assertFalse(expected.has("responseMessage"));
+
+        CompiledTransformer generated = plan.withBackend(CompiledTransformer.Backend.GENERATED);
+        assertEquals(expected, generated.retransform(event, generated.transform(event), patch));
+
+        TransformMetrics metrics = new TransformMetrics();
+        CompiledTransformer instrumented = plan.withMetrics(metrics);
+        assertEquals(expected, instrumented.retransform(event, output, patch));
+        TransformMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.events());
+        assertEquals(1, snapshot.fields().get("newDecision").time().count());
+        assertEquals(1, snapshot.fields().get("responseMessage").time().count());
+        assertEquals(0, snapshot.fields().get("address").time().count());
+    }
+
+    @Test(timeout = 5000)
+    public void testPatchCopyingAnArrayIntoItself() throws Exception {
+        CompiledTransformer fanOut = JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"xs\":{\"source\":\"arr[*].x\"},\"first\":{\"source\":\"arr[0].x[1].x\"}}}"));
+        JsonNode previous = mapper.readTree("{\"arr\":[{\"x\":null}]}");
+        JsonNode previousOutput = fanOut.transform(previous);
+        JsonPatch patch = JsonPatch.parse(mapper.readTree("[{\"op\":\"copy\",\"from\":\"/arr/0\",\"path\":\"/arr/-\"},"
+                + "{\"op\":\"copy\",\"from\":\"/arr\",\"path\":\"/arr/0/x\"},"
+                + "{\"op\":\"add\",\"path\":\"/arr/0/x/1/x\",\"value\":\"v\"}]"));
+        JsonNode result = fanOut.retransform(previous, previousOutput, patch);
+        assertEquals(fanOut.transform(patch.apply(previous)), result);
+        assertEquals("v", result.get("first").asText());
+        assertEquals(mapper.readTree("{\"arr\":[{\"x\":null}]}"), previous);
+    }
+
+    @Test
+    public void testRecomputedFieldsAreValidated() throws Exception {
+        JsonPatch patch = JsonPatch.parse(mapper.readTree(
+                "[{\"op\":\"remove\",\"path\":\"/message/responseHeader/expRequestId\"}]"));
+        try {
+            plan.retransform(event, output, patch);
+            fail("Expected RuntimeException for a removed required field");
+        } catch (RuntimeException ex) {
+            assertEquals("expRequestId defined in the config mapping is null or empty", ex.getMessage());
+        }
+        JsonNode unchanged = plan.retransform(event, output, JsonPatch.parse(mapper.readTree("[]")));
+        assertEquals(output, unchanged);
+    }
+
+    @Test
+    public void testFanOutAndFilterPathsAreAffectedByElementChanges() throws Exception {
+        CompiledTransformer fanOut = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"idx\":{\"source\":\"d[?decisionSource=='IDX'].decision\"},"
+                + "\"last\":{\"source\":\"d[-1].decision\"},"
+                + "\"first\":{\"source\":\"d[0].decision\"},"
+                + "\"other\":{\"source\":\"x\"}}}"));
+        JsonNode input = mapper.readTree("{\"x\":1,\"d\":[{\"decisionSource\":\"IDX\",\"decision\":\"A\"},"
+                + "{\"decisionSource\":\"RUL\",\"decision\":\"B\"}]}");
+        JsonNode previous = fanOut.transform(input);
+        for (String patch : Arrays.asList(
+                "[{\"op\":\"replace\",\"path\":\"/d/1/decisionSource\",\"value\":\"IDX\"}]",
+                "[{\"op\":\"remove\",\"path\":\"/d/0\"}]",
+                "[{\"op\":\"add\",\"path\":\"/d/-\",\"value\":{\"decision\":\"C\"}}]",
+                "[{\"op\":\"move\",\"from\":\"/d\",\"path\":\"/e\"}]")) {
+            JsonPatch parsed = JsonPatch.parse(mapper.readTree(patch));
+            JsonNode result = fanOut.retransform(input, previous, parsed);
+            assertEquals(patch, fanOut.transform(parsed.apply(input)), result);
+            assertSame(previous.get("other"), result.get("other"));
+        }
+    }
+}
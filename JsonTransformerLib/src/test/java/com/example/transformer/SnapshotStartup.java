@@ -0,0 +1,25 @@
+package com.example.transformer;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Test entry point for {@link AppCdsTest}, run in a child JVM: starts the way a service would, by loading a plan
+ * snapshot and warming it up, then prints the result for one event.
+ */
+public class SnapshotStartup {
+    public static void main(String[] args) throws Exception {
+        CompiledTransformer plan;
+        try (InputStream in = new FileInputStream(args[0])) {
+            plan = JsonTransformer.loadSnapshot(in);
+        }
+        byte[] event = Files.readAllBytes(Paths.get(args[1]));
+        WarmUp.run(plan, Collections.singletonList(event), Duration.ofMillis(200));
+        TransformResult result = plan.tryTransform(event, TransformResult.Mode.COLLECT_ALL);
+        System.out.println("RESULT " + (result.isSuccess() ? result.output() : result.violations()));
+    }
+}
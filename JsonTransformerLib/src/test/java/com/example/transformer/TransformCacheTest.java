@@ -0,0 +1,175 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TransformCacheTest {
+    private static final String CONFIG = "{\"outputFields\":{"
+            + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+            + "\"joined\":{\"operation\":\"concatenate\",\"sources\":[\"a\",\"b\"],\"separator\":\"-\"}}}";
+
+    private ObjectMapper mapper;
+    private AtomicLong now;
+    private TransformCache cache;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        now = new AtomicLong();
+        cache = new TransformCache(100, Duration.ofSeconds(10), 1 << 20, now::get);
+        plan = JsonTransformer.compile(mapper.readTree(CONFIG)).withCache(cache);
+    }
+
+    @Test
+    public void testUnreferencedFieldsShareAnEntry() throws Exception {
+        JsonNode first = plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\",\"messageTime\":1},\"a\":\"1\",\"b\":\"2\"}"));
+        JsonNode second = plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\",\"messageTime\":2},\"a\":\"1\",\"b\":\"2\",\"z\":[1]}"));
+        assertEquals(first, second);
+        assertEquals("1-2", second.get("joined").asText());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.size());
+        assertTrue(cache.estimatedBytes() > 0);
+
+        plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":\"1\",\"b\":\"3\"}"));
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testMissingDiffersFromNullAndTypesAreCompared() throws Exception {
+        plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":\"1\"}"));
+        plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":\"1\",\"b\":null}"));
+        plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":1}"));
+        assertEquals(0, cache.hits());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testCachedViolationsHonourMode() throws Exception {
+        CompiledTransformer strict = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+                + "\"name\":{\"source\":\"h.name\",\"required\":true}}}"))
+                .withCache(new TransformCache(10, Duration.ofMinutes(1), 1 << 20));
+        JsonNode input = mapper.readTree("{\"h\":{}}");
+        assertEquals(1, strict.tryTransform(input).violations().size());
+        assertEquals(2, strict.tryTransform(input, TransformResult.Mode.COLLECT_ALL).violations().size());
+        assertEquals(1, strict.tryTransform(input).violations().size());
+        try {
+            strict.transform(input);
+            fail("Expected RuntimeException for missing required field");
+        } catch (RuntimeException ex) {
+            assertTrue(ex.getMessage().contains("id"));
+        }
+        assertEquals(3, strict.cache().hits());
+        assertEquals(1, strict.cache().misses());
+    }
+
+    @Test
+    public void testFailFastViolationMatchesUncachedPlan() throws Exception {
+        CompiledTransformer uncached = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"address\":{\"operation\":\"concatenate\",\"sources\":[\"a.line1\",\"a.city\"],\"separator\":\" \",\"required\":true},"
+                + "\"note\":{\"source\":\"h.note\"},"
+                + "\"id\":{\"source\":\"h.id\",\"required\":true}}}"));
+        for (CompiledTransformer p : new CompiledTransformer[]{uncached, uncached.withBackend(CompiledTransformer.Backend.GENERATED)}) {
+            CompiledTransformer cached = p.withCache(new TransformCache(10, Duration.ofMinutes(1), 1 << 20));
+            JsonNode input = mapper.readTree("{\"h\":{\"note\":\"n\"}}");
+            String expected = p.tryTransform(input).violations().toString();
+            assertTrue(expected, expected.contains("id"));
+            assertEquals(expected, cached.tryTransform(input).violations().toString());
+            assertEquals(expected, cached.tryTransform(input).violations().toString());
+            assertEquals(p.tryTransform(input, TransformResult.Mode.COLLECT_ALL).violations().toString(),
+                    cached.tryTransform(input, TransformResult.Mode.COLLECT_ALL).violations().toString());
+            assertEquals(2, cached.cache().hits());
+        }
+    }
+
+    @Test
+    public void testTtlExpiry() throws Exception {
+        JsonNode input = mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":\"1\"}");
+        plan.transform(input);
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        plan.transform(input);
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.expirations());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEntryLimitEvictsUnreferencedFirst() throws Exception {
+        cache = new TransformCache(2, Duration.ofMinutes(1), 1 << 20, now::get);
+        CompiledTransformer small = JsonTransformer.compile(mapper.readTree(CONFIG)).withCache(cache);
+        small.transform(event("1"));
+        small.transform(event("2"));
+        small.transform(event("1"));
+        small.transform(event("3"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        small.transform(event("1"));
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    public void testMemoryBudget() throws Exception {
+        cache = new TransformCache(1000, Duration.ofMinutes(1), 2000, now::get);
+        CompiledTransformer small = JsonTransformer.compile(mapper.readTree(CONFIG)).withCache(cache);
+        for (int i = 0; i < 50; i++) small.transform(event(Integer.toString(i)));
+        assertTrue(cache.estimatedBytes() <= 2000);
+        assertTrue(cache.evictions() > 0);
+        assertEquals(50, cache.misses());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.estimatedBytes());
+    }
+
+    @Test
+    public void testCacheIsBoundToOneConfig() throws Exception {
+        assertSame(cache, plan.withMetrics(new TransformMetrics()).cache());
+        assertNull(JsonTransformer.compile(mapper.readTree(CONFIG)).cache());
+        try {
+            JsonTransformer.compile(mapper.readTree(CONFIG)).withCache(cache);
+            fail("Expected IllegalStateException for a cache shared across configs");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String key = Integer.toString(i % 20);
+                        assertEquals(key + "-2", plan.transform(event(key)).get("joined").asText());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(2000, cache.hits() + cache.misses());
+        assertEquals(20, cache.size());
+    }
+
+    private JsonNode event(String a) throws Exception {
+        return mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":\"" + a + "\",\"b\":\"2\"}");
+    }
+}
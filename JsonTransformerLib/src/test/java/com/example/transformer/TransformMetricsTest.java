@@ -0,0 +1,102 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.Assert.*;
+
+public class TransformMetricsTest {
+    private ObjectMapper mapper;
+    private JsonNode config;
+    private TransformMetrics metrics;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        config = mapper.readTree("{\"outputFields\":{"
+                + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+                + "\"note\":{\"source\":\"h.note\"},"
+                + "\"joined\":{\"operation\":\"concatenate\",\"sources\":[\"a\",\"b\"],\"requiredSources\":[true,false]}}}");
+        metrics = new TransformMetrics();
+        plan = JsonTransformer.compile(config).withMetrics(metrics);
+    }
+
+    @Test
+    public void testUninstrumentedPlanHasNoMetrics() {
+        CompiledTransformer plain = JsonTransformer.compile(config);
+        assertNull(plain.metrics());
+        assertSame(metrics, plan.metrics());
+        assertSame(plan, plan.withMetrics(metrics));
+    }
+
+    @Test
+    public void testCountsMissesEmptiesAndTimings() throws Exception {
+        plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\",\"note\":\"\"},\"a\":\"1\"}"));
+        plan.transform(mapper.readTree("{\"h\":{\"id\":\"Y\"},\"a\":\"2\",\"b\":null}"));
+
+        TransformMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.events());
+        assertEquals(0, snapshot.rejected());
+        TransformMetrics.FieldSnapshot note = snapshot.fields().get("note");
+        assertEquals(2, note.time().count());
+        assertEquals(Long.valueOf(1), note.misses().get("h.note"));
+        assertEquals(Long.valueOf(1), note.empties().get("h.note"));
+        TransformMetrics.FieldSnapshot joined = snapshot.fields().get("joined");
+        assertEquals(Long.valueOf(1), joined.misses().get("b"));
+        assertEquals(Long.valueOf(1), joined.empties().get("b"));
+        assertEquals(Long.valueOf(0), joined.misses().get("a"));
+        assertEquals(4, snapshot.operations().get("source").count());
+        assertEquals(2, snapshot.operations().get("concatenate").count());
+    }
+
+    @Test
+    public void testCountsRequiredFailuresByReason() throws Exception {
+        JsonNode input = mapper.readTree("{\"h\":{}}");
+        plan.tryTransform(input, TransformResult.Mode.COLLECT_ALL);
+        try {
+            plan.transform(input);
+            fail("Expected RuntimeException for missing required field");
+        } catch (RuntimeException ex) {
+            // expected
+        }
+        TransformMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.events());
+        assertEquals(2, snapshot.rejected());
+        assertEquals(Long.valueOf(2), snapshot.fields().get("id").failures().get(TransformResult.Reason.FIELD_EMPTY));
+        // Fail-fast stops at "id", so "joined" is only evaluated in collect-all mode.
+        assertEquals(Long.valueOf(1), snapshot.fields().get("joined").failures().get(TransformResult.Reason.SOURCE_EMPTY));
+        assertEquals(1, snapshot.fields().get("joined").time().count());
+    }
+
+    @Test
+    public void testJsonTransformerRecordsIntoSharedMetrics() throws Exception {
+        JsonTransformer transformer = new JsonTransformer(metrics);
+        JsonNode input = mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":\"1\"}");
+        transformer.transform(input, config);
+        transformer.transform(input, config);
+        assertEquals(2, metrics.snapshot().events());
+        assertEquals(2, metrics.snapshot().fields().get("id").time().count());
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().events());
+        assertEquals(0, metrics.snapshot().fields().get("id").time().count());
+    }
+
+    @Test
+    public void testJmxRegistration() throws Exception {
+        plan.transform(mapper.readTree("{\"h\":{\"id\":\"X\"},\"a\":\"1\"}"));
+        ObjectName name = metrics.register("test");
+        try {
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Events"));
+            TabularData misses = (TabularData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "SourceMisses");
+            assertEquals(1L, misses.get(new Object[]{"note h.note"}).get("value"));
+        } finally {
+            TransformMetrics.unregister(name);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransformResultTest {
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        plan = JsonTransformer.compile(mapper.readTree("{\"outputFields\":{"
+                + "\"id\":{\"source\":\"h.id\",\"required\":true},"
+                + "\"decision\":{\"operation\":\"conditional_decision\",\"sources\":[\"d1\",\"d2\"],\"requiredSources\":[true,false],"
+                + "\"scores\":[\"s1\",\"s2\"],\"requiredScores\":[false,true],\"required\":true},"
+                + "\"joined\":{\"operation\":\"concatenate\",\"sources\":[\"a\",\"b\"],\"required\":true}}}"));
+    }
+
+    @Test
+    public void testSuccess() throws Exception {
+        JsonNode input = mapper.readTree("{\"h\":{\"id\":\"X\"},\"d1\":\"A\",\"d2\":\"B\",\"s1\":2,\"s2\":1,\"a\":\"1\"}");
+        TransformResult result = plan.tryTransform(input);
+        assertTrue(result.isSuccess());
+        assertTrue(result.violations().isEmpty());
+        assertEquals(plan.transform(input), result.output());
+        assertEquals("B", result.output().get("decision").asText());
+    }
+
+    @Test
+    public void testFailFastReportsFirstViolationLikeTransform() throws Exception {
+        JsonNode input = mapper.readTree("{\"h\":{}}");
+        TransformResult result = plan.tryTransform(input);
+        assertFalse(result.isSuccess());
+        assertNull(result.output());
+        assertEquals(1, result.violations().size());
+        TransformResult.Violation violation = result.violations().get(0);
+        assertEquals("id", violation.field());
+        assertEquals("h.id", violation.path());
+        assertEquals(TransformResult.Reason.FIELD_EMPTY, violation.reason());
+        try {
+            plan.transform(input);
+            fail("Expected RuntimeException for missing required field");
+        } catch (RuntimeException ex) {
+            assertEquals(violation.message(), ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testCollectAllReportsEveryViolation() throws Exception {
+        byte[] input = "{\"h\":{\"id\":\" \"}}".getBytes(StandardCharsets.UTF_8);
+        List<TransformResult.Violation> violations = plan.tryTransform(input, TransformResult.Mode.COLLECT_ALL).violations();
+        assertEquals(4, violations.size());
+        assertEquals(TransformResult.Reason.FIELD_EMPTY, violations.get(0).reason());
+        assertEquals(TransformResult.Reason.SOURCE_EMPTY, violations.get(1).reason());
+        assertEquals("d1", violations.get(1).path());
+        assertEquals("decision: required source 'd1' defined in the config mapping is null or empty", violations.get(1).message());
+        assertEquals(TransformResult.Reason.SCORE_EMPTY, violations.get(2).reason());
+        assertEquals("s2", violations.get(2).path());
+        assertEquals("joined", violations.get(3).field());
+        assertNull(violations.get(3).path());
+        assertEquals("joined defined in the config mapping is null or empty", violations.get(3).message());
+    }
+}
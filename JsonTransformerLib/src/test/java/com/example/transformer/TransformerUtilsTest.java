@@ -44,6 +44,15 @@ public class TransformerUtilsTest {
         assertEquals("b", val.asText());
     }
 
+    @Test
+    public void testGetValueByPath_emptySegmentsAreLenient() {
+        assertEquals("value", TransformerUtils.getValueByPath(root, "simple.").asText());
+        assertEquals("nestedValue", TransformerUtils.getValueByPath(root, "nested.field..").asText());
+        assertNull(TransformerUtils.getValueByPath(root, "nested..field"));
+        assertNull(TransformerUtils.getValueByPath(root, ".simple"));
+        assertEquals("value, b", TransformerUtils.concatenateFields(root, Arrays.asList("simple.", "arr[1].", "a..b"), ", "));
+    }
+
     @Test
     public void testSetValueByPath() {
         TransformerUtils.setValueByPath(root, "new.path", mapper.convertValue("val", JsonNode.class));
@@ -78,4 +87,24 @@ public class TransformerUtilsTest {
         assertTrue(TransformerUtils.isEmpty(mapper.convertValue("", JsonNode.class)));
         assertFalse(TransformerUtils.isEmpty(mapper.convertValue("abc", JsonNode.class)));
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testIsBlankMatchesTrim() {
+        for (String text : Arrays.asList("", " ", "\t\n\r ", "\u0000", "a", " a ", "\u00a0")) {
+            assertEquals(text, text.trim().isEmpty(), TransformerUtils.isBlank(text));
+            assertEquals(text, text.trim().isEmpty(), TransformerUtils.isEmpty(mapper.convertValue(text, JsonNode.class)));
+        }
+    }
+
+    @Test
+    public void testBuilderIsReusedAndReset() {
+        StringBuilder sb = TransformerUtils.builder().append("abc");
+        assertSame(sb, TransformerUtils.builder());
+        assertEquals(0, sb.length());
+        for (int i = 0; i < 10_000; i++) sb.append('x');
+        StringBuilder fresh = TransformerUtils.builder();
+        assertNotSame(sb, fresh);
+        assertEquals(0, fresh.length());
+        assertEquals("value, nestedValue", TransformerUtils.concatenateFields(root, Arrays.asList("simple", "nested.field"), ", "));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Test plugin registered through META-INF/services: upper-cases its first source and appends the value
+ * at the optional {@code suffixPath} argument, which it declares as an extra input path.
+ */
+public class UppercaseOperation implements Operation {
+    @Override
+    public String name() {
+        return "uppercase";
+    }
+
+    @Override
+    public Evaluator bind(OperationBinding binding) {
+        if (binding.sourcePaths().isEmpty()) {
+            throw binding.invalid("uppercase needs a source");
+        }
+        int source = binding.sources()[0];
+        int suffix = binding.rule().has("suffixPath") ? binding.path(binding.rule().get("suffixPath").asText()) : -1;
+        return slots -> {
+            JsonNode value = slots[source];
+            if (value == null || TransformerUtils.isEmpty(value)) return null;
+            String text = value.asText().toUpperCase();
+            if (suffix >= 0 && slots[suffix] != null) text += slots[suffix].asText();
+            return TextNode.valueOf(text);
+        };
+    }
+}
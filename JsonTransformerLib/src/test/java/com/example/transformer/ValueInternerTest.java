@@ -0,0 +1,86 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.Before;
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ValueInternerTest {
+    private static final String CONFIG = "{\"outputFields\":{"
+            + "\"tenant\":{\"source\":\"tenant\",\"intern\":true},"
+            + "\"decision\":{\"operation\":\"conditional_decision\",\"sources\":[\"d1\",\"d2\"],\"scores\":[\"s1\",\"s2\"],\"intern\":2},"
+            + "\"label\":{\"operation\":\"concatenate\",\"sources\":[\"a\",\"b\"],\"separator\":\"-\"},"
+            + "\"plain\":{\"source\":\"tenant\"}}}";
+
+    private ObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+    }
+
+    @Test
+    public void testInternReturnsCanonicalNodeUpToTheBound() {
+        ValueInterner interner = new ValueInterner(2);
+        JsonNode first = TextNode.valueOf("ACCEPT01");
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(TextNode.valueOf(new String("ACCEPT01"))));
+        interner.intern(TextNode.valueOf("REFER01"));
+        JsonNode third = TextNode.valueOf("DECLINE01");
+        assertSame(third, interner.intern(third));
+        assertNotSame(third, interner.intern(TextNode.valueOf("DECLINE01")));
+        assertEquals(2, interner.size());
+        JsonNode number = IntNode.valueOf(5);
+        assertSame(number, interner.intern(number));
+        assertNull(interner.intern(null));
+    }
+
+    @Test
+    public void testConfigFlagInternsAcrossEventsAndBackends() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree(CONFIG));
+        for (CompiledTransformer p : new CompiledTransformer[]{plan, plan.withBackend(CompiledTransformer.Backend.GENERATED)}) {
+            JsonNode one = p.transform(event("t-1", "ACCEPT01"));
+            JsonNode two = p.transform(event("t-1", "ACCEPT01"));
+            assertEquals(one, two);
+            assertSame(one.get("tenant"), two.get("tenant"));
+            assertSame(one.get("decision"), two.get("decision"));
+            assertNotSame(one.get("plain"), two.get("plain"));
+            assertEquals("x-y", one.get("label").asText());
+            JsonNode streamed = p.transform(mapper.writeValueAsString(event("t-1", "ACCEPT01")).getBytes(StandardCharsets.UTF_8));
+            assertSame(one.get("tenant"), streamed.get("tenant"));
+        }
+    }
+
+    @Test
+    public void testBuiltinsReuseInputNodes() throws Exception {
+        CompiledTransformer plan = JsonTransformer.compile(mapper.readTree(CONFIG));
+        JsonNode event = mapper.readTree("{\"d1\":\"REFER01\",\"d2\":\"ACCEPT01\",\"s1\":2,\"s2\":1,\"a\":\"x\",\"b\":\" \"}");
+        JsonNode output = plan.transform(event);
+        assertSame(event.get("d2"), output.get("decision"));
+        assertSame(event.get("a"), output.get("label"));
+        JsonNode numeric = plan.transform(mapper.readTree("{\"a\":7,\"b\":\"\"}"));
+        assertEquals("7", numeric.get("label").textValue());
+    }
+
+    @Test
+    public void testInvalidInternOption() throws Exception {
+        assertNull(ValueInterner.forOption("f", mapper.readTree("false")));
+        assertEquals(ValueInterner.DEFAULT_MAX_ENTRIES, ValueInterner.forOption("f", mapper.readTree("true")).maxEntries());
+        try {
+            JsonTransformer.compile(mapper.readTree("{\"outputFields\":{\"f\":{\"source\":\"a\",\"intern\":\"yes\"}}}"));
+            fail("Expected IllegalArgumentException for a non-numeric intern option");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().startsWith("f: 'intern'"));
+        }
+    }
+
+    private JsonNode event(String tenant, String decision) {
+        return mapper.createObjectNode().put("tenant", new String(tenant)).put("d1", new String(decision))
+                .put("d2", "REFER01").put("s1", 1).put("s2", 2).put("a", "x").put("b", "y");
+    }
+}
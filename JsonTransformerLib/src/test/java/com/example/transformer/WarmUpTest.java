@@ -0,0 +1,55 @@
+package com.example.transformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class WarmUpTest {
+    private ObjectMapper mapper;
+    private CompiledTransformer plan;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        plan = JsonTransformer.compile(mapper.readTree(new File("config/sample_config.json")));
+    }
+
+    @Test
+    public void testSampleEventHasAValueAtEveryPath() throws Exception {
+        JsonNode event = WarmUp.sampleEvent(plan);
+        TransformResult result = plan.tryTransform(event, TransformResult.Mode.COLLECT_ALL);
+        assertTrue(result.violations().toString(), result.isSuccess());
+        assertEquals("sample, sample, sample, sample, sample", result.output().get("address").asText());
+        assertEquals(50, event.at("/message/responseHeader/overallResponse/score").asInt());
+
+        JsonNode fanOut = WarmUp.sampleEvent(JsonTransformer.compile(mapper.readTree(
+                "{\"outputFields\":{\"all\":{\"operation\":\"concatenate\",\"sources\":[\"items[*].v\",\"last[-2]\"],"
+                        + "\"separator\":\"|\"}}}")));
+        assertEquals("{\"items\":[{\"v\":\"sample\"}],\"last\":[\"sample\",\"sample\"]}", fanOut.toString());
+    }
+
+    @Test
+    public void testWarmUpRunsRoundsWithinBudget() throws Exception {
+        byte[] recorded = Files.readAllBytes(new File("input_event.json").toPath());
+        WarmUp.Result result = WarmUp.run(plan, Collections.singletonList(recorded), Duration.ofMillis(400));
+        assertTrue(result.toString(), result.rounds() >= 1 && result.events() > 0);
+        assertTrue(result.toString(), result.elapsed().toMillis() < 2000);
+        assertTrue(result.toString(), result.p99Nanos() > 0);
+        assertTrue(result.toString(), result.toString().startsWith("warm-up "));
+
+        WarmUp.Result synthetic = WarmUp.run(plan, Duration.ofMillis(200));
+        assertTrue(synthetic.toString(), synthetic.events() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWarmUpNeedsSamples() {
+        WarmUp.run(plan, Collections.emptyList(), Duration.ofMillis(10));
+    }
+}